@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * The Velocity API is licensed under the terms of the MIT License. For more details,
+ * reference the LICENSE file in the api top-level directory.
+ */
+
+package com.velocitypowered.api.event;
+
+import java.time.Duration;
+
+/**
+ * Timing statistics for the event handlers a plugin has registered for a single event type. The
+ * statistics cover every invocation since the proxy started, including invocations of handlers
+ * that have since been unregistered.
+ */
+public interface EventHandlerStatistics {
+
+  /**
+   * Returns the ID of the plugin that registered the handlers.
+   *
+   * @return the plugin ID
+   */
+  String getPluginId();
+
+  /**
+   * Returns the event type the handlers were registered for.
+   *
+   * @return the event type
+   */
+  Class<?> getEventType();
+
+  /**
+   * Returns the number of times the handlers were called.
+   *
+   * @return the number of invocations
+   */
+  long getInvocationCount();
+
+  /**
+   * Returns the total time spent running the handlers, excluding the time spent waiting for a
+   * {@link Continuation} to be resumed.
+   *
+   * @return the total execution time
+   */
+  Duration getTotalExecutionTime();
+
+  /**
+   * Returns an estimate of the given percentile of the time spent running a handler.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the estimated execution time
+   */
+  Duration getExecutionTimePercentile(double percentile);
+
+  /**
+   * Returns the number of times a handler suspended event processing until its
+   * {@link Continuation} was resumed.
+   *
+   * @return the number of suspensions
+   */
+  long getSuspensionCount();
+
+  /**
+   * Returns the total time event processing was suspended waiting for a {@link Continuation} of
+   * the handlers to be resumed.
+   *
+   * @return the total time spent waiting
+   */
+  Duration getTotalSuspendedTime();
+
+  /**
+   * Returns an estimate of the given percentile of the time event processing was suspended
+   * waiting for a {@link Continuation} of the handlers to be resumed.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the estimated time spent waiting
+   */
+  Duration getSuspendedTimePercentile(double percentile);
+}
@@ -7,6 +7,8 @@
 
 package com.velocitypowered.api.event;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -91,4 +93,14 @@ public interface EventManager {
    * @param <E> the event type to handle
    */
   <E> void unregister(Object plugin, EventHandler<E> handler);
+
+  /**
+   * Returns timing statistics for the event handlers of every plugin, grouped by plugin and event
+   * type. Event managers that do not keep statistics return an empty collection.
+   *
+   * @return the statistics of all event handlers that have been registered
+   */
+  default Collection<EventHandlerStatistics> getHandlerStatistics() {
+    return Collections.emptyList();
+  }
 }
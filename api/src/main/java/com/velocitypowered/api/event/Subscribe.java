@@ -29,9 +29,12 @@ public @interface Subscribe {
   /**
    * Whether the handler must be called asynchronously.
    *
-   * <p><strong>This option currently has no effect, but in the future it will. In Velocity 3.0.0,
-   * all event handlers run asynchronously by default. You are encouraged to determine whether or
-   * not to enable it now. This option is being provided as a migration aid.</strong></p>
+   * <p>In Velocity 3.0.0, all event handlers run asynchronously by default. If every handler
+   * targeting an event type sets this to {@code false}, the handlers for that event are called
+   * on the thread that fired the event (typically a Netty event loop), avoiding a thread handoff.
+   * Such handlers must not block. A handler that needs to do blocking work can still return an
+   * {@link EventTask} that {@link EventTask#requiresAsync() requires async}, and the remaining
+   * handlers will then be called asynchronously.</p>
    *
    * <p>If this method returns {@code true}, the method is guaranteed to be executed
    * asynchronously. Otherwise, the handler may be executed on the current thread or
@@ -13,11 +13,16 @@ import com.velocitypowered.api.proxy.server.ServerPing;
 
 /**
  * This event is fired when a server list ping request is sent by a remote client.
+ *
+ * <p>If the proxy is configured to cache status responses, this event is not fired for pings
+ * that are answered from the cache. Handlers whose response depends on the pinging connection
+ * should call {@link #setCacheable(boolean)} to keep their response out of the cache.</p>
  */
 public final class ProxyPingEvent {
 
   private final InboundConnection connection;
   private ServerPing ping;
+  private boolean cacheable = true;
 
   public ProxyPingEvent(InboundConnection connection, ServerPing ping) {
     this.connection = Preconditions.checkNotNull(connection, "connection");
@@ -36,11 +41,32 @@ public final class ProxyPingEvent {
     this.ping = Preconditions.checkNotNull(ping, "ping");
   }
 
+  /**
+   * Returns whether the response to this ping may be cached and sent to other clients pinging
+   * with the same protocol version and virtual host.
+   *
+   * @return whether the response may be cached
+   */
+  public boolean isCacheable() {
+    return cacheable;
+  }
+
+  /**
+   * Sets whether the response to this ping may be cached and sent to other clients pinging with
+   * the same protocol version and virtual host. Responses are cacheable by default.
+   *
+   * @param cacheable whether the response may be cached
+   */
+  public void setCacheable(boolean cacheable) {
+    this.cacheable = cacheable;
+  }
+
   @Override
   public String toString() {
     return "ProxyPingEvent{"
         + "connection=" + connection
         + ", ping=" + ping
+        + ", cacheable=" + cacheable
         + '}';
   }
 }
@@ -12,7 +12,8 @@ package com.velocitypowered.api.network;
  */
 public enum ListenerType {
   MINECRAFT("Minecraft"),
-  QUERY("Query");
+  QUERY("Query"),
+  METRICS("Metrics");
 
   final String name;
 
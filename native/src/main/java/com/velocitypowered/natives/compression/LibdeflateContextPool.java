@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.natives.compression;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pools native libdeflate contexts per thread. Contexts are leased for the duration of a single
+ * compression operation and returned to the pool of the thread that leased them, so the number of
+ * native contexts scales with the number of threads doing compression (in practice, the event
+ * loops) rather than with the number of connections.
+ *
+ * <p>Contexts are freed when their owning {@link FastThreadLocalThread} terminates. Other threads
+ * never clean up their thread-locals, so contexts leased on them are allocated and freed for
+ * every operation instead of being pooled.</p>
+ */
+public final class LibdeflateContextPool {
+
+  /**
+   * The maximum number of idle contexts of each kind a single thread will hold on to. Leases
+   * are normally not nested, so one context per kind is usually all that is ever used.
+   */
+  private static final int MAX_IDLE_PER_THREAD = 4;
+  private static final int MAX_LEVEL = 12;
+
+  private static final AtomicInteger allocatedContexts = new AtomicInteger();
+  private static final AtomicInteger leasedContexts = new AtomicInteger();
+  private static final LongAdder totalLeases = new LongAdder();
+
+  private static final FastThreadLocal<ThreadContexts> CONTEXTS =
+      new FastThreadLocal<ThreadContexts>() {
+        @Override
+        protected ThreadContexts initialValue() {
+          return new ThreadContexts();
+        }
+
+        @Override
+        protected void onRemoval(ThreadContexts value) {
+          value.freeAll();
+        }
+      };
+
+  private LibdeflateContextPool() {
+    throw new AssertionError();
+  }
+
+  static long leaseInflate() {
+    long ctx = isPooling() ? CONTEXTS.get().inflate.pop() : 0;
+    if (ctx == 0) {
+      ctx = NativeZlibInflate.init();
+      allocatedContexts.incrementAndGet();
+    }
+    leased();
+    return ctx;
+  }
+
+  static void releaseInflate(long ctx) {
+    leasedContexts.decrementAndGet();
+    if (!isPooling() || !CONTEXTS.get().inflate.push(ctx)) {
+      NativeZlibInflate.free(ctx);
+      allocatedContexts.decrementAndGet();
+    }
+  }
+
+  static long leaseDeflate(int level) {
+    long ctx = isPooling() ? CONTEXTS.get().deflate[level].pop() : 0;
+    if (ctx == 0) {
+      ctx = NativeZlibDeflate.init(level);
+      allocatedContexts.incrementAndGet();
+    }
+    leased();
+    return ctx;
+  }
+
+  static void releaseDeflate(int level, long ctx) {
+    leasedContexts.decrementAndGet();
+    if (!isPooling() || !CONTEXTS.get().deflate[level].push(ctx)) {
+      NativeZlibDeflate.free(ctx);
+      allocatedContexts.decrementAndGet();
+    }
+  }
+
+  private static boolean isPooling() {
+    return FastThreadLocalThread.willCleanupFastThreadLocals(Thread.currentThread());
+  }
+
+  private static void leased() {
+    leasedContexts.incrementAndGet();
+    totalLeases.increment();
+  }
+
+  /**
+   * Returns the number of native contexts currently allocated, both idle and leased.
+   *
+   * @return the number of allocated contexts
+   */
+  public static int getAllocatedContexts() {
+    return allocatedContexts.get();
+  }
+
+  /**
+   * Returns the number of native contexts currently leased for an operation.
+   *
+   * @return the number of leased contexts
+   */
+  public static int getLeasedContexts() {
+    return leasedContexts.get();
+  }
+
+  /**
+   * Returns the total number of leases made since startup. Sampling this periodically gives the
+   * lease rate.
+   *
+   * @return the total number of leases
+   */
+  public static long getTotalLeases() {
+    return totalLeases.sum();
+  }
+
+  private static final class ThreadContexts {
+
+    private final ContextStack inflate = new ContextStack();
+    private final ContextStack[] deflate = new ContextStack[MAX_LEVEL + 1];
+
+    ThreadContexts() {
+      for (int i = 0; i < deflate.length; i++) {
+        deflate[i] = new ContextStack();
+      }
+    }
+
+    void freeAll() {
+      long ctx;
+      while ((ctx = inflate.pop()) != 0) {
+        NativeZlibInflate.free(ctx);
+        allocatedContexts.decrementAndGet();
+      }
+      for (ContextStack stack : deflate) {
+        while ((ctx = stack.pop()) != 0) {
+          NativeZlibDeflate.free(ctx);
+          allocatedContexts.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  private static final class ContextStack {
+
+    private final long[] contexts = new long[MAX_IDLE_PER_THREAD];
+    private int size;
+
+    long pop() {
+      return size == 0 ? 0 : contexts[--size];
+    }
+
+    boolean push(long ctx) {
+      if (size == contexts.length) {
+        return false;
+      }
+      contexts[size++] = ctx;
+      return true;
+    }
+  }
+}
@@ -26,8 +26,7 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
 
   public static final VelocityCompressorFactory FACTORY = LibdeflateVelocityCompressor::new;
 
-  private final long inflateCtx;
-  private final long deflateCtx;
+  private final int level;
   private boolean disposed = false;
 
   private LibdeflateVelocityCompressor(int level) {
@@ -36,8 +35,9 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
       throw new IllegalArgumentException("Invalid compression level " + level);
     }
 
-    this.inflateCtx = NativeZlibInflate.init();
-    this.deflateCtx = NativeZlibDeflate.init(correctedLevel);
+    // Native contexts are leased from LibdeflateContextPool for each operation, so creating a
+    // compressor does not allocate any native memory.
+    this.level = correctedLevel;
   }
 
   @Override
@@ -53,8 +53,13 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
     long sourceAddress = source.memoryAddress() + source.readerIndex();
     long destinationAddress = destination.memoryAddress() + destination.writerIndex();
 
-    NativeZlibInflate.process(inflateCtx, sourceAddress, source.readableBytes(), destinationAddress,
-        uncompressedSize);
+    long inflateCtx = LibdeflateContextPool.leaseInflate();
+    try {
+      NativeZlibInflate.process(inflateCtx, sourceAddress, source.readableBytes(),
+          destinationAddress, uncompressedSize);
+    } finally {
+      LibdeflateContextPool.releaseInflate(inflateCtx);
+    }
     destination.writerIndex(destination.writerIndex() + uncompressedSize);
   }
 
@@ -62,19 +67,24 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
   public void deflate(ByteBuf source, ByteBuf destination) throws DataFormatException {
     ensureNotDisposed();
 
-    while (true) {
-      long sourceAddress = source.memoryAddress() + source.readerIndex();
-      long destinationAddress = destination.memoryAddress() + destination.writerIndex();
-
-      int produced = NativeZlibDeflate.process(deflateCtx, sourceAddress, source.readableBytes(),
-          destinationAddress, destination.writableBytes());
-      if (produced > 0) {
-        destination.writerIndex(destination.writerIndex() + produced);
-        return;
+    long deflateCtx = LibdeflateContextPool.leaseDeflate(level);
+    try {
+      while (true) {
+        long sourceAddress = source.memoryAddress() + source.readerIndex();
+        long destinationAddress = destination.memoryAddress() + destination.writerIndex();
+
+        int produced = NativeZlibDeflate.process(deflateCtx, sourceAddress,
+            source.readableBytes(), destinationAddress, destination.writableBytes());
+        if (produced > 0) {
+          destination.writerIndex(destination.writerIndex() + produced);
+          return;
+        }
+
+        // Insufficient room - enlarge the buffer.
+        destination.capacity(destination.capacity() * 2);
       }
-
-      // Insufficient room - enlarge the buffer.
-      destination.capacity(destination.capacity() * 2);
+    } finally {
+      LibdeflateContextPool.releaseDeflate(level, deflateCtx);
     }
   }
 
@@ -84,10 +94,6 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
 
   @Override
   public void close() {
-    if (!disposed) {
-      NativeZlibInflate.free(inflateCtx);
-      NativeZlibDeflate.free(deflateCtx);
-    }
     disposed = true;
   }
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.natives.compression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.condition.OS.LINUX;
+
+import com.velocitypowered.natives.util.BufferPreference;
+import com.velocitypowered.natives.util.Natives;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+
+@EnabledOnOs({LINUX})
+class LibdeflateContextPoolTest {
+
+  private static final byte[] TEST_DATA = new byte[1 << 12];
+
+  @BeforeAll
+  static void checkNatives() {
+    Natives.compress.getLoadedVariant();
+    new Random(1).nextBytes(TEST_DATA);
+  }
+
+  private static void roundTrip() throws DataFormatException {
+    VelocityCompressor compressor = Natives.compress.get().create(Deflater.DEFAULT_COMPRESSION);
+    if (compressor.preferredBufferType() != BufferPreference.DIRECT_REQUIRED) {
+      compressor.close();
+      fail("Loaded regular compressor");
+    }
+
+    ByteBuf source = Unpooled.directBuffer(TEST_DATA.length);
+    ByteBuf compressed = Unpooled.directBuffer(TEST_DATA.length + 32);
+    ByteBuf decompressed = Unpooled.directBuffer(TEST_DATA.length);
+    try {
+      source.writeBytes(TEST_DATA);
+      compressor.deflate(source, compressed);
+      compressor.inflate(compressed, decompressed, TEST_DATA.length);
+      source.readerIndex(0);
+      assertTrue(ByteBufUtil.equals(source, decompressed));
+    } finally {
+      source.release();
+      compressed.release();
+      decompressed.release();
+      compressor.close();
+    }
+  }
+
+  @Test
+  void plainThreadsDoNotPoolContexts() throws DataFormatException {
+    int allocated = LibdeflateContextPool.getAllocatedContexts();
+    long leases = LibdeflateContextPool.getTotalLeases();
+
+    roundTrip();
+    roundTrip();
+
+    assertEquals(allocated, LibdeflateContextPool.getAllocatedContexts(),
+        "Contexts leased on a plain thread were kept");
+    assertEquals(0, LibdeflateContextPool.getLeasedContexts());
+    assertEquals(leases + 4, LibdeflateContextPool.getTotalLeases());
+  }
+
+  @Test
+  void fastThreadLocalThreadsPoolContextsUntilTheyExit() throws Exception {
+    int allocated = LibdeflateContextPool.getAllocatedContexts();
+    AtomicInteger pooled = new AtomicInteger();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Thread thread = new FastThreadLocalThread(() -> {
+      try {
+        roundTrip();
+        int afterFirst = LibdeflateContextPool.getAllocatedContexts();
+        roundTrip();
+        assertEquals(afterFirst, LibdeflateContextPool.getAllocatedContexts(),
+            "Pooled contexts were not reused");
+        pooled.set(afterFirst - allocated);
+      } catch (Throwable e) {
+        failure.set(e);
+      }
+    });
+    thread.start();
+    thread.join();
+
+    if (failure.get() != null) {
+      fail(failure.get());
+    }
+    // One inflate and one deflate context are kept while the thread is alive...
+    assertEquals(2, pooled.get());
+    // ...and freed once it terminates.
+    assertEquals(allocated, LibdeflateContextPool.getAllocatedContexts());
+    assertEquals(0, LibdeflateContextPool.getLeasedContexts());
+  }
+}
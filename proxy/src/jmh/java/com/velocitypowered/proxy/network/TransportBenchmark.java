@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the available transports over loopback. Each invocation writes a
+ * batch of payloads to an echo server and waits until all of them have come back, so the score
+ * covers the full round trip through both the client and the server side of a connection.
+ * Setup fails for transports that are not available on the machine running the benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportBenchmark {
+
+  private static final int BATCH = 64;
+
+  @Param({"NIO", "epoll", "io_uring"})
+  public String transport;
+
+  @Param({"64", "1024"})
+  public int payloadSize;
+
+  private EventLoopGroup serverGroup;
+  private EventLoopGroup clientGroup;
+  private Channel server;
+  private Channel client;
+  private ByteBuf payload;
+  private EchoCounter counter;
+
+  /**
+   * Starts an echo server on loopback and connects a client to it using the transport under
+   * test.
+   */
+  @Setup
+  public void setup() throws Exception {
+    TransportType type = null;
+    for (TransportType candidate : TransportType.values()) {
+      if (candidate.name.equals(transport)) {
+        type = candidate;
+      }
+    }
+    if (type == null || !type.isAvailable()) {
+      throw new IllegalStateException("Transport " + transport + " is not available");
+    }
+
+    serverGroup = type.createEventLoopGroup(TransportType.Type.BOSS);
+    clientGroup = type.createEventLoopGroup(TransportType.Type.WORKER);
+    server = new ServerBootstrap()
+        .channelFactory(type.serverSocketChannelFactory)
+        .group(serverGroup)
+        .childOption(ChannelOption.TCP_NODELAY, true)
+        .childHandler(new ChannelInitializer<Channel>() {
+          @Override
+          protected void initChannel(Channel ch) {
+            ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+              @Override
+              public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ctx.write(msg);
+              }
+
+              @Override
+              public void channelReadComplete(ChannelHandlerContext ctx) {
+                ctx.flush();
+              }
+            });
+          }
+        })
+        .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+        .sync()
+        .channel();
+
+    counter = new EchoCounter();
+    client = new Bootstrap()
+        .channelFactory(type.socketChannelFactory)
+        .group(clientGroup)
+        .option(ChannelOption.TCP_NODELAY, true)
+        .handler(counter)
+        .connect(server.localAddress())
+        .sync()
+        .channel();
+
+    payload = Unpooled.unreleasableBuffer(Unpooled.directBuffer(payloadSize)
+        .writeZero(payloadSize));
+  }
+
+  /**
+   * Closes the connection and shuts down both event loop groups.
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    client.close().sync();
+    server.close().sync();
+    clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+  }
+
+  @Benchmark
+  public Object echo() throws Exception {
+    CompletableFuture<Void> done = counter.expect((long) BATCH * payloadSize);
+    for (int i = 0; i < BATCH - 1; i++) {
+      client.write(payload.duplicate(), client.voidPromise());
+    }
+    client.writeAndFlush(payload.duplicate(), client.voidPromise());
+    return done.get(10, TimeUnit.SECONDS);
+  }
+
+  private static final class EchoCounter extends ChannelInboundHandlerAdapter {
+
+    private long remaining;
+    private CompletableFuture<Void> future;
+
+    synchronized CompletableFuture<Void> expect(long bytes) {
+      this.remaining = bytes;
+      this.future = new CompletableFuture<>();
+      return this.future;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      int read = ((ByteBuf) msg).readableBytes();
+      ReferenceCountUtil.release(msg);
+      CompletableFuture<Void> completed = null;
+      synchronized (this) {
+        remaining -= read;
+        if (remaining <= 0 && future != null) {
+          completed = future;
+          future = null;
+        }
+      }
+      if (completed != null) {
+        completed.complete(null);
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol;
+
+import java.util.Random;
+
+/**
+ * Generates packet sizes and payloads resembling the traffic of a busy {@code PLAY} connection:
+ * mostly small entity and movement updates, some medium sized packets such as chat and
+ * inventory contents, and the occasional large chunk.
+ */
+public final class BenchmarkPackets {
+
+  private BenchmarkPackets() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Returns {@code count} packet sizes following the distribution of a typical connection.
+   *
+   * @param random the source of randomness
+   * @param count the number of sizes to generate
+   * @return the generated sizes
+   */
+  public static int[] sizes(Random random, int count) {
+    int[] sizes = new int[count];
+    for (int i = 0; i < count; i++) {
+      int bucket = random.nextInt(100);
+      if (bucket < 75) {
+        sizes[i] = 8 + random.nextInt(56); // movement, entity metadata, keep-alives
+      } else if (bucket < 97) {
+        sizes[i] = 64 + random.nextInt(960); // chat, inventories, player list updates
+      } else {
+        sizes[i] = 8192 + random.nextInt(24576); // chunks and other bulk data
+      }
+    }
+    return sizes;
+  }
+
+  /**
+   * Returns a payload of the given size. The payload is built from a small alphabet with
+   * repeated runs, so that it compresses roughly as well as real packet data does.
+   *
+   * @param random the source of randomness
+   * @param size the size of the payload
+   * @return the payload
+   */
+  public static byte[] payload(Random random, int size) {
+    byte[] payload = new byte[size];
+    int i = 0;
+    while (i < size) {
+      byte value = (byte) random.nextInt(32);
+      int run = Math.min(size - i, 1 + random.nextInt(8));
+      for (int j = 0; j < run; j++) {
+        payload[i++] = value;
+      }
+    }
+    return payload;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and writing VarInts. Most VarInts written by the proxy are packet IDs and
+ * lengths, so the values are dominated by one and two byte encodings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolUtilsBenchmark {
+
+  private static final int VALUES = 1024;
+
+  private int[] values;
+  private ByteBuf encoded;
+  private ByteBuf scratch;
+
+  /**
+   * Generates the values and their encoded form.
+   */
+  @Setup
+  public void setup() {
+    Random random = new Random(1);
+    int[] sizes = BenchmarkPackets.sizes(random, VALUES);
+    values = new int[VALUES];
+    for (int i = 0; i < VALUES; i++) {
+      // Alternate between packet IDs and packet lengths, with the odd large value.
+      values[i] = i % 2 == 0 ? random.nextInt(0x60) : sizes[i];
+      if (i % 64 == 0) {
+        values[i] = random.nextInt(Integer.MAX_VALUE);
+      }
+    }
+
+    encoded = Unpooled.directBuffer(VALUES * 5);
+    for (int value : values) {
+      ProtocolUtils.writeVarInt(encoded, value);
+    }
+    scratch = Unpooled.directBuffer(VALUES * 5);
+  }
+
+  @TearDown
+  public void tearDown() {
+    encoded.release();
+    scratch.release();
+  }
+
+  @Benchmark
+  public int readVarInt() {
+    ByteBuf buf = encoded;
+    buf.readerIndex(0);
+    int sum = 0;
+    for (int i = 0; i < VALUES; i++) {
+      sum += ProtocolUtils.readVarInt(buf);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int writeVarInt() {
+    ByteBuf buf = scratch;
+    buf.clear();
+    for (int value : values) {
+      ProtocolUtils.writeVarInt(buf, value);
+    }
+    return buf.writerIndex();
+  }
+}
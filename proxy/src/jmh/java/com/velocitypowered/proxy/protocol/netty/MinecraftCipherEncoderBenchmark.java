@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.natives.encryption.VelocityCipher;
+import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.natives.util.Natives;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares encrypting each frame as it is written against gathering the frames of a flush and
+ * encrypting them with a single cipher call, as {@link MinecraftCipherEncoder} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinecraftCipherEncoderBenchmark {
+
+  @Param({"24", "128", "1024"})
+  public int frameSize;
+
+  @Param({"1", "8", "64"})
+  public int framesPerFlush;
+
+  private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+  private VelocityCipher cipher;
+  private ByteBuf[] frames;
+
+  /**
+   * Sets up the cipher and the frames to encrypt.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    cipher = Natives.cipher.get().forEncryption(new SecretKeySpec(new byte[16], "AES"));
+
+    Random random = new Random(1);
+    byte[] data = new byte[frameSize];
+    frames = new ByteBuf[framesPerFlush];
+    for (int i = 0; i < framesPerFlush; i++) {
+      random.nextBytes(data);
+      frames[i] = MoreByteBufUtils.preferredBuffer(alloc, cipher, frameSize);
+      frames[i].writeBytes(data);
+    }
+  }
+
+  /**
+   * Releases the cipher and the frames.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (ByteBuf frame : frames) {
+      frame.release();
+    }
+    cipher.close();
+  }
+
+  @Benchmark
+  public long perFrame() {
+    long total = 0;
+    for (ByteBuf frame : frames) {
+      cipher.process(frame);
+      total += frame.readableBytes();
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long perFlush() {
+    ByteBuf batch = MoreByteBufUtils.preferredBuffer(alloc, cipher, frameSize * framesPerFlush);
+    try {
+      for (ByteBuf frame : frames) {
+        batch.writeBytes(frame, frame.readerIndex(), frame.readableBytes());
+      }
+      cipher.process(batch);
+      return batch.readableBytes();
+    } finally {
+      batch.release();
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.proxy.protocol.BenchmarkPackets;
+import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.packet.BossBar;
+import com.velocitypowered.proxy.protocol.packet.Chat;
+import com.velocitypowered.proxy.protocol.packet.KeepAlive;
+import com.velocitypowered.proxy.protocol.packet.PluginMessage;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding clientbound {@code PLAY} packets. Most packets sent by a server are not
+ * handled by the proxy and are passed through undecoded, so the frames are a mix of packets the
+ * proxy decodes and packets with IDs it does not know about.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinecraftDecoderBenchmark {
+
+  private static final int FRAMES = 256;
+  private static final ProtocolVersion VERSION = ProtocolVersion.MAXIMUM_VERSION;
+
+  private StateRegistry.PacketRegistry.ProtocolRegistry registry;
+  private ByteBuf[] frames;
+  private int[] packetIds;
+  private EmbeddedChannel channel;
+
+  /**
+   * Encodes the frames to decode.
+   */
+  @Setup
+  public void setup() {
+    registry = ProtocolUtils.Direction.CLIENTBOUND.getProtocolRegistry(StateRegistry.PLAY,
+        VERSION);
+    List<Integer> unknownIds = new ArrayList<>();
+    for (int id = 0; id < 0x80; id++) {
+      if (!registry.containsPacket(id)) {
+        unknownIds.add(id);
+      }
+    }
+
+    Random random = new Random(1);
+    int[] sizes = BenchmarkPackets.sizes(random, FRAMES);
+    frames = new ByteBuf[FRAMES];
+    packetIds = new int[FRAMES];
+    for (int i = 0; i < FRAMES; i++) {
+      ByteBuf frame = Unpooled.directBuffer();
+      if (random.nextInt(10) < 3) {
+        MinecraftPacket packet = createKnownPacket(random, sizes[i]);
+        packetIds[i] = registry.getPacketId(packet);
+        ProtocolUtils.writeVarInt(frame, packetIds[i]);
+        packet.encode(frame, ProtocolUtils.Direction.CLIENTBOUND, VERSION);
+        ReferenceCountUtil.release(packet);
+      } else {
+        packetIds[i] = unknownIds.get(random.nextInt(unknownIds.size()));
+        ProtocolUtils.writeVarInt(frame, packetIds[i]);
+        frame.writeBytes(BenchmarkPackets.payload(random, sizes[i]));
+      }
+      frames[i] = frame;
+    }
+
+    MinecraftDecoder decoder = new MinecraftDecoder(ProtocolUtils.Direction.CLIENTBOUND);
+    decoder.setState(StateRegistry.PLAY);
+    decoder.setProtocolVersion(VERSION);
+    channel = new EmbeddedChannel(decoder);
+  }
+
+  private static MinecraftPacket createKnownPacket(Random random, int size) {
+    switch (random.nextInt(4)) {
+      case 0:
+        KeepAlive keepAlive = new KeepAlive();
+        keepAlive.setRandomId(random.nextLong());
+        return keepAlive;
+      case 1:
+        BossBar bossBar = new BossBar();
+        bossBar.setUuid(UUID.randomUUID());
+        bossBar.setAction(BossBar.UPDATE_PERCENT);
+        bossBar.setPercent(random.nextFloat());
+        return bossBar;
+      case 2:
+        StringBuilder message = new StringBuilder("{\"text\":\"");
+        while (message.length() < Math.min(size, 1024)) {
+          message.append((char) ('a' + random.nextInt(26)));
+        }
+        message.append("\"}");
+        return new Chat(message.toString(), Chat.CHAT_TYPE, UUID.randomUUID());
+      default:
+        return new PluginMessage("minecraft:brand",
+            Unpooled.wrappedBuffer(BenchmarkPackets.payload(random, Math.min(size, 1024))));
+    }
+  }
+
+  /**
+   * Releases the frames and the channel.
+   */
+  @TearDown
+  public void tearDown() {
+    channel.finishAndReleaseAll();
+    for (ByteBuf frame : frames) {
+      frame.release();
+    }
+  }
+
+  @Benchmark
+  public int decode() {
+    for (ByteBuf frame : frames) {
+      channel.writeInbound(frame.retainedDuplicate());
+    }
+
+    int packets = 0;
+    Object msg;
+    while ((msg = channel.readInbound()) != null) {
+      ReferenceCountUtil.release(msg);
+      packets++;
+    }
+    return packets;
+  }
+
+  @Benchmark
+  public int createPacket() {
+    int created = 0;
+    for (int packetId : packetIds) {
+      MinecraftPacket packet = registry.createPacket(packetId);
+      if (packet != null) {
+        created++;
+      }
+    }
+    return created;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.proxy.protocol.BenchmarkPackets;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures splitting a stream of bytes into frames. The stream is fed to the decoder in reads of
+ * {@code readSize} bytes, so frames regularly straddle two reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinecraftVarintFrameDecoderBenchmark {
+
+  private static final int FRAMES = 256;
+
+  @Param({"1460", "65536"})
+  public int readSize;
+
+  private ByteBuf stream;
+  private EmbeddedChannel channel;
+
+  /**
+   * Builds the stream of frames and the channel decoding it.
+   */
+  @Setup
+  public void setup() {
+    Random random = new Random(1);
+    stream = Unpooled.directBuffer();
+    for (int size : BenchmarkPackets.sizes(random, FRAMES)) {
+      ProtocolUtils.writeVarInt(stream, size);
+      stream.writeBytes(BenchmarkPackets.payload(random, size));
+    }
+    channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+  }
+
+  @TearDown
+  public void tearDown() {
+    channel.finishAndReleaseAll();
+    stream.release();
+  }
+
+  @Benchmark
+  public int decode() {
+    for (int i = 0; i < stream.writerIndex(); i += readSize) {
+      int length = Math.min(readSize, stream.writerIndex() - i);
+      channel.writeInbound(stream.retainedSlice(i, length));
+    }
+
+    int frames = 0;
+    ByteBuf frame;
+    while ((frame = channel.readInbound()) != null) {
+      frame.release();
+      frames++;
+    }
+    return frames;
+  }
+}
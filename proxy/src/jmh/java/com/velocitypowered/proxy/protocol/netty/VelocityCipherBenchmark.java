@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.natives.encryption.JavaVelocityCipher;
+import com.velocitypowered.natives.encryption.VelocityCipher;
+import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.natives.util.Natives;
+import com.velocitypowered.proxy.protocol.BenchmarkPackets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encrypting packets with each {@link VelocityCipher} implementation. The native
+ * implementation is only available on the platforms Velocity ships natives for.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityCipherBenchmark {
+
+  private static final int PACKETS = 256;
+
+  @Param({"java", "native"})
+  public String implementation;
+
+  private VelocityCipher cipher;
+  private ByteBuf[] packets;
+
+  /**
+   * Creates the cipher and the packets to encrypt.
+   */
+  @Setup
+  public void setup() throws Exception {
+    SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+    if (implementation.equals("java")) {
+      cipher = JavaVelocityCipher.FACTORY.forEncryption(key);
+    } else {
+      if (Natives.cipher.getLoadedVariant().equals("Java")) {
+        throw new IllegalStateException("Native encryption is not available on this platform");
+      }
+      cipher = Natives.cipher.get().forEncryption(key);
+    }
+
+    Random random = new Random(1);
+    packets = new ByteBuf[PACKETS];
+    int[] sizes = BenchmarkPackets.sizes(random, PACKETS);
+    for (int i = 0; i < PACKETS; i++) {
+      packets[i] = MoreByteBufUtils.preferredBuffer(PooledByteBufAllocator.DEFAULT, cipher,
+          sizes[i]);
+      packets[i].writeBytes(BenchmarkPackets.payload(random, sizes[i]));
+    }
+  }
+
+  /**
+   * Releases the cipher and the packets.
+   */
+  @TearDown
+  public void tearDown() {
+    for (ByteBuf packet : packets) {
+      packet.release();
+    }
+    cipher.close();
+  }
+
+  @Benchmark
+  public int encrypt() {
+    int total = 0;
+    for (ByteBuf packet : packets) {
+      cipher.process(packet);
+      total += packet.readableBytes();
+    }
+    return total;
+  }
+}
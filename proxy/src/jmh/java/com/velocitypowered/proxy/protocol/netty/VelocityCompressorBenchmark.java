@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.natives.util.Natives;
+import com.velocitypowered.proxy.protocol.BenchmarkPackets;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures compressing and decompressing packets above the default compression threshold with
+ * each {@link VelocityCompressor} implementation. The native implementation is only available on
+ * the platforms Velocity ships natives for.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VelocityCompressorBenchmark {
+
+  private static final int PACKETS = 64;
+  private static final int THRESHOLD = 256;
+
+  @Param({"java", "native"})
+  public String implementation;
+
+  private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+  private VelocityCompressor compressor;
+  private ByteBuf[] uncompressed;
+  private ByteBuf[] compressed;
+
+  /**
+   * Creates the compressor and the packets to compress.
+   */
+  @Setup
+  public void setup() throws DataFormatException {
+    if (implementation.equals("java")) {
+      compressor = JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION);
+    } else {
+      if (Natives.compress.getLoadedVariant().equals("Java")) {
+        throw new IllegalStateException("Native compression is not available on this platform");
+      }
+      compressor = Natives.compress.get().create(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    Random random = new Random(1);
+    uncompressed = new ByteBuf[PACKETS];
+    compressed = new ByteBuf[PACKETS];
+    int generated = 0;
+    while (generated < PACKETS) {
+      int size = BenchmarkPackets.sizes(random, 1)[0];
+      if (size < THRESHOLD) {
+        continue;
+      }
+      ByteBuf packet = MoreByteBufUtils.preferredBuffer(alloc, compressor, size);
+      packet.writeBytes(BenchmarkPackets.payload(random, size));
+      ByteBuf deflated = MoreByteBufUtils.preferredBuffer(alloc, compressor, size);
+      compressor.deflate(packet.duplicate(), deflated);
+      uncompressed[generated] = packet;
+      compressed[generated] = deflated;
+      generated++;
+    }
+  }
+
+  /**
+   * Releases the compressor and the packets.
+   */
+  @TearDown
+  public void tearDown() {
+    for (int i = 0; i < PACKETS; i++) {
+      uncompressed[i].release();
+      compressed[i].release();
+    }
+    compressor.close();
+  }
+
+  @Benchmark
+  public int deflate() throws DataFormatException {
+    int total = 0;
+    for (ByteBuf packet : uncompressed) {
+      ByteBuf destination = MoreByteBufUtils.preferredBuffer(alloc, compressor,
+          packet.readableBytes());
+      try {
+        compressor.deflate(packet.duplicate(), destination);
+        total += destination.readableBytes();
+      } finally {
+        destination.release();
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int inflate() throws DataFormatException {
+    int total = 0;
+    for (int i = 0; i < PACKETS; i++) {
+      int size = uncompressed[i].readableBytes();
+      ByteBuf destination = MoreByteBufUtils.preferredBuffer(alloc, compressor, size);
+      try {
+        compressor.inflate(compressed[i].duplicate(), destination, size);
+        total += destination.readableBytes();
+      } finally {
+        destination.release();
+      }
+    }
+    return total;
+  }
+}
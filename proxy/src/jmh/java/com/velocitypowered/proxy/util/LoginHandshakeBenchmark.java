@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util;
+
+import java.security.KeyPair;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cryptographic work the proxy does for every online-mode login: decrypting the
+ * verify token and the shared secret with the server's private key, and deriving the server ID.
+ * {@link #handshake()} gives the number of logins a single core can handle per second, while
+ * {@link #handshakeAllCores()} shows how that scales across every core of the machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginHandshakeBenchmark {
+
+  private KeyPair keyPair;
+  private byte[] encryptedVerifyToken;
+  private byte[] encryptedSharedSecret;
+
+  /**
+   * Creates the server key pair and encrypts a verify token and shared secret the way a client
+   * would.
+   */
+  @Setup
+  public void setup() throws Exception {
+    keyPair = EncryptionUtils.createRsaKeyPair(1024);
+    Random random = new Random(1);
+    byte[] verifyToken = new byte[4];
+    byte[] sharedSecret = new byte[16];
+    random.nextBytes(verifyToken);
+    random.nextBytes(sharedSecret);
+
+    Cipher cipher = Cipher.getInstance("RSA");
+    cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+    encryptedVerifyToken = cipher.doFinal(verifyToken);
+    encryptedSharedSecret = cipher.doFinal(sharedSecret);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String handshake() throws Exception {
+    return decrypt();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public String handshakeAllCores() throws Exception {
+    return decrypt();
+  }
+
+  private String decrypt() throws Exception {
+    EncryptionUtils.decryptRsa(keyPair, encryptedVerifyToken);
+    byte[] sharedSecret = EncryptionUtils.decryptRsa(keyPair, encryptedSharedSecret);
+    return EncryptionUtils.generateServerId(sharedSecret, keyPair.getPublic());
+  }
+}
@@ -44,22 +44,28 @@ import com.velocitypowered.proxy.command.builtin.ShutdownCommand;
 import com.velocitypowered.proxy.command.builtin.VelocityCommand;
 import com.velocitypowered.proxy.config.VelocityConfiguration;
 import com.velocitypowered.proxy.connection.client.ConnectedPlayer;
+import com.velocitypowered.proxy.connection.client.SessionVerifier;
+import com.velocitypowered.proxy.connection.client.StatusResponseCache;
 import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
 import com.velocitypowered.proxy.console.VelocityConsole;
 import com.velocitypowered.proxy.event.VelocityEventManager;
+import com.velocitypowered.proxy.network.AdmissionController;
 import com.velocitypowered.proxy.network.ConnectionManager;
 import com.velocitypowered.proxy.plugin.VelocityPluginManager;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import com.velocitypowered.proxy.protocol.util.FaviconSerializer;
 import com.velocitypowered.proxy.protocol.util.GameProfileSerializer;
 import com.velocitypowered.proxy.scheduler.VelocityScheduler;
+import com.velocitypowered.proxy.server.PingPassthroughPoller;
 import com.velocitypowered.proxy.server.ServerMap;
+import com.velocitypowered.proxy.telemetry.OpenMetricsExporter;
 import com.velocitypowered.proxy.util.AddressUtil;
 import com.velocitypowered.proxy.util.ClosestLocaleMatcher;
 import com.velocitypowered.proxy.util.EncryptionUtils;
 import com.velocitypowered.proxy.util.FileSystemUtils;
 import com.velocitypowered.proxy.util.VelocityChannelRegistrar;
 import com.velocitypowered.proxy.util.bossbar.AdventureBossBarManager;
+import com.velocitypowered.proxy.util.concurrent.CryptoExecutor;
 import com.velocitypowered.proxy.util.ratelimit.Ratelimiter;
 import com.velocitypowered.proxy.util.ratelimit.Ratelimiters;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -127,7 +133,7 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
       .registerTypeHierarchyAdapter(Favicon.class, FaviconSerializer.INSTANCE)
       .create();
 
-  private final ConnectionManager cm;
+  private @MonotonicNonNull ConnectionManager cm;
   private final ProxyOptions options;
   private @MonotonicNonNull VelocityConfiguration configuration;
   private @MonotonicNonNull KeyPair serverKeyPair;
@@ -142,6 +148,13 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
   private final Map<String, ConnectedPlayer> connectionsByName = new ConcurrentHashMap<>();
   private final VelocityConsole console;
   private @MonotonicNonNull Ratelimiter ipAttemptLimiter;
+  private @MonotonicNonNull Ratelimiter connectionLimiter;
+  private @MonotonicNonNull AdmissionController admissionController;
+  private @MonotonicNonNull StatusResponseCache statusResponseCache;
+  private @MonotonicNonNull PingPassthroughPoller pingPassthroughPoller;
+  private @MonotonicNonNull OpenMetricsExporter openMetricsExporter;
+  private @MonotonicNonNull SessionVerifier sessionVerifier;
+  private @MonotonicNonNull CryptoExecutor cryptoExecutor;
   private final VelocityEventManager eventManager;
   private final VelocityScheduler scheduler;
   private final VelocityChannelRegistrar channelRegistrar = new VelocityChannelRegistrar();
@@ -152,7 +165,6 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
     commandManager = new VelocityCommandManager(eventManager);
     scheduler = new VelocityScheduler(pluginManager);
     console = new VelocityConsole(this);
-    cm = new ConnectionManager(this);
     servers = new ServerMap(this);
     this.options = options;
     this.bossBarManager = new AdventureBossBarManager();
@@ -205,8 +217,6 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
 
     serverKeyPair = EncryptionUtils.createRsaKeyPair(1024);
 
-    cm.logChannelInformation();
-
     // Initialize commands first
     commandManager.register("velocity", new VelocityCommand(this));
     commandManager.register("server", new ServerCommand(this));
@@ -215,11 +225,27 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
 
     this.doStartupConfigLoad();
 
+    // The event loops are laid out according to the configuration.
+    cm = new ConnectionManager(this);
+    cm.logChannelInformation();
+
     for (Map.Entry<String, String> entry : configuration.getServers().entrySet()) {
       servers.register(new ServerInfo(entry.getKey(), AddressUtil.parseAddress(entry.getValue())));
     }
 
     ipAttemptLimiter = Ratelimiters.createWithMilliseconds(configuration.getLoginRatelimit());
+    connectionLimiter = Ratelimiters.createTokenBucket(configuration.getConnectionRatelimit(),
+        configuration.getConnectionRatelimitBurst());
+    statusResponseCache = new StatusResponseCache(configuration.getStatusCacheInterval());
+    pingPassthroughPoller = new PingPassthroughPoller(this);
+    pingPassthroughPoller.rescheduleProbes();
+    openMetricsExporter = new OpenMetricsExporter(this, eventManager);
+    admissionController = new AdmissionController(this);
+    sessionVerifier = new SessionVerifier(this);
+    int cryptoThreads = configuration.getCryptoThreads();
+    cryptoExecutor = new CryptoExecutor(
+        cryptoThreads > 0 ? cryptoThreads : Runtime.getRuntime().availableProcessors(),
+        Math.max(1, configuration.getCryptoQueueSize()));
     loadPlugins();
 
     // Go ahead and fire the proxy initialization event. We block since plugins should have a chance
@@ -232,15 +258,20 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
     final Integer port = this.options.getPort();
     if (port != null) {
       logger.debug("Overriding bind port to {} from command line option", port);
-      this.cm.bind(new InetSocketAddress(configuration.getBind().getHostString(), port));
+      this.cm.bind(new InetSocketAddress(configuration.getBind().getHostString(), port),
+          configuration.getListenerSockets());
     } else {
-      this.cm.bind(configuration.getBind());
+      this.cm.bind(configuration.getBind(), configuration.getListenerSockets());
     }
 
     if (configuration.isQueryEnabled()) {
       this.cm.queryBind(configuration.getBind().getHostString(), configuration.getQueryPort());
     }
 
+    if (!configuration.getOpenMetricsBind().isEmpty()) {
+      this.cm.metricsBind(AddressUtil.parseAddress(configuration.getOpenMetricsBind()));
+    }
+
     Metrics.VelocityMetrics.startMetrics(this, configuration.getMetrics());
   }
 
@@ -348,6 +379,10 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
     return this.cm.createWorker(group);
   }
 
+  public EventLoopGroup getAuxiliaryGroup() {
+    return this.cm.getAuxiliaryGroup();
+  }
+
   public ChannelInitializer<Channel> getBackendChannelInitializer() {
     return this.cm.backendChannelInitializer.get();
   }
@@ -422,7 +457,7 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
 
     // If we have a new bind address, bind to it
     if (!configuration.getBind().equals(newConfiguration.getBind())) {
-      this.cm.bind(newConfiguration.getBind());
+      this.cm.bind(newConfiguration.getBind(), newConfiguration.getListenerSockets());
       this.cm.close(configuration.getBind());
     }
 
@@ -437,9 +472,24 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
           newConfiguration.getQueryPort());
     }
 
+    if (!configuration.getOpenMetricsBind().equals(newConfiguration.getOpenMetricsBind())) {
+      if (!configuration.getOpenMetricsBind().isEmpty()) {
+        this.cm.close(AddressUtil.parseAddress(configuration.getOpenMetricsBind()));
+      }
+      if (!newConfiguration.getOpenMetricsBind().isEmpty()) {
+        this.cm.metricsBind(AddressUtil.parseAddress(newConfiguration.getOpenMetricsBind()));
+      }
+    }
+
     commandManager.setAnnounceProxyCommands(newConfiguration.isAnnounceProxyCommands());
     ipAttemptLimiter = Ratelimiters.createWithMilliseconds(newConfiguration.getLoginRatelimit());
+    connectionLimiter = Ratelimiters.createTokenBucket(newConfiguration.getConnectionRatelimit(),
+        newConfiguration.getConnectionRatelimitBurst());
+    statusResponseCache = new StatusResponseCache(newConfiguration.getStatusCacheInterval());
     this.configuration = newConfiguration;
+    if (pingPassthroughPoller != null) {
+      pingPassthroughPoller.rescheduleProbes();
+    }
     eventManager.fireAndForget(new ProxyReloadEvent());
     return true;
   }
@@ -465,6 +515,12 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
       // Shutdown the connection manager, this should be
       // done first to refuse new connections
       cm.shutdown();
+      if (pingPassthroughPoller != null) {
+        pingPassthroughPoller.shutdown();
+      }
+      if (cryptoExecutor != null) {
+        cryptoExecutor.shutdown();
+      }
 
       ImmutableList<ConnectedPlayer> players = ImmutableList.copyOf(connectionsByUuid.values());
       for (ConnectedPlayer player : players) {
@@ -552,6 +608,34 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
     return ipAttemptLimiter;
   }
 
+  public Ratelimiter getConnectionLimiter() {
+    return connectionLimiter;
+  }
+
+  public AdmissionController getAdmissionController() {
+    return admissionController;
+  }
+
+  public StatusResponseCache getStatusResponseCache() {
+    return statusResponseCache;
+  }
+
+  public PingPassthroughPoller getPingPassthroughPoller() {
+    return pingPassthroughPoller;
+  }
+
+  public OpenMetricsExporter getOpenMetricsExporter() {
+    return openMetricsExporter;
+  }
+
+  public SessionVerifier getSessionVerifier() {
+    return sessionVerifier;
+  }
+
+  public CryptoExecutor getCryptoExecutor() {
+    return cryptoExecutor;
+  }
+
   /**
    * Checks if the {@code connection} can be registered with the proxy.
    * @param connection the connection to check
@@ -28,6 +28,7 @@ import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.command.SimpleCommand;
+import com.velocitypowered.api.event.EventHandlerStatistics;
 import com.velocitypowered.api.permission.Tristate;
 import com.velocitypowered.api.plugin.PluginContainer;
 import com.velocitypowered.api.plugin.PluginDescription;
@@ -42,6 +43,7 @@ import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -91,6 +93,7 @@ public class VelocityCommand implements SimpleCommand {
         .put("plugins", new Plugins(server))
         .put("reload", new Reload(server))
         .put("dump", new Dump(server))
+        .put("events", new Events(server))
         .build();
   }
 
@@ -338,6 +341,83 @@ public class VelocityCommand implements SimpleCommand {
     }
   }
 
+  private static class Events implements SubCommand {
+
+    private static final int MAX_ENTRIES = 10;
+    private final ProxyServer server;
+
+    private Events(ProxyServer server) {
+      this.server = server;
+    }
+
+    @Override
+    public void execute(CommandSource source, String @NonNull [] args) {
+      if (args.length > 1) {
+        source.sendMessage(Identity.nil(), Component.text("/velocity events [plugin|event]",
+            NamedTextColor.RED));
+        return;
+      }
+
+      String filter = args.length == 0 ? null : args[0].toLowerCase(Locale.US);
+      List<EventHandlerStatistics> statistics = server.getEventManager().getHandlerStatistics()
+          .stream()
+          .filter(s -> s.getInvocationCount() > 0)
+          .filter(s -> filter == null || s.getPluginId().equals(filter)
+              || s.getEventType().getSimpleName().toLowerCase(Locale.US).equals(filter))
+          .sorted(Comparator.comparing(EventHandlerStatistics::getTotalExecutionTime).reversed())
+          .limit(MAX_ENTRIES)
+          .collect(Collectors.toList());
+
+      if (statistics.isEmpty()) {
+        source.sendMessage(Component.translatable("velocity.command.no-event-statistics",
+            NamedTextColor.YELLOW));
+        return;
+      }
+
+      source.sendMessage(Component.translatable("velocity.command.event-statistics-header",
+          NamedTextColor.YELLOW));
+      for (EventHandlerStatistics stats : statistics) {
+        TextComponent.Builder line = Component.text()
+            .append(Component.text(stats.getPluginId(), NamedTextColor.GREEN))
+            .append(Component.text(" " + stats.getEventType().getSimpleName() + ": ",
+                NamedTextColor.GRAY))
+            .append(Component.text(stats.getInvocationCount() + " calls, avg "
+                + formatNanos(stats.getTotalExecutionTime().toNanos()
+                / stats.getInvocationCount())
+                + ", p99 " + formatNanos(stats.getExecutionTimePercentile(99).toNanos())));
+        if (stats.getSuspensionCount() > 0) {
+          line.append(Component.text(" (" + stats.getSuspensionCount() + " suspended, avg "
+              + formatNanos(stats.getTotalSuspendedTime().toNanos()
+              / stats.getSuspensionCount())
+              + ", p99 " + formatNanos(stats.getSuspendedTimePercentile(99).toNanos()) + ")",
+              NamedTextColor.GRAY));
+        }
+        source.sendMessage(Identity.nil(), line.build());
+      }
+    }
+
+    private static String formatNanos(long nanos) {
+      return String.format(Locale.ROOT, "%.3fms", nanos / 1e6);
+    }
+
+    @Override
+    public List<String> suggest(CommandSource source, String @NonNull [] currentArgs) {
+      if (currentArgs.length > 1) {
+        return ImmutableList.of();
+      }
+      String prefix = currentArgs.length == 0 ? "" : currentArgs[0];
+      return server.getPluginManager().getPlugins().stream()
+          .map(plugin -> plugin.getDescription().getId())
+          .filter(id -> id.regionMatches(true, 0, prefix, 0, prefix.length()))
+          .collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public boolean hasPermission(final CommandSource source, final String @NonNull [] args) {
+      return source.getPermissionValue("velocity.command.events") == Tristate.TRUE;
+    }
+  }
+
   private static class Dump implements SubCommand {
 
     private static final Logger logger = LogManager.getLogger(Dump.class);
@@ -27,7 +27,9 @@ import com.google.common.collect.ImmutableMap;
 import com.google.gson.annotations.Expose;
 import com.velocitypowered.api.proxy.config.ProxyConfig;
 import com.velocitypowered.api.util.Favicon;
+import com.velocitypowered.proxy.server.ServerSelectionStrategy;
 import com.velocitypowered.proxy.util.AddressUtil;
+import com.velocitypowered.proxy.util.concurrent.CpuAffinity;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.File;
@@ -70,16 +72,18 @@ public class VelocityConfiguration implements ProxyConfig {
   @Expose private PingPassthroughMode pingPassthrough = PingPassthroughMode.DISABLED;
   private final Servers servers;
   private final ForcedHosts forcedHosts;
+  private final ServerSelection serverSelection;
   @Expose private final Advanced advanced;
   @Expose private final Query query;
   private final Metrics metrics;
   private net.kyori.adventure.text.@MonotonicNonNull Component motdAsComponent;
   private @Nullable Favicon favicon;
 
-  private VelocityConfiguration(Servers servers, ForcedHosts forcedHosts, Advanced advanced,
-      Query query, Metrics metrics) {
+  private VelocityConfiguration(Servers servers, ForcedHosts forcedHosts,
+      ServerSelection serverSelection, Advanced advanced, Query query, Metrics metrics) {
     this.servers = servers;
     this.forcedHosts = forcedHosts;
+    this.serverSelection = serverSelection;
     this.advanced = advanced;
     this.query = query;
     this.metrics = metrics;
@@ -89,7 +93,8 @@ public class VelocityConfiguration implements ProxyConfig {
       boolean preventClientProxyConnections, boolean announceForge,
       PlayerInfoForwarding playerInfoForwardingMode, byte[] forwardingSecret,
       boolean onlineModeKickExistingPlayers, PingPassthroughMode pingPassthrough, Servers servers,
-      ForcedHosts forcedHosts, Advanced advanced, Query query, Metrics metrics) {
+      ForcedHosts forcedHosts, ServerSelection serverSelection, Advanced advanced, Query query,
+      Metrics metrics) {
     this.bind = bind;
     this.motd = motd;
     this.showMaxPlayers = showMaxPlayers;
@@ -102,6 +107,7 @@ public class VelocityConfiguration implements ProxyConfig {
     this.pingPassthrough = pingPassthrough;
     this.servers = servers;
     this.forcedHosts = forcedHosts;
+    this.serverSelection = serverSelection;
     this.advanced = advanced;
     this.query = query;
     this.metrics = metrics;
@@ -182,6 +188,31 @@ public class VelocityConfiguration implements ProxyConfig {
       }
     }
 
+    if (ServerSelectionStrategy.fromConfigName(serverSelection.strategy) == null) {
+      logger.error("Unknown server selection strategy '{}'", serverSelection.strategy);
+      valid = false;
+    }
+
+    for (Map.Entry<String, String> entry : serverSelection.forcedHostStrategies.entrySet()) {
+      if (ServerSelectionStrategy.fromConfigName(entry.getValue()) == null) {
+        logger.error("Unknown server selection strategy '{}' for forced host '{}'",
+            entry.getValue(), entry.getKey());
+        valid = false;
+      }
+    }
+
+    for (Map.Entry<String, Integer> entry : serverSelection.weights.entrySet()) {
+      if (!servers.getServers().containsKey(entry.getKey())) {
+        logger.error("Server '{}' has a selection weight but does not exist", entry.getKey());
+        valid = false;
+      }
+      if (entry.getValue() < 1) {
+        logger.error("Invalid selection weight {} for server '{}'", entry.getValue(),
+            entry.getKey());
+        valid = false;
+      }
+    }
+
     try {
       getMotd();
     } catch (Exception e) {
@@ -210,6 +241,80 @@ public class VelocityConfiguration implements ProxyConfig {
       valid = false;
     }
 
+    if (advanced.connectionRatelimit < 0) {
+      logger.error("Invalid connection ratelimit {}ms", advanced.connectionRatelimit);
+      valid = false;
+    }
+
+    if (advanced.connectionRatelimitBurst < 1 || advanced.connectionRatelimitBurst > 255) {
+      logger.error("Invalid connection ratelimit burst {}", advanced.connectionRatelimitBurst);
+      valid = false;
+    }
+
+    if (advanced.maxHandshakesInFlight > 0 && advanced.maxConnectionsPerIp <= 0
+        && !advanced.proxyProtocol) {
+      logger.error("max-handshakes-in-flight requires max-connections-per-ip to be set as well, "
+          + "or a few addresses could use up the whole handshake budget");
+      valid = false;
+    }
+
+    if (advanced.listenerSockets < 1) {
+      logger.error("Invalid listener socket count {}", advanced.listenerSockets);
+      valid = false;
+    }
+
+    if (advanced.workerThreads < 0) {
+      logger.error("Invalid worker thread count {}", advanced.workerThreads);
+      valid = false;
+    }
+
+    try {
+      CpuAffinity.parseCpuList(advanced.workerCpus);
+    } catch (IllegalArgumentException e) {
+      logger.error("Invalid worker CPU list {}: {}", advanced.workerCpus, e.getMessage());
+      valid = false;
+    }
+
+    if (advanced.auxiliaryThreads < 0) {
+      logger.error("Invalid auxiliary thread count {}", advanced.auxiliaryThreads);
+      valid = false;
+    }
+
+    if (advanced.flushMaxLatency < 0) {
+      logger.error("Invalid flush max latency {}", advanced.flushMaxLatency);
+      valid = false;
+    }
+
+    if (advanced.backendFailureThreshold < 0) {
+      logger.error("Invalid backend failure threshold {}", advanced.backendFailureThreshold);
+      valid = false;
+    }
+
+    if (advanced.backendRetryDelay < 0) {
+      logger.error("Invalid backend retry delay {}", advanced.backendRetryDelay);
+      valid = false;
+    }
+
+    if (advanced.backendSlowLoginThreshold < 0) {
+      logger.error("Invalid backend slow login threshold {}",
+          advanced.backendSlowLoginThreshold);
+      valid = false;
+    }
+
+    if (advanced.backendProbeInterval < 0) {
+      logger.error("Invalid backend probe interval {}", advanced.backendProbeInterval);
+      valid = false;
+    }
+
+    if (!advanced.openMetricsBind.isEmpty()) {
+      try {
+        AddressUtil.parseAddress(advanced.openMetricsBind);
+      } catch (IllegalArgumentException e) {
+        logger.error("'openmetrics-bind' option does not specify a valid IP address.", e);
+        valid = false;
+      }
+    }
+
     loadFavicon();
 
     return valid;
@@ -300,6 +405,23 @@ public class VelocityConfiguration implements ProxyConfig {
     return forcedHosts.getForcedHosts();
   }
 
+  /**
+   * Returns the strategy used to pick servers for players joining through {@code virtualHost}.
+   *
+   * @param virtualHost the lowercase virtual host the player connected with, or an empty string
+   * @return the server selection strategy
+   */
+  public ServerSelectionStrategy getServerSelectionStrategy(String virtualHost) {
+    String name = serverSelection.forcedHostStrategies.getOrDefault(virtualHost,
+        serverSelection.strategy);
+    ServerSelectionStrategy strategy = ServerSelectionStrategy.fromConfigName(name);
+    return strategy == null ? ServerSelectionStrategy.ORDERED : strategy;
+  }
+
+  public int getServerSelectionWeight(String server) {
+    return serverSelection.weights.getOrDefault(server, 1);
+  }
+
   @Override
   public int getCompressionThreshold() {
     return advanced.getCompressionThreshold();
@@ -371,6 +493,98 @@ public class VelocityConfiguration implements ProxyConfig {
     return advanced.isLogCommandExecutions();
   }
 
+  public boolean isCompressionPassthrough() {
+    return advanced.isCompressionPassthrough();
+  }
+
+  public int getStatusCacheInterval() {
+    return advanced.getStatusCacheInterval();
+  }
+
+  public int getPingPassthroughInterval() {
+    return advanced.getPingPassthroughInterval();
+  }
+
+  public int getPingPassthroughTimeout() {
+    return advanced.getPingPassthroughTimeout();
+  }
+
+  public String getSessionServerUrl() {
+    return advanced.getSessionServerUrl();
+  }
+
+  public int getSessionServerTimeout() {
+    return advanced.getSessionServerTimeout();
+  }
+
+  public int getCryptoThreads() {
+    return advanced.getCryptoThreads();
+  }
+
+  public int getCryptoQueueSize() {
+    return advanced.getCryptoQueueSize();
+  }
+
+  public int getConnectionRatelimit() {
+    return advanced.getConnectionRatelimit();
+  }
+
+  public int getConnectionRatelimitBurst() {
+    return advanced.getConnectionRatelimitBurst();
+  }
+
+  public int getMaxConnections() {
+    return advanced.getMaxConnections();
+  }
+
+  public int getMaxConnectionsPerIp() {
+    return advanced.getMaxConnectionsPerIp();
+  }
+
+  public int getMaxHandshakesInFlight() {
+    return advanced.getMaxHandshakesInFlight();
+  }
+
+  public int getListenerSockets() {
+    return advanced.getListenerSockets();
+  }
+
+  public int getWorkerThreads() {
+    return advanced.getWorkerThreads();
+  }
+
+  public String getWorkerCpus() {
+    return advanced.getWorkerCpus();
+  }
+
+  public int getAuxiliaryThreads() {
+    return advanced.getAuxiliaryThreads();
+  }
+
+  public int getFlushMaxLatency() {
+    return advanced.getFlushMaxLatency();
+  }
+
+  public int getBackendFailureThreshold() {
+    return advanced.getBackendFailureThreshold();
+  }
+
+  public int getBackendRetryDelay() {
+    return advanced.getBackendRetryDelay();
+  }
+
+  public int getBackendSlowLoginThreshold() {
+    return advanced.getBackendSlowLoginThreshold();
+  }
+
+  public int getBackendProbeInterval() {
+    return advanced.getBackendProbeInterval();
+  }
+
+  public String getOpenMetricsBind() {
+    return advanced.getOpenMetricsBind();
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
@@ -383,6 +597,7 @@ public class VelocityConfiguration implements ProxyConfig {
         .add("announceForge", announceForge)
         .add("servers", servers)
         .add("forcedHosts", forcedHosts)
+        .add("serverSelection", serverSelection)
         .add("advanced", advanced)
         .add("query", query)
         .add("favicon", favicon)
@@ -441,6 +656,7 @@ public class VelocityConfiguration implements ProxyConfig {
     // Read the rest of the config
     CommentedConfig serversConfig = config.get("servers");
     CommentedConfig forcedHostsConfig = config.get("forced-hosts");
+    CommentedConfig serverSelectionConfig = config.get("server-selection");
     CommentedConfig advancedConfig = config.get("advanced");
     CommentedConfig queryConfig = config.get("query");
     CommentedConfig metricsConfig = config.get("metrics");
@@ -471,6 +687,7 @@ public class VelocityConfiguration implements ProxyConfig {
         pingPassthroughMode,
         new Servers(serversConfig),
         new ForcedHosts(forcedHostsConfig),
+        new ServerSelection(serverSelectionConfig),
         new Advanced(advancedConfig),
         new Query(queryConfig),
         new Metrics(metricsConfig)
@@ -614,6 +831,57 @@ public class VelocityConfiguration implements ProxyConfig {
     }
   }
 
+  private static class ServerSelection {
+
+    private String strategy = ServerSelectionStrategy.ORDERED.getConfigName();
+    private Map<String, String> forcedHostStrategies = ImmutableMap.of();
+    private Map<String, Integer> weights = ImmutableMap.of();
+
+    private ServerSelection() {
+    }
+
+    private ServerSelection(CommentedConfig config) {
+      if (config != null) {
+        this.strategy = config.getOrElse("strategy", strategy);
+
+        CommentedConfig hostsConfig = config.get("forced-hosts");
+        if (hostsConfig != null) {
+          Map<String, String> forcedHostStrategies = new HashMap<>();
+          for (UnmodifiableConfig.Entry entry : hostsConfig.entrySet()) {
+            if (!(entry.getValue() instanceof String)) {
+              throw new IllegalStateException("Invalid value of type "
+                  + entry.getValue().getClass() + " in server selection forced hosts!");
+            }
+            forcedHostStrategies.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+          }
+          this.forcedHostStrategies = ImmutableMap.copyOf(forcedHostStrategies);
+        }
+
+        CommentedConfig weightsConfig = config.get("weights");
+        if (weightsConfig != null) {
+          Map<String, Integer> weights = new HashMap<>();
+          for (UnmodifiableConfig.Entry entry : weightsConfig.entrySet()) {
+            if (!(entry.getValue() instanceof Number)) {
+              throw new IllegalStateException("Invalid value of type "
+                  + entry.getValue().getClass() + " in server selection weights!");
+            }
+            weights.put(entry.getKey(), ((Number) entry.getValue()).intValue());
+          }
+          this.weights = ImmutableMap.copyOf(weights);
+        }
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "ServerSelection{"
+          + "strategy='" + strategy + '\''
+          + ", forcedHostStrategies=" + forcedHostStrategies
+          + ", weights=" + weights
+          + '}';
+    }
+  }
+
   private static class Advanced {
 
     @Expose private int compressionThreshold = 256;
@@ -628,6 +896,30 @@ public class VelocityConfiguration implements ProxyConfig {
     @Expose private boolean failoverOnUnexpectedServerDisconnect = true;
     @Expose private boolean announceProxyCommands = true;
     @Expose private boolean logCommandExecutions = false;
+    @Expose private boolean compressionPassthrough = false;
+    @Expose private int statusCacheInterval = 0;
+    @Expose private int pingPassthroughInterval = 0;
+    @Expose private int pingPassthroughTimeout = 0;
+    @Expose private String sessionServerUrl =
+        "https://sessionserver.mojang.com/session/minecraft/hasJoined";
+    @Expose private int sessionServerTimeout = 5000;
+    @Expose private int cryptoThreads = 0;
+    @Expose private int cryptoQueueSize = 512;
+    @Expose private int connectionRatelimit = 0;
+    @Expose private int connectionRatelimitBurst = 20;
+    @Expose private int maxConnections = 0;
+    @Expose private int maxConnectionsPerIp = 0;
+    @Expose private int maxHandshakesInFlight = 0;
+    @Expose private int listenerSockets = 1;
+    @Expose private int workerThreads = 0;
+    @Expose private String workerCpus = "";
+    @Expose private int auxiliaryThreads = 2;
+    @Expose private int flushMaxLatency = 0;
+    @Expose private int backendFailureThreshold = 0;
+    @Expose private int backendRetryDelay = 10000;
+    @Expose private int backendSlowLoginThreshold = 0;
+    @Expose private int backendProbeInterval = 0;
+    @Expose private String openMetricsBind = "";
 
     private Advanced() {
     }
@@ -651,6 +943,30 @@ public class VelocityConfiguration implements ProxyConfig {
             .getOrElse("failover-on-unexpected-server-disconnect", true);
         this.announceProxyCommands = config.getOrElse("announce-proxy-commands", true);
         this.logCommandExecutions = config.getOrElse("log-command-executions", false);
+        this.compressionPassthrough = config.getOrElse("compression-passthrough", false);
+        this.statusCacheInterval = config.getIntOrElse("status-cache-interval", 0);
+        this.pingPassthroughInterval = config.getIntOrElse("ping-passthrough-interval", 0);
+        this.pingPassthroughTimeout = config.getIntOrElse("ping-passthrough-timeout", 0);
+        this.sessionServerUrl = config.getOrElse("session-server-url",
+            "https://sessionserver.mojang.com/session/minecraft/hasJoined");
+        this.sessionServerTimeout = config.getIntOrElse("session-server-timeout", 5000);
+        this.cryptoThreads = config.getIntOrElse("crypto-threads", 0);
+        this.cryptoQueueSize = config.getIntOrElse("crypto-queue-size", 512);
+        this.connectionRatelimit = config.getIntOrElse("connection-ratelimit", 0);
+        this.connectionRatelimitBurst = config.getIntOrElse("connection-ratelimit-burst", 20);
+        this.maxConnections = config.getIntOrElse("max-connections", 0);
+        this.maxConnectionsPerIp = config.getIntOrElse("max-connections-per-ip", 0);
+        this.maxHandshakesInFlight = config.getIntOrElse("max-handshakes-in-flight", 0);
+        this.listenerSockets = config.getIntOrElse("listener-sockets", 1);
+        this.workerThreads = config.getIntOrElse("worker-threads", 0);
+        this.workerCpus = config.getOrElse("worker-cpus", "");
+        this.auxiliaryThreads = config.getIntOrElse("auxiliary-threads", 2);
+        this.flushMaxLatency = config.getIntOrElse("flush-max-latency", 0);
+        this.backendFailureThreshold = config.getIntOrElse("backend-failure-threshold", 0);
+        this.backendRetryDelay = config.getIntOrElse("backend-retry-delay", 10000);
+        this.backendSlowLoginThreshold = config.getIntOrElse("backend-slow-login-threshold", 0);
+        this.backendProbeInterval = config.getIntOrElse("backend-probe-interval", 0);
+        this.openMetricsBind = config.getOrElse("openmetrics-bind", "");
       }
     }
 
@@ -702,6 +1018,98 @@ public class VelocityConfiguration implements ProxyConfig {
       return logCommandExecutions;
     }
 
+    public boolean isCompressionPassthrough() {
+      return compressionPassthrough;
+    }
+
+    public int getStatusCacheInterval() {
+      return statusCacheInterval;
+    }
+
+    public int getPingPassthroughInterval() {
+      return pingPassthroughInterval;
+    }
+
+    public int getPingPassthroughTimeout() {
+      return pingPassthroughTimeout;
+    }
+
+    public String getSessionServerUrl() {
+      return sessionServerUrl;
+    }
+
+    public int getSessionServerTimeout() {
+      return sessionServerTimeout;
+    }
+
+    public int getCryptoThreads() {
+      return cryptoThreads;
+    }
+
+    public int getCryptoQueueSize() {
+      return cryptoQueueSize;
+    }
+
+    public int getConnectionRatelimit() {
+      return connectionRatelimit;
+    }
+
+    public int getConnectionRatelimitBurst() {
+      return connectionRatelimitBurst;
+    }
+
+    public int getMaxConnections() {
+      return maxConnections;
+    }
+
+    public int getMaxConnectionsPerIp() {
+      return maxConnectionsPerIp;
+    }
+
+    public int getMaxHandshakesInFlight() {
+      return maxHandshakesInFlight;
+    }
+
+    public int getListenerSockets() {
+      return listenerSockets;
+    }
+
+    public int getWorkerThreads() {
+      return workerThreads;
+    }
+
+    public String getWorkerCpus() {
+      return workerCpus;
+    }
+
+    public int getAuxiliaryThreads() {
+      return auxiliaryThreads;
+    }
+
+    public int getFlushMaxLatency() {
+      return flushMaxLatency;
+    }
+
+    public int getBackendFailureThreshold() {
+      return backendFailureThreshold;
+    }
+
+    public int getBackendRetryDelay() {
+      return backendRetryDelay;
+    }
+
+    public int getBackendSlowLoginThreshold() {
+      return backendSlowLoginThreshold;
+    }
+
+    public int getBackendProbeInterval() {
+      return backendProbeInterval;
+    }
+
+    public String getOpenMetricsBind() {
+      return openMetricsBind;
+    }
+
     @Override
     public String toString() {
       return "Advanced{"
@@ -717,6 +1125,29 @@ public class VelocityConfiguration implements ProxyConfig {
           + ", failoverOnUnexpectedServerDisconnect=" + failoverOnUnexpectedServerDisconnect
           + ", announceProxyCommands=" + announceProxyCommands
           + ", logCommandExecutions=" + logCommandExecutions
+          + ", compressionPassthrough=" + compressionPassthrough
+          + ", statusCacheInterval=" + statusCacheInterval
+          + ", pingPassthroughInterval=" + pingPassthroughInterval
+          + ", pingPassthroughTimeout=" + pingPassthroughTimeout
+          + ", sessionServerUrl=" + sessionServerUrl
+          + ", sessionServerTimeout=" + sessionServerTimeout
+          + ", cryptoThreads=" + cryptoThreads
+          + ", cryptoQueueSize=" + cryptoQueueSize
+          + ", connectionRatelimit=" + connectionRatelimit
+          + ", connectionRatelimitBurst=" + connectionRatelimitBurst
+          + ", maxConnections=" + maxConnections
+          + ", maxConnectionsPerIp=" + maxConnectionsPerIp
+          + ", maxHandshakesInFlight=" + maxHandshakesInFlight
+          + ", listenerSockets=" + listenerSockets
+          + ", workerThreads=" + workerThreads
+          + ", workerCpus=" + workerCpus
+          + ", auxiliaryThreads=" + auxiliaryThreads
+          + ", flushMaxLatency=" + flushMaxLatency
+          + ", backendFailureThreshold=" + backendFailureThreshold
+          + ", backendRetryDelay=" + backendRetryDelay
+          + ", backendSlowLoginThreshold=" + backendSlowLoginThreshold
+          + ", backendProbeInterval=" + backendProbeInterval
+          + ", openMetricsBind=" + openMetricsBind
           + '}';
     }
   }
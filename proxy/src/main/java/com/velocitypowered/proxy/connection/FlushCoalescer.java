@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection;
+
+import com.google.common.base.Preconditions;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Decides when packets relayed in one direction of a player's connection are flushed.
+ *
+ * <p>Relayed packets are written without flushing and are normally flushed once the connection
+ * they were read from has no more data to read. When packets arrive in many small reads, each of
+ * those flushes is a separate {@code write} system call. If the reads have recently been arriving
+ * closer together than the allowed flush delay, the flush is instead deferred by that delay so
+ * the packets of the following reads go out with it. The delay is bounded by a configured maximum
+ * and by a small fraction of the player's round trip time.</p>
+ *
+ * <p>Instances are not thread-safe, and must only be used from the event loop of the connection
+ * being written to.</p>
+ */
+public final class FlushCoalescer {
+
+  /**
+   * Statistics for packets relayed from servers to players.
+   */
+  public static final Statistics CLIENTBOUND = new Statistics();
+
+  /**
+   * Statistics for packets relayed from players to servers.
+   */
+  public static final Statistics SERVERBOUND = new Statistics();
+
+  private static final int MAXIMUM_PACKETS_TO_FLUSH = Integer
+      .getInteger("velocity.max-packets-per-flush", 8192);
+
+  /**
+   * Flushes are never deferred by more than this fraction (1/n) of the round trip time.
+   */
+  private static final int RTT_FRACTION = 20;
+
+  private final Statistics statistics;
+  private final long maxDelayNanos;
+  private final LongSupplier rttNanos;
+  private final LongSupplier nanoTime;
+  private @Nullable MinecraftConnection target;
+  private int pendingPackets;
+  private long lastReadCompleted;
+  private long readInterval;
+  private @Nullable ScheduledFuture<?> deferredFlush;
+  private long deferredSince;
+
+  /**
+   * Creates a new flush coalescer.
+   *
+   * @param statistics the statistics to record flushes in
+   * @param maxDelayNanos the maximum time a flush may be deferred by, or {@code 0} to always flush
+   *                      once a read completes
+   * @param rttNanos supplies the round trip time of the connection in nanoseconds, or a
+   *                 non-positive value if it is not known
+   */
+  public FlushCoalescer(Statistics statistics, long maxDelayNanos, LongSupplier rttNanos) {
+    this(statistics, maxDelayNanos, rttNanos, System::nanoTime);
+  }
+
+  FlushCoalescer(Statistics statistics, long maxDelayNanos, LongSupplier rttNanos,
+      LongSupplier nanoTime) {
+    Preconditions.checkArgument(maxDelayNanos >= 0, "maxDelayNanos");
+    this.statistics = Preconditions.checkNotNull(statistics, "statistics");
+    this.maxDelayNanos = maxDelayNanos;
+    this.rttNanos = Preconditions.checkNotNull(rttNanos, "rttNanos");
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Records that a packet was written, without flushing, to {@code connection}.
+   *
+   * @param connection the connection the packet was written to
+   */
+  public void written(MinecraftConnection connection) {
+    if (target != connection) {
+      flush();
+      target = connection;
+    }
+    if (++pendingPackets >= MAXIMUM_PACKETS_TO_FLUSH) {
+      flush();
+    }
+  }
+
+  /**
+   * Called when the connection packets are relayed from has no more data to read. Flushes the
+   * pending packets, either now or after a short delay.
+   */
+  public void readCompleted() {
+    long now = nanoTime.getAsLong();
+    if (lastReadCompleted != 0) {
+      long interval = now - lastReadCompleted;
+      readInterval = readInterval == 0 ? interval : readInterval + (interval - readInterval) / 8;
+    }
+    lastReadCompleted = now;
+
+    if (pendingPackets == 0 || target == null) {
+      return;
+    }
+    if (deferredFlush != null) {
+      // These packets go out with the flush that is already scheduled.
+      statistics.coalescedFlushes.increment();
+      return;
+    }
+
+    long delay = flushDelay();
+    if (delay == 0 || readInterval == 0 || readInterval > delay) {
+      // The next read is unlikely to arrive in time, so waiting would only add latency.
+      flush();
+      return;
+    }
+    deferredSince = now;
+    deferredFlush = target.eventLoop().schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Flushes all pending packets now.
+   */
+  public void flush() {
+    if (deferredFlush != null) {
+      deferredFlush.cancel(false);
+      deferredFlush = null;
+      statistics.deferredFlushes.increment();
+      statistics.addedLatencyNanos.add(nanoTime.getAsLong() - deferredSince);
+    }
+    if (pendingPackets > 0 && target != null) {
+      target.flush();
+      statistics.flushes.increment();
+    }
+    pendingPackets = 0;
+  }
+
+  private long flushDelay() {
+    if (maxDelayNanos == 0) {
+      return 0;
+    }
+    long rtt = rttNanos.getAsLong();
+    return rtt > 0 ? Math.min(maxDelayNanos, rtt / RTT_FRACTION) : maxDelayNanos;
+  }
+
+  /**
+   * Counters for the flushes of one direction of all connections.
+   */
+  public static final class Statistics {
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder coalescedFlushes = new LongAdder();
+    private final LongAdder deferredFlushes = new LongAdder();
+    private final LongAdder addedLatencyNanos = new LongAdder();
+
+    Statistics() {
+    }
+
+    /**
+     * Returns the number of flushes made.
+     *
+     * @return the number of flushes
+     */
+    public long getFlushes() {
+      return flushes.sum();
+    }
+
+    /**
+     * Returns the number of flushes saved by merging the packets of a read into a deferred flush.
+     * Each of these is one {@code write} system call that was not made.
+     *
+     * @return the number of flushes saved
+     */
+    public long getCoalescedFlushes() {
+      return coalescedFlushes.sum();
+    }
+
+    /**
+     * Returns the number of flushes that were deferred.
+     *
+     * @return the number of deferred flushes
+     */
+    public long getDeferredFlushes() {
+      return deferredFlushes.sum();
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, by which flushes were deferred.
+     *
+     * @return the total latency added by deferring flushes
+     */
+    public long getAddedLatencyNanos() {
+      return addedLatencyNanos.sum();
+    }
+  }
+}
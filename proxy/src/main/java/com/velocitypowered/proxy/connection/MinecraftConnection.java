@@ -25,6 +25,7 @@ import static com.velocitypowered.proxy.network.Connections.FRAME_DECODER;
 import static com.velocitypowered.proxy.network.Connections.FRAME_ENCODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_DECODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_ENCODER;
+import static com.velocitypowered.proxy.network.Connections.PRE_ENCODED_PACKET_ENCODER;
 
 import com.google.common.base.Preconditions;
 import com.velocitypowered.api.network.ProtocolVersion;
@@ -37,6 +38,7 @@ import com.velocitypowered.proxy.connection.client.HandshakeSessionHandler;
 import com.velocitypowered.proxy.connection.client.LoginSessionHandler;
 import com.velocitypowered.proxy.connection.client.StatusSessionHandler;
 import com.velocitypowered.proxy.network.Connections;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.StateRegistry;
 import com.velocitypowered.proxy.protocol.VelocityConnectionEvent;
@@ -47,6 +49,8 @@ import com.velocitypowered.proxy.protocol.netty.MinecraftCompressorAndLengthEnco
 import com.velocitypowered.proxy.protocol.netty.MinecraftDecoder;
 import com.velocitypowered.proxy.protocol.netty.MinecraftEncoder;
 import com.velocitypowered.proxy.protocol.netty.MinecraftVarintLengthEncoder;
+import com.velocitypowered.proxy.protocol.netty.PreEncodedPacketEncoder;
+import com.velocitypowered.proxy.telemetry.ConnectionStatistics;
 import com.velocitypowered.proxy.util.except.QuietDecoderException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
@@ -62,6 +66,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.security.GeneralSecurityException;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import org.apache.logging.log4j.LogManager;
@@ -85,6 +90,8 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
   private final VelocityServer server;
   private ConnectionType connectionType = ConnectionTypes.UNDETERMINED;
   private boolean knownDisconnect = false;
+  private boolean countedInStatistics = false;
+  private int compressionThreshold = -1;
 
   /**
    * Initializes a new {@link MinecraftConnection} instance.
@@ -98,6 +105,20 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     this.state = StateRegistry.HANDSHAKE;
   }
 
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+    ConnectionStatistics.transition(null, state);
+    countedInStatistics = true;
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    if (countedInStatistics) {
+      ConnectionStatistics.transition(state, null);
+      countedInStatistics = false;
+    }
+  }
+
   @Override
   public void channelActive(ChannelHandlerContext ctx) throws Exception {
     if (sessionHandler != null) {
@@ -148,6 +169,16 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
             proxyMessage.sourcePort());
       } else if (msg instanceof ByteBuf) {
         sessionHandler.handleUnknown((ByteBuf) msg);
+      } else if (msg instanceof CompressedFrame) {
+        CompressedFrame frame = (CompressedFrame) msg;
+        if (!sessionHandler.handleCompressedFrame(frame)) {
+          ByteBuf inflated = inflate(frame);
+          try {
+            sessionHandler.handleUnknown(inflated);
+          } finally {
+            inflated.release();
+          }
+        }
       }
     } finally {
       ReferenceCountUtil.release(msg);
@@ -342,6 +373,9 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
   public void setState(StateRegistry state) {
     ensureInEventLoop();
 
+    if (countedInStatistics) {
+      ConnectionStatistics.transition(this.state, state);
+    }
     this.state = state;
     this.channel.pipeline().get(MinecraftEncoder.class).setState(state);
     this.channel.pipeline().get(MinecraftDecoder.class).setState(state);
@@ -363,6 +397,8 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     if (protocolVersion != ProtocolVersion.LEGACY) {
       this.channel.pipeline().get(MinecraftEncoder.class).setProtocolVersion(protocolVersion);
       this.channel.pipeline().get(MinecraftDecoder.class).setProtocolVersion(protocolVersion);
+      this.channel.pipeline().get(PreEncodedPacketEncoder.class)
+          .setProtocolVersion(protocolVersion);
     } else {
       // Legacy handshake handling
       this.channel.pipeline().remove(MINECRAFT_ENCODER);
@@ -405,9 +441,13 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     ensureOpen();
     ensureInEventLoop();
 
+    this.compressionThreshold = threshold;
+    PreEncodedPacketEncoder preEncodedEncoder = channel.pipeline()
+        .get(PreEncodedPacketEncoder.class);
     if (threshold == -1) {
       final ChannelHandler removedDecoder = channel.pipeline().remove(COMPRESSION_DECODER);
       final ChannelHandler removedEncoder = channel.pipeline().remove(COMPRESSION_ENCODER);
+      preEncodedEncoder.setCompression(-1, null);
 
       if (removedDecoder != null && removedEncoder != null) {
         channel.pipeline().addBefore(MINECRAFT_DECODER, FRAME_ENCODER,
@@ -422,12 +462,14 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
       if (decoder != null && encoder != null) {
         decoder.setThreshold(threshold);
         encoder.setThreshold(threshold);
+        preEncodedEncoder.setThreshold(threshold);
       } else {
         int level = server.getConfiguration().getCompressionLevel();
         VelocityCompressor compressor = Natives.compress.get().create(level);
 
         encoder = new MinecraftCompressorAndLengthEncoder(threshold, compressor);
         decoder = new MinecraftCompressDecoder(threshold, compressor);
+        preEncodedEncoder.setCompression(threshold, compressor);
 
         channel.pipeline().remove(FRAME_ENCODER);
         channel.pipeline().addBefore(MINECRAFT_DECODER, COMPRESSION_DECODER, decoder);
@@ -438,6 +480,37 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     }
   }
 
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  /**
+   * Enables or disables compressed passthrough on the connection. While enabled, compressed
+   * packets that the proxy does not decode are passed to the session handler as
+   * {@link CompressedFrame}s instead of being inflated. Has no effect if compression is not
+   * enabled.
+   * @param enabled whether compressed passthrough should be enabled
+   */
+  public void setCompressionPassthrough(boolean enabled) {
+    ensureInEventLoop();
+
+    MinecraftCompressDecoder decoder = (MinecraftCompressDecoder) channel.pipeline()
+        .get(COMPRESSION_DECODER);
+    if (decoder != null) {
+      decoder.setPassthroughDecoder(enabled ? channel.pipeline().get(MinecraftDecoder.class)
+          : null);
+    }
+  }
+
+  private ByteBuf inflate(CompressedFrame frame) throws DataFormatException {
+    MinecraftCompressDecoder decoder = (MinecraftCompressDecoder) channel.pipeline()
+        .get(COMPRESSION_DECODER);
+    if (decoder == null) {
+      throw new IllegalStateException("Received a compressed frame without compression");
+    }
+    return decoder.inflate(channel.alloc(), frame);
+  }
+
   /**
    * Enables encryption on the connection.
    * @param secret the secret key negotiated between the client and the server
@@ -454,8 +527,9 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     VelocityCipher encryptionCipher = factory.forEncryption(key);
     channel.pipeline()
         .addBefore(FRAME_DECODER, CIPHER_DECODER, new MinecraftCipherDecoder(decryptionCipher));
-    channel.pipeline()
-        .addBefore(FRAME_ENCODER, CIPHER_ENCODER, new MinecraftCipherEncoder(encryptionCipher));
+    channel.pipeline().addBefore(PRE_ENCODED_PACKET_ENCODER, CIPHER_ENCODER,
+        new MinecraftCipherEncoder(encryptionCipher));
+    channel.pipeline().get(PreEncodedPacketEncoder.class).setEncrypted(true);
 
     channel.pipeline().fireUserEventTriggered(VelocityConnectionEvent.ENCRYPTION_ENABLED);
   }
@@ -17,6 +17,7 @@
 
 package com.velocitypowered.proxy.connection;
 
+import com.velocitypowered.proxy.protocol.CompressedFrame;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.packet.AvailableCommands;
 import com.velocitypowered.proxy.protocol.packet.BossBar;
@@ -68,6 +69,17 @@ public interface MinecraftSessionHandler {
 
   }
 
+  /**
+   * Handles a packet that was passed on still compressed. If the handler can't relay it as-is,
+   * the packet is inflated and passed to {@link #handleUnknown(ByteBuf)} instead.
+   *
+   * @param frame the compressed packet
+   * @return whether the frame was handled
+   */
+  default boolean handleCompressedFrame(CompressedFrame frame) {
+    return false;
+  }
+
   default void connected() {
 
   }
@@ -32,11 +32,13 @@ import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
 import com.velocitypowered.api.proxy.player.ResourcePackInfo;
 import com.velocitypowered.proxy.VelocityServer;
 import com.velocitypowered.proxy.command.CommandGraphInjector;
+import com.velocitypowered.proxy.connection.FlushCoalescer;
 import com.velocitypowered.proxy.connection.MinecraftConnection;
 import com.velocitypowered.proxy.connection.MinecraftSessionHandler;
 import com.velocitypowered.proxy.connection.client.ClientPlaySessionHandler;
 import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
 import com.velocitypowered.proxy.connection.util.ConnectionMessages;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.packet.AvailableCommands;
 import com.velocitypowered.proxy.protocol.packet.BossBar;
@@ -63,16 +65,14 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
   private static final Logger logger = LogManager.getLogger(BackendPlaySessionHandler.class);
   private static final boolean BACKPRESSURE_LOG = Boolean
       .getBoolean("velocity.log-server-backpressure");
-  private static final int MAXIMUM_PACKETS_TO_FLUSH = Integer
-      .getInteger("velocity.max-packets-per-flush", 8192);
 
   private final VelocityServer server;
   private final VelocityServerConnection serverConn;
   private final ClientPlaySessionHandler playerSessionHandler;
   private final MinecraftConnection playerConnection;
   private final BungeeCordMessageResponder bungeecordMessageResponder;
+  private final FlushCoalescer flushCoalescer;
   private boolean exceptionTriggered = false;
-  private int packetsFlushed;
 
   BackendPlaySessionHandler(VelocityServer server, VelocityServerConnection serverConn) {
     this.server = server;
@@ -88,6 +88,7 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
 
     this.bungeecordMessageResponder = new BungeeCordMessageResponder(server,
         serverConn.getPlayer());
+    this.flushCoalescer = playerSessionHandler.createFlushCoalescer(FlushCoalescer.CLIENTBOUND);
   }
 
   @Override
@@ -100,6 +101,18 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
           ImmutableList.of(getBungeeCordChannel(serverMc.getProtocolVersion()))
       ));
     }
+
+    if (server.getConfiguration().isCompressionPassthrough()) {
+      // Compressed packets can only be relayed as-is if the client will accept them, which is
+      // guaranteed when both sides compress at the same threshold.
+      MinecraftConnection serverMc = serverConn.ensureConnected();
+      int threshold = serverMc.getCompressionThreshold();
+      serverMc.setCompressionPassthrough(threshold != -1
+          && threshold == playerConnection.getCompressionThreshold());
+      // In the other direction, the server accepts any compressed packet at least as large as its
+      // threshold, and the encoder inflates the packets it wouldn't accept.
+      playerConnection.setCompressionPassthrough(threshold != -1);
+    }
   }
 
   @Override
@@ -239,25 +252,25 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
       ((PluginMessage) packet).retain();
     }
     playerConnection.delayedWrite(packet);
-    if (++packetsFlushed >= MAXIMUM_PACKETS_TO_FLUSH) {
-      playerConnection.flush();
-      packetsFlushed = 0;
-    }
+    flushCoalescer.written(playerConnection);
   }
 
   @Override
   public void handleUnknown(ByteBuf buf) {
     playerConnection.delayedWrite(buf.retain());
-    if (++packetsFlushed >= MAXIMUM_PACKETS_TO_FLUSH) {
-      playerConnection.flush();
-      packetsFlushed = 0;
-    }
+    flushCoalescer.written(playerConnection);
+  }
+
+  @Override
+  public boolean handleCompressedFrame(CompressedFrame frame) {
+    playerConnection.delayedWrite(frame.retain());
+    flushCoalescer.written(playerConnection);
+    return true;
   }
 
   @Override
   public void readCompleted() {
-    playerConnection.flush();
-    packetsFlushed = 0;
+    flushCoalescer.readCompleted();
   }
 
   @Override
@@ -273,6 +286,7 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
 
   @Override
   public void disconnected() {
+    flushCoalescer.flush();
     serverConn.getServer().removePlayer(serverConn.getPlayer());
     if (!serverConn.isGracefulDisconnect() && !exceptionTriggered) {
       if (server.getConfiguration().isFailoverOnUnexpectedServerDisconnect()) {
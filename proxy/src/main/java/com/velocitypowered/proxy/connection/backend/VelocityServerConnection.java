@@ -41,6 +41,7 @@ import com.velocitypowered.proxy.protocol.packet.Handshake;
 import com.velocitypowered.proxy.protocol.packet.PluginMessage;
 import com.velocitypowered.proxy.protocol.packet.ServerLogin;
 import com.velocitypowered.proxy.server.VelocityRegisteredServer;
+import com.velocitypowered.proxy.util.except.QuietRuntimeException;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
@@ -86,6 +87,20 @@ public class VelocityServerConnection implements MinecraftConnectionAssociation,
    */
   public CompletableFuture<Impl> connect() {
     CompletableFuture<Impl> result = new CompletableFuture<>();
+    if (!registeredServer.tryStartConnection()) {
+      // The server has been failing recently, so don't make the player wait for it to time out.
+      result.completeExceptionally(new QuietRuntimeException("Server "
+          + registeredServer.getServerInfo().getName() + " is currently unavailable"));
+      return result;
+    }
+    long connectStart = System.nanoTime();
+    result.whenComplete((ignored, throwable) -> {
+      if (throwable != null && !proxyPlayer.isActive()) {
+        registeredServer.connectionCancelled();
+      } else {
+        registeredServer.connectionFinished(throwable != null, System.nanoTime() - connectStart);
+      }
+    });
     // Note: we use the event loop for the connection the player is on. This reduces context
     // switches.
     server.createBootstrap(proxyPlayer.getConnection().eventLoop())
@@ -93,6 +108,7 @@ public class VelocityServerConnection implements MinecraftConnectionAssociation,
         .connect(registeredServer.getServerInfo().getAddress())
         .addListener((ChannelFutureListener) future -> {
           if (future.isSuccess()) {
+            registeredServer.recordConnectLatency(System.nanoTime() - connectStart);
             connection = new MinecraftConnection(future.channel(), server);
             connection.setAssociation(VelocityServerConnection.this);
             future.channel().pipeline().addLast(HANDLER, connection);
@@ -106,6 +122,9 @@ public class VelocityServerConnection implements MinecraftConnectionAssociation,
             connectionPhase = connection.getType().getInitialBackendPhase();
             startHandshake();
           } else {
+            // Being unable to reach the server is the only failure that counts against its
+            // health. Failed logins are as likely to be caused by the player or a plugin.
+            registeredServer.recordHealth(false);
             // Complete the result immediately. ConnectedPlayer will reset the in-flight connection.
             result.completeExceptionally(future.cause());
           }
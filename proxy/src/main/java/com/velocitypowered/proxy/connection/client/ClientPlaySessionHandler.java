@@ -36,11 +36,13 @@ import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
 import com.velocitypowered.api.proxy.player.ResourcePackInfo;
 import com.velocitypowered.proxy.VelocityServer;
 import com.velocitypowered.proxy.connection.ConnectionTypes;
+import com.velocitypowered.proxy.connection.FlushCoalescer;
 import com.velocitypowered.proxy.connection.MinecraftConnection;
 import com.velocitypowered.proxy.connection.MinecraftSessionHandler;
 import com.velocitypowered.proxy.connection.backend.BackendConnectionPhases;
 import com.velocitypowered.proxy.connection.backend.BungeeCordMessageResponder;
 import com.velocitypowered.proxy.connection.backend.VelocityServerConnection;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.StateRegistry;
 import com.velocitypowered.proxy.protocol.packet.BossBar;
@@ -68,6 +70,7 @@ import java.util.Optional;
 import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import net.kyori.adventure.identity.Identity;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -89,6 +92,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
   private final List<UUID> serverBossBars = new ArrayList<>();
   private final Queue<PluginMessage> loginPluginMessages = new ArrayDeque<>();
   private final VelocityServer server;
+  private final FlushCoalescer flushCoalescer;
   private @Nullable TabCompleteRequest outstandingTabComplete;
 
   /**
@@ -99,6 +103,20 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
   public ClientPlaySessionHandler(VelocityServer server, ConnectedPlayer player) {
     this.player = player;
     this.server = server;
+    this.flushCoalescer = createFlushCoalescer(FlushCoalescer.SERVERBOUND);
+  }
+
+  /**
+   * Creates a {@link FlushCoalescer} for packets relayed to or from this player, bounded by the
+   * configured flush latency and the player's ping.
+   *
+   * @param statistics the statistics to record flushes in
+   * @return a new flush coalescer
+   */
+  public FlushCoalescer createFlushCoalescer(FlushCoalescer.Statistics statistics) {
+    return new FlushCoalescer(statistics,
+        TimeUnit.MICROSECONDS.toNanos(server.getConfiguration().getFlushMaxLatency()),
+        () -> TimeUnit.MILLISECONDS.toNanos(player.getPing()));
   }
 
   @Override
@@ -301,7 +319,8 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
       if (packet instanceof PluginMessage) {
         ((PluginMessage) packet).retain();
       }
-      smc.write(packet);
+      smc.delayedWrite(packet);
+      flushCoalescer.written(smc);
     }
   }
 
@@ -315,12 +334,35 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
     MinecraftConnection smc = serverConnection.getConnection();
     if (smc != null && !smc.isClosed() && serverConnection.getPhase().consideredComplete()) {
-      smc.write(buf.retain());
+      smc.delayedWrite(buf.retain());
+      flushCoalescer.written(smc);
     }
   }
 
+  @Override
+  public boolean handleCompressedFrame(CompressedFrame frame) {
+    VelocityServerConnection serverConnection = player.getConnectedServer();
+    MinecraftConnection smc = serverConnection == null ? null : serverConnection.getConnection();
+    if (smc == null || smc.getCompressionThreshold() == -1) {
+      // The server (if any) doesn't take compressed packets, so let the frame be inflated.
+      return false;
+    }
+
+    if (!smc.isClosed() && serverConnection.getPhase().consideredComplete()) {
+      smc.delayedWrite(frame.retain());
+      flushCoalescer.written(smc);
+    }
+    return true;
+  }
+
+  @Override
+  public void readCompleted() {
+    flushCoalescer.readCompleted();
+  }
+
   @Override
   public void disconnected() {
+    flushCoalescer.flush();
     player.teardown();
   }
 
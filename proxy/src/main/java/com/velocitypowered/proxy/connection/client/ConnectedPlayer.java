@@ -65,6 +65,7 @@ import com.velocitypowered.proxy.protocol.packet.KeepAlive;
 import com.velocitypowered.proxy.protocol.packet.PluginMessage;
 import com.velocitypowered.proxy.protocol.packet.ResourcePackRequest;
 import com.velocitypowered.proxy.protocol.packet.title.GenericTitlePacket;
+import com.velocitypowered.proxy.server.ServerSelectionStrategy;
 import com.velocitypowered.proxy.server.VelocityRegisteredServer;
 import com.velocitypowered.proxy.tablist.VelocityTabList;
 import com.velocitypowered.proxy.tablist.VelocityTabListLegacy;
@@ -75,13 +76,16 @@ import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -125,6 +129,7 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player {
   private GameProfile profile;
   private PermissionFunction permissionFunction;
   private int tryIndex = 0;
+  private final Set<String> triedServers = new HashSet<>();
   private long ping = -1;
   private final boolean onlineMode;
   private @Nullable VelocityServerConnection connectedServer;
@@ -674,10 +679,10 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player {
    * @return the next server to try
    */
   private Optional<RegisteredServer> getNextServerToTry(@Nullable RegisteredServer current) {
+    String virtualHostStr = getVirtualHost().map(InetSocketAddress::getHostString)
+        .orElse("")
+        .toLowerCase(Locale.ROOT);
     if (serversToTry == null) {
-      String virtualHostStr = getVirtualHost().map(InetSocketAddress::getHostString)
-          .orElse("")
-          .toLowerCase(Locale.ROOT);
       serversToTry = server.getConfiguration().getForcedHosts().getOrDefault(virtualHostStr,
           Collections.emptyList());
     }
@@ -686,20 +691,61 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player {
       serversToTry = server.getConfiguration().getAttemptConnectionOrder();
     }
 
+    ServerSelectionStrategy strategy = server.getConfiguration()
+        .getServerSelectionStrategy(virtualHostStr);
+    if (strategy != ServerSelectionStrategy.ORDERED) {
+      return selectServerToTry(strategy, current);
+    }
+
     for (int i = tryIndex; i < serversToTry.size(); i++) {
       String toTryName = serversToTry.get(i);
-      if ((connectedServer != null && hasSameName(connectedServer.getServer(), toTryName))
-          || (connectionInFlight != null && hasSameName(connectionInFlight.getServer(), toTryName))
-          || (current != null && hasSameName(current, toTryName))) {
+      Optional<RegisteredServer> toTry = server.getServer(toTryName);
+      if (isExcludedFromTry(current, toTryName) || !isAvailable(toTry)) {
         continue;
       }
 
       tryIndex = i;
-      return server.getServer(toTryName);
+      return toTry;
     }
     return Optional.empty();
   }
 
+  private Optional<RegisteredServer> selectServerToTry(ServerSelectionStrategy strategy,
+      @Nullable RegisteredServer current) {
+    List<VelocityRegisteredServer> candidates = new ArrayList<>(serversToTry.size());
+    for (String toTryName : serversToTry) {
+      if (isExcludedFromTry(current, toTryName)
+          || triedServers.contains(toTryName.toLowerCase(Locale.ROOT))) {
+        continue;
+      }
+      Optional<RegisteredServer> toTry = server.getServer(toTryName);
+      if (toTry.isPresent() && isAvailable(toTry)) {
+        candidates.add((VelocityRegisteredServer) toTry.get());
+      }
+    }
+    if (candidates.isEmpty()) {
+      return Optional.empty();
+    }
+
+    VelocityRegisteredServer selected = strategy.select(candidates,
+        server.getConfiguration()::getServerSelectionWeight);
+    triedServers.add(selected.getServerInfo().getName().toLowerCase(Locale.ROOT));
+    return Optional.of(selected);
+  }
+
+  private boolean isExcludedFromTry(@Nullable RegisteredServer current, String name) {
+    return (connectedServer != null && hasSameName(connectedServer.getServer(), name))
+        || (connectionInFlight != null && hasSameName(connectionInFlight.getServer(), name))
+        || (current != null && hasSameName(current, name));
+  }
+
+  private static boolean isAvailable(Optional<RegisteredServer> server) {
+    // Servers whose circuit breaker is open are skipped, so the player doesn't have to wait for
+    // them to time out.
+    return server.map(registered -> ((VelocityRegisteredServer) registered).isAvailable())
+        .orElse(true);
+  }
+
   private static boolean hasSameName(RegisteredServer server, String name) {
     return server.getServerInfo().getName().equalsIgnoreCase(name);
   }
@@ -712,6 +758,7 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player {
   public void setConnectedServer(@Nullable VelocityServerConnection serverConnection) {
     this.connectedServer = serverConnection;
     this.tryIndex = 0; // reset since we got connected to a server
+    this.triedServers.clear();
 
     if (serverConnection == connectionInFlight) {
       connectionInFlight = null;
@@ -80,6 +80,11 @@ public class HandshakeSessionHandler implements MinecraftSessionHandler {
 
   @Override
   public boolean handle(Handshake handshake) {
+    if (!server.getAdmissionController().tryBeginHandshake(connection.getChannel())) {
+      connection.close(true);
+      return true;
+    }
+
     InitialInboundConnection ic = new InitialInboundConnection(connection,
         cleanVhost(handshake.getServerAddress()), handshake);
     StateRegistry nextState = getStateForProtocol(handshake.getNextStatus());
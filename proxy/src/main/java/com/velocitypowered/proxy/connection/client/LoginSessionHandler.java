@@ -17,9 +17,7 @@
 
 package com.velocitypowered.proxy.connection.client;
 
-import static com.google.common.net.UrlEscapers.urlFormParameterEscaper;
 import static com.velocitypowered.api.network.ProtocolVersion.MINECRAFT_1_8;
-import static com.velocitypowered.proxy.VelocityServer.GENERAL_GSON;
 import static com.velocitypowered.proxy.connection.VelocityConstants.EMPTY_BYTE_ARRAY;
 import static com.velocitypowered.proxy.util.EncryptionUtils.decryptRsa;
 import static com.velocitypowered.proxy.util.EncryptionUtils.generateServerId;
@@ -50,6 +48,7 @@ import com.velocitypowered.proxy.protocol.packet.EncryptionResponse;
 import com.velocitypowered.proxy.protocol.packet.ServerLogin;
 import com.velocitypowered.proxy.protocol.packet.ServerLoginSuccess;
 import com.velocitypowered.proxy.protocol.packet.SetCompression;
+import com.velocitypowered.proxy.telemetry.LoginStage;
 import io.netty.buffer.ByteBuf;
 import java.net.InetSocketAddress;
 import java.security.GeneralSecurityException;
@@ -60,22 +59,18 @@ import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.translation.GlobalTranslator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.asynchttpclient.ListenableFuture;
-import org.asynchttpclient.Response;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
 
 public class LoginSessionHandler implements MinecraftSessionHandler {
 
   private static final Logger logger = LogManager.getLogger(LoginSessionHandler.class);
-  private static final String MOJANG_HASJOINED_URL =
-      "https://sessionserver.mojang.com/session/minecraft/hasJoined?username=%s&serverId=%s";
 
   private final VelocityServer server;
   private final MinecraftConnection mcConnection;
@@ -83,6 +78,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
   private @MonotonicNonNull ServerLogin login;
   private byte[] verify = EMPTY_BYTE_ARRAY;
   private @MonotonicNonNull ConnectedPlayer connectedPlayer;
+  private long loginStarted;
 
   LoginSessionHandler(VelocityServer server, MinecraftConnection mcConnection,
       InitialInboundConnection inbound) {
@@ -94,6 +90,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
   @Override
   public boolean handle(ServerLogin packet) {
     this.login = packet;
+    this.loginStarted = System.nanoTime();
     beginPreLogin();
     return true;
   }
@@ -109,70 +106,85 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
       throw new IllegalStateException("No EncryptionRequest packet sent yet.");
     }
 
-    try {
-      KeyPair serverKeyPair = server.getServerKeyPair();
+    // Decrypting with the server's private key is expensive, so keep it off the event loop.
+    byte[] expectedVerifyToken = this.verify;
+    this.verify = EMPTY_BYTE_ARRAY;
+    KeyPair serverKeyPair = server.getServerKeyPair();
+    long decryptionStarted = System.nanoTime();
+    server.getCryptoExecutor().submit(() -> {
+      if (mcConnection.isClosed()) {
+        return null;
+      }
       byte[] decryptedVerifyToken = decryptRsa(serverKeyPair, packet.getVerifyToken());
-      if (!MessageDigest.isEqual(verify, decryptedVerifyToken)) {
+      if (!MessageDigest.isEqual(expectedVerifyToken, decryptedVerifyToken)) {
         throw new IllegalStateException("Unable to successfully decrypt the verification token.");
       }
+      return decryptRsa(serverKeyPair, packet.getSharedSecret());
+    }).whenCompleteAsync((decryptedSharedSecret, ex) -> {
+      if (mcConnection.isClosed()) {
+        return;
+      }
+      if (ex instanceof RejectedExecutionException) {
+        inbound.disconnect(Component.translatable("velocity.error.login-overloaded",
+            NamedTextColor.RED));
+      } else if (ex != null) {
+        logger.error("Unable to decrypt the encryption response of {}", inbound, ex);
+        mcConnection.close(true);
+      } else if (decryptedSharedSecret != null) {
+        LoginStage.DECRYPTION.recordSince(decryptionStarted);
+        verifySession(login, serverKeyPair, decryptedSharedSecret);
+      }
+    }, mcConnection.eventLoop());
+    return true;
+  }
 
-      byte[] decryptedSharedSecret = decryptRsa(serverKeyPair, packet.getSharedSecret());
-      String serverId = generateServerId(decryptedSharedSecret, serverKeyPair.getPublic());
+  private void verifySession(ServerLogin login, KeyPair serverKeyPair,
+      byte[] decryptedSharedSecret) {
+    String serverId = generateServerId(decryptedSharedSecret, serverKeyPair.getPublic());
 
-      String playerIp = ((InetSocketAddress) mcConnection.getRemoteAddress()).getHostString();
-      String url = String.format(MOJANG_HASJOINED_URL,
-          urlFormParameterEscaper().escape(login.getUsername()), serverId);
+    String playerIp = ((InetSocketAddress) mcConnection.getRemoteAddress()).getHostString();
+    String requiredIp = server.getConfiguration().shouldPreventClientProxyConnections()
+        ? playerIp : null;
 
-      if (server.getConfiguration().shouldPreventClientProxyConnections()) {
-        url += "&ip=" + urlFormParameterEscaper().escape(playerIp);
-      }
+    long authenticationStarted = System.nanoTime();
+    server.getSessionVerifier().verify(login.getUsername(), serverId, requiredIp)
+        .whenCompleteAsync((profile, ex) -> {
+          if (mcConnection.isClosed()) {
+            // The player disconnected after we authenticated them.
+            return;
+          }
+          if (ex == null) {
+            LoginStage.AUTHENTICATION.recordSince(authenticationStarted);
+          }
 
-      ListenableFuture<Response> hasJoinedResponse = server.getAsyncHttpClient().prepareGet(url)
-          .execute();
-      hasJoinedResponse.addListener(() -> {
-        if (mcConnection.isClosed()) {
-          // The player disconnected after we authenticated them.
-          return;
-        }
-
-        // Go ahead and enable encryption. Once the client sends EncryptionResponse, encryption
-        // is enabled.
-        try {
-          mcConnection.enableEncryption(decryptedSharedSecret);
-        } catch (GeneralSecurityException e) {
-          throw new RuntimeException(e);
-        }
-
-        try {
-          Response profileResponse = hasJoinedResponse.get();
-          if (profileResponse.getStatusCode() == 200) {
+          // Go ahead and enable encryption. Once the client sends EncryptionResponse, encryption
+          // is enabled.
+          try {
+            mcConnection.enableEncryption(decryptedSharedSecret);
+          } catch (GeneralSecurityException e) {
+            logger.error("Unable to enable encryption", e);
+            mcConnection.close(true);
+            return;
+          }
+
+          if (ex != null) {
+            if (SessionVerifier.isUnavailable(ex)) {
+              inbound.disconnect(Component.translatable(
+                  "velocity.error.session-server-unavailable", NamedTextColor.RED));
+            } else {
+              logger.error("Unable to authenticate {} ({}) with the session server",
+                  login.getUsername(), playerIp, ex);
+              mcConnection.close(true);
+            }
+          } else if (profile != null) {
             // All went well, initialize the session.
-            initializePlayer(GENERAL_GSON.fromJson(profileResponse.getResponseBody(),
-                GameProfile.class), true);
-          } else if (profileResponse.getStatusCode() == 204) {
+            initializePlayer(profile, true);
+          } else {
             // Apparently an offline-mode user logged onto this online-mode proxy.
             inbound.disconnect(Component.translatable("velocity.error.online-mode-only",
                 NamedTextColor.RED));
-          } else {
-            // Something else went wrong
-            logger.error(
-                "Got an unexpected error code {} whilst contacting Mojang to log in {} ({})",
-                profileResponse.getStatusCode(), login.getUsername(), playerIp);
-            mcConnection.close(true);
           }
-        } catch (ExecutionException e) {
-          logger.error("Unable to authenticate with Mojang", e);
-          mcConnection.close(true);
-        } catch (InterruptedException e) {
-          // not much we can do usefully
-          Thread.currentThread().interrupt();
-        }
-      }, mcConnection.eventLoop());
-    } catch (GeneralSecurityException e) {
-      logger.error("Unable to enable encryption", e);
-      mcConnection.close(true);
-    }
-    return true;
+        }, mcConnection.eventLoop());
   }
 
   private void beginPreLogin() {
@@ -187,6 +199,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
             // The player was disconnected
             return;
           }
+          LoginStage.PRE_LOGIN.recordSince(loginStarted);
 
           PreLoginComponentResult result = event.getResult();
           Optional<Component> disconnectReason = result.getReasonComponent();
@@ -229,6 +242,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
     GameProfileRequestEvent profileRequestEvent = new GameProfileRequestEvent(inbound, profile,
         onlineMode);
     final GameProfile finalProfile = profile;
+    long profileStarted = System.nanoTime();
 
     server.getEventManager().fire(profileRequestEvent).thenComposeAsync(profileEvent -> {
       if (mcConnection.isClosed()) {
@@ -252,6 +266,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
           .fire(new PermissionsSetupEvent(player, ConnectedPlayer.DEFAULT_PERMISSIONS))
           .thenAcceptAsync(event -> {
             if (!mcConnection.isClosed()) {
+              LoginStage.PROFILE.recordSince(profileStarted);
               // wait for permissions to load, then set the players permission function
               final PermissionFunction function = event.createFunction(player);
               if (function == null) {
@@ -291,7 +306,9 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
 
     mcConnection.setAssociation(player);
     mcConnection.setState(StateRegistry.PLAY);
+    server.getAdmissionController().handshakeCompleted(mcConnection.getChannel());
 
+    long loginEventStarted = System.nanoTime();
     server.getEventManager().fire(new LoginEvent(player))
         .thenAcceptAsync(event -> {
           if (mcConnection.isClosed()) {
@@ -300,6 +317,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
                 LoginStatus.CANCELLED_BY_USER_BEFORE_COMPLETE));
             return;
           }
+          LoginStage.LOGIN_EVENT.recordSince(loginEventStarted);
 
           Optional<Component> reason = event.getResult().getReasonComponent();
           if (reason.isPresent()) {
@@ -310,6 +328,7 @@ public class LoginSessionHandler implements MinecraftSessionHandler {
                   true);
               return;
             }
+            LoginStage.TOTAL.recordSince(loginStarted);
 
             mcConnection.setSessionHandler(new InitialConnectSessionHandler(player));
             server.getEventManager().fire(new PostLoginEvent(player))
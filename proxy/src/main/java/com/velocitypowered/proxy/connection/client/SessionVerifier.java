@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.client;
+
+import static com.google.common.net.UrlEscapers.urlFormParameterEscaper;
+import static com.velocitypowered.proxy.VelocityServer.GENERAL_GSON;
+
+import com.velocitypowered.api.util.GameProfile;
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.util.LatencyHistogram;
+import com.velocitypowered.proxy.util.except.QuietRuntimeException;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.asynchttpclient.Response;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Verifies that players logging into an online-mode proxy have joined through the session
+ * server.
+ *
+ * <p>Every login has its own server ID, derived from the shared secret the client generated for
+ * it, so responses are never reused across logins.</p>
+ *
+ * <p>If the session server keeps failing, the verifier stops contacting it for a while and fails
+ * logins immediately instead of letting every login wait for a timeout. After that, a single
+ * login is let through to probe whether the session server has recovered.</p>
+ */
+public final class SessionVerifier {
+
+  private static final Logger logger = LogManager.getLogger(SessionVerifier.class);
+
+  /**
+   * The number of consecutive failed requests after which the session server is considered
+   * unavailable.
+   */
+  static final int FAILURE_THRESHOLD = 5;
+  static final long UNAVAILABLE_NANOS = TimeUnit.SECONDS.toNanos(15);
+
+  private static final QuietRuntimeException UNAVAILABLE = new QuietRuntimeException(
+      "The session server is unavailable");
+
+  private final Supplier<String> sessionServerUrl;
+  private final Function<String, CompletableFuture<Response>> requester;
+  private final LongSupplier nanoTime;
+
+  private final LatencyHistogram requestLatency = new LatencyHistogram();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicBoolean probing = new AtomicBoolean();
+  private volatile long unavailableUntil;
+  private volatile boolean unavailable;
+
+  /**
+   * Creates a new verifier that contacts the session server configured on the proxy.
+   *
+   * @param server the proxy
+   */
+  public SessionVerifier(VelocityServer server) {
+    this(() -> server.getConfiguration().getSessionServerUrl(),
+        url -> server.getAsyncHttpClient().prepareGet(url)
+            .setRequestTimeout(server.getConfiguration().getSessionServerTimeout())
+            .execute()
+            .toCompletableFuture(),
+        System::nanoTime);
+  }
+
+  SessionVerifier(Supplier<String> sessionServerUrl,
+      Function<String, CompletableFuture<Response>> requester, LongSupplier nanoTime) {
+    this.sessionServerUrl = sessionServerUrl;
+    this.requester = requester;
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Checks whether the specified player has joined the server with the specified ID.
+   *
+   * @param username the username the player logged in with
+   * @param serverId the server ID derived from the shared secret and the proxy's public key
+   * @param ip the IP address the player must have joined from, or {@code null} to not check it
+   * @return the profile of the player, or {@code null} if the player has not joined. If the
+   *         session server could not be reached or returned an error, the future completes
+   *         exceptionally.
+   */
+  public CompletableFuture<@Nullable GameProfile> verify(String username, String serverId,
+      @Nullable String ip) {
+    CompletableFuture<@Nullable GameProfile> result = new CompletableFuture<>();
+    if (!tryAcquire()) {
+      rejected.increment();
+      result.completeExceptionally(UNAVAILABLE);
+      return result;
+    }
+
+    StringBuilder url = new StringBuilder(sessionServerUrl.get())
+        .append("?username=").append(urlFormParameterEscaper().escape(username))
+        .append("&serverId=").append(serverId);
+    if (ip != null) {
+      url.append("&ip=").append(urlFormParameterEscaper().escape(ip));
+    }
+
+    long start = System.nanoTime();
+    requester.apply(url.toString())
+        .whenComplete((response, ex) -> {
+          requestLatency.record(System.nanoTime() - start);
+          try {
+            if (ex != null) {
+              throw ex;
+            }
+            GameProfile profile = handleResponse(response);
+            recordSuccess();
+            result.complete(profile);
+          } catch (Throwable t) {
+            recordFailure();
+            result.completeExceptionally(t);
+          }
+        });
+    return result;
+  }
+
+  private static @Nullable GameProfile handleResponse(Response response) throws IOException {
+    switch (response.getStatusCode()) {
+      case 200:
+        return GENERAL_GSON.fromJson(response.getResponseBody(), GameProfile.class);
+      case 204:
+        // The player has not joined, most likely an offline-mode client.
+        return null;
+      default:
+        throw new IOException("Session server returned unexpected status code "
+            + response.getStatusCode());
+    }
+  }
+
+  private boolean tryAcquire() {
+    if (!unavailable) {
+      return true;
+    }
+    if (nanoTime.getAsLong() - unavailableUntil < 0) {
+      return false;
+    }
+    // Let a single request through to find out if the session server has recovered.
+    return probing.compareAndSet(false, true);
+  }
+
+  private void recordSuccess() {
+    consecutiveFailures.set(0);
+    if (unavailable) {
+      unavailable = false;
+      probing.set(false);
+      logger.info("The session server is available again");
+    }
+  }
+
+  private void recordFailure() {
+    failures.increment();
+    if (consecutiveFailures.incrementAndGet() >= FAILURE_THRESHOLD || probing.get()) {
+      unavailableUntil = nanoTime.getAsLong() + UNAVAILABLE_NANOS;
+      if (!unavailable) {
+        unavailable = true;
+        logger.warn("The session server failed {} requests in a row, logins will be rejected for "
+            + "the next {} seconds", consecutiveFailures.get(),
+            TimeUnit.NANOSECONDS.toSeconds(UNAVAILABLE_NANOS));
+      }
+      probing.set(false);
+    }
+  }
+
+  /**
+   * Returns whether {@code throwable} indicates that a verification was rejected because the
+   * session server is considered unavailable.
+   *
+   * @param throwable the exception a verification failed with
+   * @return whether the session server is unavailable
+   */
+  public static boolean isUnavailable(Throwable throwable) {
+    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+        ? throwable.getCause() : throwable;
+    return cause == UNAVAILABLE;
+  }
+
+  public LatencyHistogram getRequestLatency() {
+    return requestLatency;
+  }
+
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  public boolean isSessionServerUnavailable() {
+    return unavailable;
+  }
+}
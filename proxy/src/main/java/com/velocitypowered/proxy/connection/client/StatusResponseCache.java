@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Caches the encoded status responses sent to clients pinging the proxy, keyed by the protocol
+ * version of the client and the virtual host it connected to. A cached response is reused until
+ * it is older than the configured refresh interval or the number of players on the proxy
+ * changes, whichever comes first.
+ *
+ * <p>Responses served from the cache do not fire a
+ * {@link com.velocitypowered.api.event.proxy.ProxyPingEvent}. Plugins that customize the response
+ * per connection can prevent it from being cached with
+ * {@link com.velocitypowered.api.event.proxy.ProxyPingEvent#setCacheable(boolean)}.</p>
+ */
+public final class StatusResponseCache {
+
+  private static final int MAX_ENTRIES = 1024;
+
+  private final @Nullable Cache<Key, Entry> cache;
+
+  /**
+   * Creates a new status response cache.
+   *
+   * @param refreshMillis how long a response is cached for, in milliseconds, or {@code 0} to
+   *                      disable the cache
+   */
+  public StatusResponseCache(long refreshMillis) {
+    this.cache = refreshMillis <= 0 ? null : Caffeine.newBuilder()
+        .maximumSize(MAX_ENTRIES)
+        .expireAfterWrite(refreshMillis, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  public boolean isEnabled() {
+    return cache != null;
+  }
+
+  /**
+   * Returns the cached response for the specified protocol version and virtual host.
+   *
+   * @param protocol the protocol version of the pinging client
+   * @param virtualHost the lower-cased virtual host the client connected to
+   * @param playerCount the current number of players on the proxy
+   * @return the UTF-8 encoded status, or {@code null} if there is no valid cached response
+   */
+  byte @Nullable [] get(int protocol, String virtualHost, int playerCount) {
+    if (cache == null) {
+      return null;
+    }
+    Entry entry = cache.getIfPresent(new Key(protocol, virtualHost));
+    if (entry == null || entry.playerCount != playerCount) {
+      return null;
+    }
+    return entry.encodedStatus;
+  }
+
+  void put(int protocol, String virtualHost, int playerCount, byte[] encodedStatus) {
+    if (cache != null) {
+      cache.put(new Key(protocol, virtualHost), new Entry(playerCount, encodedStatus));
+    }
+  }
+
+  /**
+   * Discards every cached response.
+   */
+  public void invalidateAll() {
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+
+  private static final class Key {
+
+    private final int protocol;
+    private final String virtualHost;
+
+    private Key(int protocol, String virtualHost) {
+      this.protocol = protocol;
+      this.virtualHost = virtualHost;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return protocol == key.protocol && virtualHost.equals(key.virtualHost);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(protocol, virtualHost);
+    }
+  }
+
+  private static final class Entry {
+
+    private final int playerCount;
+    private final byte[] encodedStatus;
+
+    private Entry(int playerCount, byte[] encodedStatus) {
+      this.playerCount = playerCount;
+      this.encodedStatus = encodedStatus;
+    }
+  }
+}
@@ -39,6 +39,7 @@ import com.velocitypowered.proxy.server.VelocityRegisteredServer;
 import com.velocitypowered.proxy.util.except.QuietRuntimeException;
 import io.netty.buffer.ByteBuf;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -96,7 +97,7 @@ public class StatusSessionHandler implements MinecraftSessionHandler {
         continue;
       }
       VelocityRegisteredServer vrs = (VelocityRegisteredServer) rs.get();
-      pings.add(vrs.ping(connection.eventLoop(), pingingVersion));
+      pings.add(server.getPingPassthroughPoller().getPing(vrs, pingingVersion));
     }
     if (pings.isEmpty()) {
       return CompletableFuture.completedFuture(fallback);
@@ -167,15 +168,18 @@ public class StatusSessionHandler implements MinecraftSessionHandler {
     if (passthrough == PingPassthroughMode.DISABLED) {
       return CompletableFuture.completedFuture(constructLocalPing(shownVersion));
     } else {
-      String virtualHostStr = inbound.getVirtualHost().map(InetSocketAddress::getHostString)
-          .map(str -> str.toLowerCase(Locale.ROOT))
-          .orElse("");
       List<String> serversToTry = server.getConfiguration().getForcedHosts().getOrDefault(
-          virtualHostStr, server.getConfiguration().getAttemptConnectionOrder());
+          virtualHost(), server.getConfiguration().getAttemptConnectionOrder());
       return attemptPingPassthrough(configuration.getPingPassthrough(), serversToTry, shownVersion);
     }
   }
 
+  private String virtualHost() {
+    return inbound.getVirtualHost().map(InetSocketAddress::getHostString)
+        .map(str -> str.toLowerCase(Locale.ROOT))
+        .orElse("");
+  }
+
   @Override
   public boolean handle(LegacyPing packet) {
     if (this.pingReceived) {
@@ -207,6 +211,16 @@ public class StatusSessionHandler implements MinecraftSessionHandler {
     }
     this.pingReceived = true;
 
+    StatusResponseCache cache = server.getStatusResponseCache();
+    int protocol = connection.getProtocolVersion().getProtocol();
+    String virtualHost = virtualHost();
+    int playerCount = server.getPlayerCount();
+    byte[] cached = cache.get(protocol, virtualHost, playerCount);
+    if (cached != null) {
+      connection.write(new StatusResponse(cached));
+      return true;
+    }
+
     getInitialPing()
         .thenCompose(ping -> server.getEventManager().fire(new ProxyPingEvent(inbound, ping)))
         .thenAcceptAsync(
@@ -214,7 +228,13 @@ public class StatusSessionHandler implements MinecraftSessionHandler {
               StringBuilder json = new StringBuilder();
               VelocityServer.getPingGsonInstance(connection.getProtocolVersion())
                   .toJson(event.getPing(), json);
-              connection.write(new StatusResponse(json));
+              if (cache.isEnabled() && event.isCacheable()) {
+                byte[] encoded = json.toString().getBytes(StandardCharsets.UTF_8);
+                cache.put(protocol, virtualHost, playerCount, encoded);
+                connection.write(new StatusResponse(encoded));
+              } else {
+                connection.write(new StatusResponse(json));
+              }
             },
             connection.eventLoop())
         .exceptionally((ex) -> {
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.event;
+
+import com.velocitypowered.api.event.EventHandlerStatistics;
+import com.velocitypowered.proxy.util.LatencyHistogram;
+import java.time.Duration;
+
+/**
+ * Records the timing of the handlers a plugin registered for a single event type.
+ */
+final class VelocityEventHandlerStatistics implements EventHandlerStatistics {
+
+  private final String pluginId;
+  private final Class<?> eventType;
+  private final LatencyHistogram execution = new LatencyHistogram();
+  private final LatencyHistogram suspended = new LatencyHistogram();
+
+  VelocityEventHandlerStatistics(final String pluginId, final Class<?> eventType) {
+    this.pluginId = pluginId;
+    this.eventType = eventType;
+  }
+
+  void recordExecution(final long nanos) {
+    execution.record(nanos);
+  }
+
+  void recordSuspension(final long nanos) {
+    suspended.record(nanos);
+  }
+
+  @Override
+  public String getPluginId() {
+    return pluginId;
+  }
+
+  @Override
+  public Class<?> getEventType() {
+    return eventType;
+  }
+
+  @Override
+  public long getInvocationCount() {
+    return execution.getCount();
+  }
+
+  @Override
+  public Duration getTotalExecutionTime() {
+    return Duration.ofNanos(execution.getTotalNanos());
+  }
+
+  @Override
+  public Duration getExecutionTimePercentile(final double percentile) {
+    return Duration.ofNanos(execution.getPercentileNanos(percentile));
+  }
+
+  @Override
+  public long getSuspensionCount() {
+    return suspended.getCount();
+  }
+
+  @Override
+  public Duration getTotalSuspendedTime() {
+    return Duration.ofNanos(suspended.getTotalNanos());
+  }
+
+  @Override
+  public Duration getSuspendedTimePercentile(final double percentile) {
+    return Duration.ofNanos(suspended.getPercentileNanos(percentile));
+  }
+
+  @Override
+  public String toString() {
+    return "VelocityEventHandlerStatistics{"
+        + "pluginId='" + pluginId + '\''
+        + ", eventType=" + eventType.getName()
+        + ", invocations=" + getInvocationCount()
+        + '}';
+  }
+}
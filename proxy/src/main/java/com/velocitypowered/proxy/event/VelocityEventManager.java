@@ -21,15 +21,15 @@ import static java.util.Objects.requireNonNull;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.VerifyException;
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.velocitypowered.api.event.Continuation;
 import com.velocitypowered.api.event.EventHandler;
+import com.velocitypowered.api.event.EventHandlerStatistics;
 import com.velocitypowered.api.event.EventManager;
 import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.PostOrder;
@@ -39,6 +39,8 @@ import com.velocitypowered.api.plugin.PluginManager;
 import com.velocitypowered.proxy.event.UntargetedEventHandler.EventTaskHandler;
 import com.velocitypowered.proxy.event.UntargetedEventHandler.VoidHandler;
 import com.velocitypowered.proxy.event.UntargetedEventHandler.WithContinuationHandler;
+import com.velocitypowered.proxy.util.LatencyHistogram;
+import com.velocitypowered.proxy.util.concurrent.VirtualThreads;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
@@ -46,20 +48,26 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -89,27 +97,240 @@ public class VelocityEventManager implements EventManager {
   private final ExecutorService asyncExecutor;
   private final PluginManager pluginManager;
 
-  private final ListMultimap<Class<?>, HandlerRegistration> handlersByType = ArrayListMultimap.create();
-  private final LoadingCache<Class<?>, HandlersCache> handlersCache =
-      Caffeine.newBuilder().build(this::bakeHandlers);
+  /**
+   * Limits how many asynchronous handlers of each plugin run at once, keyed by plugin ID. This
+   * is only used in virtual thread mode.
+   */
+  private final @Nullable ConcurrentMap<String, Semaphore> pluginPermits;
+
+  /**
+   * The pools that run the asynchronous handlers of each plugin, keyed by plugin ID. This is only
+   * used without virtual threads. Each plugin gets its own bounded pool, so a plugin whose
+   * handlers block only holds up its own handlers.
+   */
+  private final @Nullable ConcurrentMap<String, ExecutorService> pluginExecutors;
+  private final int pluginConcurrencyLimit;
+
+  /**
+   * The IDs of the plugins whose permits are held by the handler running on this thread. While
+   * that handler waits for an event it fired, it gives up these permits, so that the handlers of
+   * its own plugin can run.
+   */
+  private final ThreadLocal<Set<String>> heldPermits =
+      ThreadLocal.withInitial(ImmutableSet::of);
+  private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+
+  /**
+   * The registered handlers. The table is never modified, registering or unregistering handlers
+   * replaces it with a new table under {@link #registrationLock}.
+   */
+  private volatile HandlerTable handlerTable = new HandlerTable(ImmutableListMultimap.of(), 0);
+  private final Object registrationLock = new Object();
+
+  private final Set<EventTypeHandlers> eventTypeHandlers = ConcurrentHashMap.newKeySet();
+  private final ClassValue<EventTypeHandlers> handlersByEventClass =
+      new ClassValue<EventTypeHandlers>() {
+        @Override
+        protected EventTypeHandlers computeValue(final Class<?> type) {
+          // If this races with another thread, the loser is registered too. It is never used,
+          // but it is still invalidated along with the winner, which is harmless.
+          final EventTypeHandlers handlers = new EventTypeHandlers(getEventTypes(type));
+          eventTypeHandlers.add(handlers);
+          return handlers;
+        }
+      };
 
   private final LoadingCache<Method, UntargetedEventHandler> untargetedMethodHandlers =
       Caffeine.newBuilder().weakValues().build(this::buildUntargetedMethodHandler);
 
-  private final ReadWriteLock lock = new ReentrantReadWriteLock();
-
   private final List<CustomHandlerAdapter<?>> handlerAdapters = new ArrayList<>();
 
+  private final ConcurrentMap<String, ConcurrentMap<Class<?>, VelocityEventHandlerStatistics>>
+      handlerStatistics = new ConcurrentHashMap<>();
+
   /**
    * Initializes the Velocity event manager.
    *
    * @param pluginManager a reference to the Velocity plugin manager
    */
   public VelocityEventManager(final PluginManager pluginManager) {
+    this(pluginManager, VirtualThreads.isEnabled(), VirtualThreads.isEnabled()
+        ? VirtualThreads.getConcurrencyLimit() : Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Initializes the Velocity event manager.
+   *
+   * @param pluginManager a reference to the Velocity plugin manager
+   * @param virtualThreads whether to run asynchronous handlers on virtual threads
+   * @param pluginConcurrencyLimit the maximum number of asynchronous handlers of a single plugin
+   *                               running at once
+   */
+  @VisibleForTesting
+  VelocityEventManager(final PluginManager pluginManager, final boolean virtualThreads,
+      final int pluginConcurrencyLimit) {
     this.pluginManager = pluginManager;
-    this.asyncExecutor = Executors
-        .newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
-            .setNameFormat("Velocity Async Event Executor - #%d").setDaemon(true).build());
+    if (virtualThreads) {
+      this.asyncExecutor = VirtualThreads.newExecutor();
+      this.pluginPermits = new ConcurrentHashMap<>();
+      this.pluginExecutors = null;
+    } else {
+      this.asyncExecutor = Executors
+          .newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+              new ThreadFactoryBuilder()
+                  .setNameFormat("Velocity Async Event Executor - #%d").setDaemon(true).build());
+      this.pluginPermits = null;
+      this.pluginExecutors = new ConcurrentHashMap<>();
+    }
+    this.pluginConcurrencyLimit = pluginConcurrencyLimit;
+  }
+
+  /**
+   * Returns the executor that runs the asynchronous handlers of the plugin of
+   * {@code registration}.
+   */
+  private Executor executorFor(final HandlerRegistration registration) {
+    if (pluginExecutors == null) {
+      return asyncExecutor;
+    }
+    return pluginExecutors.computeIfAbsent(registration.plugin.getDescription().getId(),
+        this::createPluginExecutor);
+  }
+
+  private ExecutorService createPluginExecutor(final String pluginId) {
+    final ThreadPoolExecutor pool = new ThreadPoolExecutor(pluginConcurrencyLimit,
+        pluginConcurrencyLimit, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        new ThreadFactoryBuilder()
+            .setNameFormat("Velocity Async Event Executor - " + pluginId.replace("%", "%%")
+                + " #%d")
+            .setDaemon(true)
+            .build());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  /**
+   * Returns whether the asynchronous handlers of {@code a} and {@code b} run on the same
+   * executor, so that one can be called right after the other on the same thread.
+   */
+  private boolean sameExecutor(final HandlerRegistration a, final HandlerRegistration b) {
+    return pluginExecutors == null
+        || a.plugin.getDescription().getId().equals(b.plugin.getDescription().getId());
+  }
+
+  private Semaphore permits(final String pluginId) {
+    return requireNonNull(pluginPermits)
+        .computeIfAbsent(pluginId, id -> new Semaphore(pluginConcurrencyLimit));
+  }
+
+  /**
+   * Waits until the plugin of {@code registration} may run another asynchronous handler, if
+   * handlers are limited per plugin. The permit is held by the current thread until
+   * {@link #releasePermit} is called.
+   *
+   * @return the permits held by the current thread before, or {@code null} if no permit is needed
+   */
+  private @Nullable Set<String> acquirePermit(final HandlerRegistration registration) {
+    if (pluginPermits == null) {
+      return null;
+    }
+    final String pluginId = registration.plugin.getDescription().getId();
+    final Set<String> previous = heldPermits.get();
+    if (previous.contains(pluginId)) {
+      // This thread already runs a handler of the plugin, so running another one on it doesn't
+      // raise the number of the plugin's handlers running at once.
+      return previous;
+    }
+    permits(pluginId).acquireUninterruptibly();
+    heldPermits.set(ImmutableSet.<String>builder()
+        .addAll(previous)
+        .add(pluginId)
+        .build());
+    return previous;
+  }
+
+  /**
+   * Releases a permit acquired by {@link #acquirePermit}.
+   *
+   * @param previous the value returned by {@link #acquirePermit}
+   */
+  private void releasePermit(final HandlerRegistration registration,
+      final @Nullable Set<String> previous) {
+    if (previous == null) {
+      return;
+    }
+    final String pluginId = registration.plugin.getDescription().getId();
+    if (!previous.contains(pluginId)) {
+      heldPermits.set(previous);
+      permits(pluginId).release();
+    }
+  }
+
+  /**
+   * Gives up the permits held by the current thread while it waits for {@code future}.
+   *
+   * @return the permits to take back once the wait is over
+   */
+  private Set<String> suspendPermits(final CompletableFuture<?> future) {
+    final Set<String> held = heldPermits.get();
+    if (held.isEmpty() || future.isDone()) {
+      return ImmutableSet.of();
+    }
+    for (final String pluginId : held) {
+      permits(pluginId).release();
+    }
+    return held;
+  }
+
+  private void resumePermits(final Set<String> held) {
+    for (final String pluginId : held) {
+      permits(pluginId).acquireUninterruptibly();
+    }
+  }
+
+  /**
+   * The future of a fired event. A handler that waits for the event gives up its permits while
+   * it waits, so that the handlers of the event can run even if they belong to the same plugin.
+   * Events that are fired without waiting for them don't get the permits of the handler that
+   * fired them.
+   */
+  private final class EventFuture<T> extends CompletableFuture<T> {
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+      final Set<String> held = suspendPermits(this);
+      try {
+        return super.get();
+      } finally {
+        resumePermits(held);
+      }
+    }
+
+    @Override
+    public T get(final long timeout, final TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+      final Set<String> held = suspendPermits(this);
+      try {
+        return super.get(timeout, unit);
+      } finally {
+        resumePermits(held);
+      }
+    }
+
+    @Override
+    public T join() {
+      final Set<String> held = suspendPermits(this);
+      try {
+        return super.join();
+      } finally {
+        resumePermits(held);
+      }
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+      return new EventFuture<>();
+    }
   }
 
   /**
@@ -135,6 +356,8 @@ public class VelocityEventManager implements EventManager {
     final short order;
     final Class<?> eventType;
     final EventHandler<Object> handler;
+    final AsyncType asyncType;
+    final VelocityEventHandlerStatistics statistics;
 
     /**
      * The instance of the {@link EventHandler} or the listener instance that was registered.
@@ -142,12 +365,15 @@ public class VelocityEventManager implements EventManager {
     final Object instance;
 
     public HandlerRegistration(final PluginContainer plugin, final short order,
-        final Class<?> eventType, final Object instance, final EventHandler<Object> handler) {
+        final Class<?> eventType, final Object instance, final EventHandler<Object> handler,
+        final AsyncType asyncType, final VelocityEventHandlerStatistics statistics) {
       this.plugin = plugin;
       this.order = order;
       this.eventType = eventType;
       this.instance = instance;
       this.handler = handler;
+      this.asyncType = asyncType;
+      this.statistics = statistics;
     }
   }
 
@@ -166,9 +392,53 @@ public class VelocityEventManager implements EventManager {
   static final class HandlersCache {
 
     final HandlerRegistration[] handlers;
+    final AsyncType asyncType;
+    final long version;
 
-    HandlersCache(final HandlerRegistration[] handlers) {
+    HandlersCache(final HandlerRegistration[] handlers, final AsyncType asyncType,
+        final long version) {
       this.handlers = handlers;
+      this.asyncType = asyncType;
+      this.version = version;
+    }
+  }
+
+  static final class HandlerTable {
+
+    final ImmutableListMultimap<Class<?>, HandlerRegistration> handlersByType;
+    final long version;
+
+    HandlerTable(final ImmutableListMultimap<Class<?>, HandlerRegistration> handlersByType,
+        final long version) {
+      this.handlersByType = handlersByType;
+      this.version = version;
+    }
+  }
+
+  /**
+   * The baked handlers for a single event class. The handlers are rebaked the first time they
+   * are needed after a handler for the event class or one of its supertypes changed.
+   */
+  final class EventTypeHandlers {
+
+    final Set<Class<?>> types;
+    volatile long requiredVersion;
+    volatile HandlersCache baked = new HandlersCache(new HandlerRegistration[0],
+        AsyncType.ALWAYS, -1);
+
+    EventTypeHandlers(final List<Class<?>> types) {
+      this.types = ImmutableSet.copyOf(types);
+    }
+
+    @Nullable HandlersCache get() {
+      HandlersCache baked = this.baked;
+      if (baked.version < requiredVersion) {
+        // If the table is replaced again while baking, the version check fails on the next call
+        // and the handlers are simply baked again.
+        baked = bakeHandlers(types, handlerTable);
+        this.baked = baked;
+      }
+      return baked.handlers.length == 0 ? null : baked;
     }
   }
 
@@ -178,25 +448,24 @@ public class VelocityEventManager implements EventManager {
         .collect(Collectors.toList());
   }
 
-  private @Nullable HandlersCache bakeHandlers(final Class<?> eventType) {
+  private static HandlersCache bakeHandlers(final Set<Class<?>> types,
+      final HandlerTable table) {
     final List<HandlerRegistration> baked = new ArrayList<>();
-    final List<Class<?>> types = getEventTypes(eventType);
-
-    lock.readLock().lock();
-    try {
-      for (final Class<?> type : types) {
-        baked.addAll(handlersByType.get(type));
-      }
-    } finally {
-      lock.readLock().unlock();
+    for (final Class<?> type : types) {
+      baked.addAll(table.handlersByType.get(type));
     }
+    baked.sort(handlerComparator);
 
-    if (baked.isEmpty()) {
-      return null;
+    // If any handler needs to be called asynchronously, the whole event is handled async.
+    AsyncType asyncType = AsyncType.NEVER;
+    for (final HandlerRegistration registration : baked) {
+      if (registration.asyncType == AsyncType.ALWAYS) {
+        asyncType = AsyncType.ALWAYS;
+        break;
+      }
     }
-
-    baked.sort(handlerComparator);
-    return new HandlersCache(baked.toArray(new HandlerRegistration[0]));
+    return new HandlersCache(baked.toArray(new HandlerRegistration[0]), asyncType,
+        table.version);
   }
 
   /**
@@ -235,15 +504,17 @@ public class VelocityEventManager implements EventManager {
     final Method method;
     final @Nullable Class<?> eventType;
     final short order;
+    final AsyncType asyncType;
     final @Nullable String errors;
     final @Nullable Class<?> continuationType;
 
     private MethodHandlerInfo(final Method method, final @Nullable Class<?> eventType,
-        final short order, final @Nullable String errors,
+        final short order, final AsyncType asyncType, final @Nullable String errors,
         final @Nullable Class<?> continuationType) {
       this.method = method;
       this.eventType = eventType;
       this.order = order;
+      this.asyncType = asyncType;
       this.errors = errors;
       this.continuationType = continuationType;
     }
@@ -315,8 +586,9 @@ public class VelocityEventManager implements EventManager {
         }
       }
       final short order = (short) subscribe.order().ordinal();
+      final AsyncType asyncType = subscribe.async() ? AsyncType.ALWAYS : AsyncType.NEVER;
       final String errorsJoined = errors.isEmpty() ? null : String.join(",", errors);
-      collected.put(key, new MethodHandlerInfo(method, eventType, order, errorsJoined,
+      collected.put(key, new MethodHandlerInfo(method, eventType, order, asyncType, errorsJoined,
           continuationType));
     }
     final Class<?> superclass = targetClass.getSuperclass();
@@ -326,19 +598,38 @@ public class VelocityEventManager implements EventManager {
   }
 
   private void register(final List<HandlerRegistration> registrations) {
-    lock.writeLock().lock();
-    try {
+    if (registrations.isEmpty()) {
+      return;
+    }
+    synchronized (registrationLock) {
+      final HandlerTable table = this.handlerTable;
+      final ImmutableListMultimap.Builder<Class<?>, HandlerRegistration> builder =
+          ImmutableListMultimap.builder();
+      builder.putAll(table.handlersByType);
       for (final HandlerRegistration registration : registrations) {
-        handlersByType.put(registration.eventType, registration);
+        builder.put(registration.eventType, registration);
+      }
+      replaceTable(new HandlerTable(builder.build(), table.version + 1), registrations);
+    }
+  }
+
+  /**
+   * Publishes a new handler table and invalidates the baked handlers of every event class that
+   * is affected by the changed registrations. Must be called with {@link #registrationLock} held.
+   */
+  private void replaceTable(final HandlerTable table,
+      final List<HandlerRegistration> changed) {
+    this.handlerTable = table;
+
+    final Set<Class<?>> changedTypes = new HashSet<>();
+    for (final HandlerRegistration registration : changed) {
+      changedTypes.add(registration.eventType);
+    }
+    for (final EventTypeHandlers handlers : eventTypeHandlers) {
+      if (!Collections.disjoint(handlers.types, changedTypes)) {
+        handlers.requiredVersion = table.version;
       }
-    } finally {
-      lock.writeLock().unlock();
     }
-    // Invalidate all the affected event subtypes
-    handlersCache.invalidateAll(registrations.stream()
-        .flatMap(registration -> getEventTypes(registration.eventType).stream())
-        .distinct()
-        .collect(Collectors.toList()));
   }
 
   @Override
@@ -360,7 +651,8 @@ public class VelocityEventManager implements EventManager {
     requireNonNull(handler, "handler");
 
     final HandlerRegistration registration = new HandlerRegistration(pluginContainer,
-        (short) order.ordinal(), eventClass, handler, (EventHandler<Object>) handler);
+        (short) order.ordinal(), eventClass, handler, (EventHandler<Object>) handler,
+        AsyncType.ALWAYS, statisticsFor(pluginContainer, eventClass));
     register(Collections.singletonList(registration));
   }
 
@@ -390,12 +682,30 @@ public class VelocityEventManager implements EventManager {
 
       final EventHandler<Object> handler = untargetedHandler.buildHandler(listener);
       registrations.add(new HandlerRegistration(pluginContainer, info.order,
-          info.eventType, listener, handler));
+          info.eventType, listener, handler, info.asyncType,
+          statisticsFor(pluginContainer, info.eventType)));
     }
 
     register(registrations);
   }
 
+  private VelocityEventHandlerStatistics statisticsFor(final PluginContainer plugin,
+      final Class<?> eventType) {
+    final String pluginId = plugin.getDescription().getId();
+    return handlerStatistics.computeIfAbsent(pluginId, id -> new ConcurrentHashMap<>())
+        .computeIfAbsent(eventType, type -> new VelocityEventHandlerStatistics(pluginId, type));
+  }
+
+  @Override
+  public Collection<EventHandlerStatistics> getHandlerStatistics() {
+    final List<EventHandlerStatistics> statistics = new ArrayList<>();
+    for (final Map<Class<?>, VelocityEventHandlerStatistics> byType
+        : handlerStatistics.values()) {
+      statistics.addAll(byType.values());
+    }
+    return Collections.unmodifiableList(statistics);
+  }
+
   @Override
   public void unregisterListeners(final Object plugin) {
     final PluginContainer pluginContainer = pluginManager.ensurePluginContainer(plugin);
@@ -416,32 +726,29 @@ public class VelocityEventManager implements EventManager {
   }
 
   private void unregisterIf(final Predicate<HandlerRegistration> predicate) {
-    final List<HandlerRegistration> removed = new ArrayList<>();
-    lock.writeLock().lock();
-    try {
-      final Iterator<HandlerRegistration> it = handlersByType.values().iterator();
-      while (it.hasNext()) {
-        final HandlerRegistration registration = it.next();
-        if (predicate.test(registration)) {
-          it.remove();
-          removed.add(registration);
+    synchronized (registrationLock) {
+      final HandlerTable table = this.handlerTable;
+      final List<HandlerRegistration> removed = new ArrayList<>();
+      final ImmutableListMultimap.Builder<Class<?>, HandlerRegistration> builder =
+          ImmutableListMultimap.builder();
+      for (final Map.Entry<Class<?>, HandlerRegistration> entry
+          : table.handlersByType.entries()) {
+        if (predicate.test(entry.getValue())) {
+          removed.add(entry.getValue());
+        } else {
+          builder.put(entry);
         }
       }
-    } finally {
-      lock.writeLock().unlock();
+      if (!removed.isEmpty()) {
+        replaceTable(new HandlerTable(builder.build(), table.version + 1), removed);
+      }
     }
-
-    // Invalidate all the affected event subtypes
-    handlersCache.invalidateAll(removed.stream()
-        .flatMap(registration -> getEventTypes(registration.eventType).stream())
-        .distinct()
-        .collect(Collectors.toList()));
   }
 
   @Override
   public void fireAndForget(final Object event) {
     requireNonNull(event, "event");
-    final HandlersCache handlersCache = this.handlersCache.get(event.getClass());
+    final HandlersCache handlersCache = handlersByEventClass.get(event.getClass()).get();
     if (handlersCache == null) {
       // Optimization: nobody's listening.
       return;
@@ -452,22 +759,49 @@ public class VelocityEventManager implements EventManager {
   @Override
   public <E> CompletableFuture<E> fire(final E event) {
     requireNonNull(event, "event");
-    final HandlersCache handlersCache = this.handlersCache.get(event.getClass());
+    final HandlersCache handlersCache = handlersByEventClass.get(event.getClass()).get();
     if (handlersCache == null) {
       // Optimization: nobody's listening.
       return CompletableFuture.completedFuture(event);
     }
-    final CompletableFuture<E> future = new CompletableFuture<>();
+    final CompletableFuture<E> future = new EventFuture<>();
+    final long start = System.nanoTime();
+    future.whenComplete((ignored, ex) -> dispatchLatency.record(System.nanoTime() - start));
     fire(future, event, handlersCache);
     return future;
   }
 
+  /**
+   * Returns the time taken to fire events that have handlers, from the call to
+   * {@link #fire(Object)} until every handler has completed.
+   *
+   * @return the event dispatch latency
+   */
+  public LatencyHistogram getDispatchLatency() {
+    return dispatchLatency;
+  }
+
   private <E> void fire(final @Nullable CompletableFuture<E> future,
       final E event, final HandlersCache handlersCache) {
+    if (handlersCache.asyncType == AsyncType.NEVER) {
+      // Every handler opted out of being called asynchronously, so call them on this thread.
+      // Handlers that return an EventTask requiring async are still moved to the async executor.
+      fire(future, event, 0, false, handlersCache.handlers);
+      return;
+    }
     // In Velocity 1.1.0, all events were fired asynchronously. As Velocity 3.0.0 is intended to be
-    // largely (albeit not 100%) compatible with 1.1.x, we also fire events async. This behavior
-    // will go away in Velocity Polymer.
-    asyncExecutor.execute(() -> fire(future, event, 0, true, handlersCache.handlers));
+    // largely (albeit not 100%) compatible with 1.1.x, we also fire events async by default. This
+    // behavior will go away in Velocity Polymer.
+    fireAsync(future, event, 0, handlersCache.handlers);
+  }
+
+  /**
+   * Calls the handlers from {@code offset} onwards, starting on the executor of the first one.
+   */
+  private <E> void fireAsync(final @Nullable CompletableFuture<E> future, final E event,
+      final int offset, final HandlerRegistration[] registrations) {
+    executorFor(registrations[offset]).execute(
+        () -> fire(future, event, offset, true, registrations));
   }
 
   private static final int TASK_STATE_DEFAULT = 0;
@@ -496,6 +830,13 @@ public class VelocityEventManager implements EventManager {
     private final @Nullable CompletableFuture<E> future;
     private final boolean currentlyAsync;
     private final E event;
+    private final long handlerNanos;
+
+    /**
+     * The time at which the task finished executing without resuming its continuation, or
+     * {@code 0} if it has not.
+     */
+    private volatile long suspendedAt;
 
     // This field is modified via a VarHandle, so this field is used and cannot be final.
     @SuppressWarnings({"UnusedVariable", "FieldMayBeFinal", "FieldCanBeLocal"})
@@ -511,18 +852,33 @@ public class VelocityEventManager implements EventManager {
         final @Nullable CompletableFuture<E> future,
         final E event,
         final int index,
-        final boolean currentlyAsync) {
+        final boolean currentlyAsync,
+        final long handlerNanos) {
       this.task = task;
       this.registrations = registrations;
       this.future = future;
       this.event = event;
       this.index = index;
       this.currentlyAsync = currentlyAsync;
+      this.handlerNanos = handlerNanos;
     }
 
     @Override
     public void run() {
-      if (execute()) {
+      final Set<String> previousPermits = acquirePermit(registrations[index]);
+      final boolean next;
+      try {
+        next = execute();
+      } finally {
+        releasePermit(registrations[index], previousPermits);
+      }
+      if (!next) {
+        return;
+      }
+      if (currentlyAsync && index + 1 < registrations.length
+          && !sameExecutor(registrations[index], registrations[index + 1])) {
+        fireAsync(future, event, index + 1, registrations);
+      } else {
         fire(future, event, index + 1, currentlyAsync, registrations);
       }
     }
@@ -533,6 +889,7 @@ public class VelocityEventManager implements EventManager {
      */
     boolean execute() {
       state = TASK_STATE_EXECUTING;
+      final long start = System.nanoTime();
       try {
         task.execute(this);
       } catch (final Throwable t) {
@@ -540,6 +897,10 @@ public class VelocityEventManager implements EventManager {
         // continuation was resumed before
         resume(t, false);
       }
+      final long end = System.nanoTime();
+      registrations[index].statistics.recordExecution(handlerNanos + (end - start));
+      // If the continuation is resumed from now on, the time until then is spent suspended.
+      suspendedAt = end;
       return !CONTINUATION_TASK_STATE.compareAndSet(
           this, TASK_STATE_EXECUTING, TASK_STATE_DEFAULT);
     }
@@ -562,6 +923,10 @@ public class VelocityEventManager implements EventManager {
       if (!changed) {
         return;
       }
+      final long suspendedAt = this.suspendedAt;
+      if (suspendedAt != 0) {
+        registration.statistics.recordSuspension(System.nanoTime() - suspendedAt);
+      }
       if (index + 1 == registrations.length) {
         // Optimization: don't schedule a task just to complete the future
         if (future != null) {
@@ -571,7 +936,7 @@ public class VelocityEventManager implements EventManager {
       }
       if (!CONTINUATION_TASK_STATE.compareAndSet(
           this, TASK_STATE_EXECUTING, TASK_STATE_CONTINUE_IMMEDIATELY)) {
-        asyncExecutor.execute(() -> fire(future, event, index + 1, true, registrations));
+        fireAsync(future, event, index + 1, registrations);
       }
     }
 
@@ -585,25 +950,38 @@ public class VelocityEventManager implements EventManager {
       final int offset, final boolean currentlyAsync, final HandlerRegistration[] registrations) {
     for (int i = offset; i < registrations.length; i++) {
       final HandlerRegistration registration = registrations[i];
+      if (currentlyAsync && i > offset && !sameExecutor(registrations[i - 1], registration)) {
+        // Move on to the pool of the next handler's plugin.
+        fireAsync(future, event, i, registrations);
+        return;
+      }
+      // Only asynchronous handlers may block waiting for their plugin's turn.
+      final Set<String> previousPermits = currentlyAsync ? acquirePermit(registration) : null;
+      final long start = System.nanoTime();
       try {
         final EventTask eventTask = registration.handler.executeAsync(event);
+        final long handlerNanos = System.nanoTime() - start;
         if (eventTask == null) {
+          registration.statistics.recordExecution(handlerNanos);
           continue;
         }
         final ContinuationTask<E> continuationTask = new ContinuationTask<>(eventTask,
-            registrations, future, event, i, currentlyAsync);
+            registrations, future, event, i, currentlyAsync, handlerNanos);
         if (currentlyAsync || !eventTask.requiresAsync()) {
           if (continuationTask.execute()) {
             continue;
           }
         } else {
-          asyncExecutor.execute(continuationTask);
+          executorFor(registration).execute(continuationTask);
         }
         // fire will continue in another thread once the async task is
         // executed and the continuation is resumed
         return;
       } catch (final Throwable t) {
+        registration.statistics.recordExecution(System.nanoTime() - start);
         logHandlerException(registration, t);
+      } finally {
+        releasePermit(registration, previousPermits);
       }
     }
     if (future != null) {
@@ -617,9 +995,29 @@ public class VelocityEventManager implements EventManager {
         registration.plugin.getDescription().getId(), t);
   }
 
+  /**
+   * Shuts down the executors that run asynchronous handlers, and waits up to 10 seconds for the
+   * handlers that are still running.
+   *
+   * @return whether every handler finished in time
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
   public boolean shutdown() throws InterruptedException {
-    asyncExecutor.shutdown();
-    return asyncExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    final List<ExecutorService> executors = new ArrayList<>();
+    executors.add(asyncExecutor);
+    if (pluginExecutors != null) {
+      executors.addAll(pluginExecutors.values());
+    }
+    for (final ExecutorService executor : executors) {
+      executor.shutdown();
+    }
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    boolean terminated = true;
+    for (final ExecutorService executor : executors) {
+      terminated &= executor.awaitTermination(Math.max(0, deadline - System.nanoTime()),
+          TimeUnit.NANOSECONDS);
+    }
+    return terminated;
   }
 
   public ExecutorService getAsyncExecutor() {
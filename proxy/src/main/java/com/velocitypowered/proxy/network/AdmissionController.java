@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network;
+
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.config.VelocityConfiguration;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Decides whether to accept a new client connection before anything is allocated for it. The
+ * controller caps the number of open connections, both overall and per IP address, and the
+ * number of connections that have sent a handshake but not finished logging in yet ("handshakes
+ * in flight"). Connections that have not sent a handshake yet don't count towards the handshake
+ * budget, so idle sockets can't use it up.
+ *
+ * <p>When the handshake budget runs out, the proxy is most likely being flooded. Much like a
+ * kernel falling back to SYN cookies, the controller then enters a backoff period during which
+ * each IP address may only have a single handshake in flight. Repeated floods lengthen the
+ * backoff period.</p>
+ */
+public final class AdmissionController {
+
+  private static final Logger logger = LogManager.getLogger(AdmissionController.class);
+  private static final AttributeKey<Ticket> TICKET = AttributeKey.valueOf("velocity-admission");
+
+  private static final long BASE_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final int MAX_BACKOFF_LEVEL = 5;
+
+  private final VelocityServer server;
+  private final LongSupplier nanoTime;
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger handshakes = new AtomicInteger();
+  private final ConcurrentMap<InetAddress, AddressCounts> addresses = new ConcurrentHashMap<>();
+
+  private final AtomicInteger backoffLevel = new AtomicInteger();
+  private volatile long backoffUntil;
+  private volatile boolean backoff;
+
+  private final LongAdder admitted = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  public AdmissionController(VelocityServer server) {
+    this(server, System::nanoTime);
+  }
+
+  AdmissionController(VelocityServer server, LongSupplier nanoTime) {
+    this.server = server;
+    this.nanoTime = nanoTime;
+    this.backoffUntil = nanoTime.getAsLong() - TimeUnit.DAYS.toNanos(1);
+  }
+
+  /**
+   * Attempts to admit a newly accepted connection. If the connection is admitted, it is counted
+   * until it is closed. Rejected connections must be closed by the caller.
+   *
+   * @param channel the accepted channel
+   * @return whether the connection is admitted
+   */
+  public boolean tryAdmit(Channel channel) {
+    VelocityConfiguration configuration = server.getConfiguration();
+    if (!tryIncrement(connections, configuration.getMaxConnections())) {
+      return reject();
+    }
+
+    // Behind a PROXY protocol load balancer, every connection comes from the balancer.
+    InetAddress address = null;
+    if (!configuration.isProxyProtocol() && channel.remoteAddress() instanceof InetSocketAddress) {
+      address = ((InetSocketAddress) channel.remoteAddress()).getAddress();
+      if (!tryAdmitAddress(address, configuration.getMaxConnectionsPerIp())) {
+        connections.decrementAndGet();
+        return reject();
+      }
+    }
+
+    Ticket ticket = new Ticket(address);
+    channel.attr(TICKET).set(ticket);
+    channel.closeFuture().addListener(future -> release(ticket));
+    admitted.increment();
+    return true;
+  }
+
+  /**
+   * Attempts to start the handshake of an admitted connection, once it has sent its handshake
+   * packet. If the handshake is refused, the caller must close the connection.
+   *
+   * @param channel the channel of the connection
+   * @return whether the handshake may go ahead
+   */
+  public boolean tryBeginHandshake(Channel channel) {
+    Ticket ticket = channel.attr(TICKET).get();
+    if (ticket == null || !ticket.handshaking.compareAndSet(false, true)) {
+      return true;
+    }
+    if (!tryIncrement(handshakes, server.getConfiguration().getMaxHandshakesInFlight())) {
+      ticket.handshaking.set(false);
+      enterBackoff();
+      return reject();
+    }
+    if (ticket.address != null && !tryBeginAddressHandshake(ticket.address, inBackoff())) {
+      ticket.handshaking.set(false);
+      handshakes.decrementAndGet();
+      return reject();
+    }
+    return true;
+  }
+
+  /**
+   * Marks the connection as having finished logging in, so that it no longer counts towards the
+   * handshakes in flight.
+   *
+   * @param channel the channel of the connection
+   */
+  public void handshakeCompleted(Channel channel) {
+    Ticket ticket = channel.attr(TICKET).get();
+    if (ticket != null) {
+      completeHandshake(ticket);
+    }
+  }
+
+  private void completeHandshake(Ticket ticket) {
+    if (ticket.handshaking.compareAndSet(true, false)) {
+      handshakes.decrementAndGet();
+      if (ticket.address != null) {
+        addresses.computeIfPresent(ticket.address, (k, counts) -> {
+          counts.handshakes--;
+          return counts;
+        });
+      }
+    }
+  }
+
+  private void release(Ticket ticket) {
+    completeHandshake(ticket);
+    connections.decrementAndGet();
+    if (ticket.address != null) {
+      addresses.computeIfPresent(ticket.address, (k, counts) -> {
+        counts.connections--;
+        return counts.connections == 0 ? null : counts;
+      });
+    }
+  }
+
+  private boolean tryAdmitAddress(InetAddress address, int maxPerAddress) {
+    boolean[] admitted = new boolean[1];
+    addresses.compute(address, (k, counts) -> {
+      if (counts == null) {
+        counts = new AddressCounts();
+      }
+      if (maxPerAddress > 0 && counts.connections >= maxPerAddress) {
+        return counts.connections == 0 ? null : counts;
+      }
+      counts.connections++;
+      admitted[0] = true;
+      return counts;
+    });
+    return admitted[0];
+  }
+
+  private boolean tryBeginAddressHandshake(InetAddress address, boolean backoff) {
+    boolean[] admitted = new boolean[1];
+    addresses.computeIfPresent(address, (k, counts) -> {
+      if (!backoff || counts.handshakes == 0) {
+        counts.handshakes++;
+        admitted[0] = true;
+      }
+      return counts;
+    });
+    return admitted[0];
+  }
+
+  private static boolean tryIncrement(AtomicInteger counter, int limit) {
+    if (limit <= 0) {
+      counter.incrementAndGet();
+      return true;
+    }
+    for (;;) {
+      int current = counter.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (counter.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private boolean inBackoff() {
+    if (backoff && nanoTime.getAsLong() - backoffUntil >= 0) {
+      backoff = false;
+      logger.info("Connection admission is back to normal");
+    }
+    return backoff;
+  }
+
+  private void enterBackoff() {
+    long now = nanoTime.getAsLong();
+    if (backoff && now - backoffUntil < 0) {
+      return;
+    }
+    synchronized (this) {
+      if (backoff && now - backoffUntil < 0) {
+        return;
+      }
+      // Floods that come back shortly after the previous backoff ended lengthen the backoff;
+      // otherwise start over.
+      int level = now - backoffUntil < (BASE_BACKOFF_NANOS << backoffLevel.get()) * 2
+          ? Math.min(backoffLevel.get() + 1, MAX_BACKOFF_LEVEL) : 0;
+      backoffLevel.set(level);
+      long duration = BASE_BACKOFF_NANOS << level;
+      backoffUntil = now + duration;
+      backoff = true;
+      logger.warn("Too many connections are logging in at once, allowing only one login per IP "
+          + "address for the next {} seconds", TimeUnit.NANOSECONDS.toSeconds(duration));
+    }
+  }
+
+  private boolean reject() {
+    rejected.increment();
+    return false;
+  }
+
+  public int getConnections() {
+    return connections.get();
+  }
+
+  public int getHandshakesInFlight() {
+    return handshakes.get();
+  }
+
+  public long getAdmitted() {
+    return admitted.sum();
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  public boolean isBackoffActive() {
+    return inBackoff();
+  }
+
+  private static final class Ticket {
+
+    private final @Nullable InetAddress address;
+    private final AtomicBoolean handshaking = new AtomicBoolean();
+
+    private Ticket(@Nullable InetAddress address) {
+      this.address = address;
+    }
+  }
+
+  /**
+   * Per-address counts, only ever modified from within {@link ConcurrentMap#compute}.
+   */
+  private static final class AddressCounts {
+
+    private int connections;
+    private int handshakes;
+  }
+}
@@ -26,20 +26,34 @@ import com.velocitypowered.api.event.proxy.ListenerCloseEvent;
 import com.velocitypowered.api.network.ListenerType;
 import com.velocitypowered.natives.util.Natives;
 import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.config.VelocityConfiguration;
 import com.velocitypowered.proxy.network.netty.SeparatePoolInetNameResolver;
 import com.velocitypowered.proxy.protocol.netty.GS4QueryHandler;
+import com.velocitypowered.proxy.telemetry.OpenMetricsHandler;
+import com.velocitypowered.proxy.util.concurrent.CpuAffinity;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.asynchttpclient.AsyncHttpClient;
@@ -58,6 +72,7 @@ public final class ConnectionManager {
   private final TransportType transportType;
   private final EventLoopGroup bossGroup;
   private final EventLoopGroup workerGroup;
+  private final EventLoopGroup auxiliaryGroup;
   private final VelocityServer server;
   // These are intentionally made public for plugins like ViaVersion, which inject their own
   // protocol logic into the proxy.
@@ -70,7 +85,8 @@ public final class ConnectionManager {
   private final AsyncHttpClient httpClient;
 
   /**
-   * Initalizes the {@code ConnectionManager}.
+   * Initalizes the {@code ConnectionManager}. The proxy configuration must already be loaded, as
+   * it determines the layout of the event loops.
    *
    * @param server a reference to the Velocity server
    */
@@ -78,15 +94,34 @@ public final class ConnectionManager {
     this.server = server;
     this.transportType = TransportType.bestType();
     this.bossGroup = this.transportType.createEventLoopGroup(TransportType.Type.BOSS);
-    this.workerGroup = this.transportType.createEventLoopGroup(TransportType.Type.WORKER);
+
+    VelocityConfiguration configuration = server.getConfiguration();
+    int[] workerCpus = CpuAffinity.parseCpuList(configuration.getWorkerCpus());
+    int workerThreads = configuration.getWorkerThreads();
+    if (workerThreads == 0) {
+      workerThreads = workerCpus.length;
+    }
+    this.workerGroup = this.transportType.createEventLoopGroup(TransportType.Type.WORKER,
+        workerThreads, workerCpus);
+    // Auxiliary traffic is bursty and latency-insensitive, so it gets its own (unpinned) threads
+    // to keep it from delaying game traffic on the worker threads.
+    int auxiliaryThreads = configuration.getAuxiliaryThreads();
+    this.auxiliaryGroup = auxiliaryThreads > 0
+        ? this.transportType.createEventLoopGroup(TransportType.Type.AUXILIARY, auxiliaryThreads,
+            new int[0])
+        : this.workerGroup;
+
     this.serverChannelInitializer = new ServerChannelInitializerHolder(
         new ServerChannelInitializer(this.server));
     this.backendChannelInitializer = new BackendChannelInitializerHolder(
         new BackendChannelInitializer(this.server));
     this.resolver = new SeparatePoolInetNameResolver(GlobalEventExecutor.INSTANCE);
     this.httpClient = asyncHttpClient(config()
-        .setEventLoopGroup(this.workerGroup)
+        .setEventLoopGroup(this.auxiliaryGroup)
         .setUserAgent(server.getVersion().getName() + "/" + server.getVersion().getVersion())
+        // Logins all go to the same session server, so keep connections to it open between them.
+        .setKeepAlive(true)
+        .setPooledConnectionIdleTimeout(60_000)
         .addRequestFilter(new RequestFilter() {
           @Override
           public <T> FilterContext<T> filter(FilterContext<T> ctx) {
@@ -100,20 +135,33 @@ public final class ConnectionManager {
         .build());
   }
 
+  /**
+   * Logs the transport, natives and event loop threads used for connections.
+   */
   public void logChannelInformation() {
     LOGGER.info("Connections will use {} channels, {} compression, {} ciphers", this.transportType,
         Natives.compress.getLoadedVariant(), Natives.cipher.getLoadedVariant());
+    LOGGER.info("Using {} worker threads and {} auxiliary threads", countLoops(this.workerGroup),
+        this.auxiliaryGroup == this.workerGroup ? 0 : countLoops(this.auxiliaryGroup));
+  }
+
+  private static int countLoops(EventLoopGroup group) {
+    int loops = 0;
+    for (EventExecutor ignored : group) {
+      loops++;
+    }
+    return loops;
   }
 
   /**
    * Binds a Minecraft listener to the specified {@code address}.
    *
    * @param address the address to bind to
+   * @param listenerSockets the number of listener sockets the configuration asks for
    */
-  public void bind(final InetSocketAddress address) {
+  public void bind(final InetSocketAddress address, final int listenerSockets) {
     final ServerBootstrap bootstrap = new ServerBootstrap()
         .channelFactory(this.transportType.serverSocketChannelFactory)
-        .group(this.bossGroup, this.workerGroup)
         .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, SERVER_WRITE_MARK)
         .childHandler(this.serverChannelInitializer.get())
         .childOption(ChannelOption.TCP_NODELAY, true)
@@ -124,20 +172,113 @@ public final class ConnectionManager {
       bootstrap.option(EpollChannelOption.TCP_FASTOPEN, 3);
     }
 
-    bootstrap.bind()
-        .addListener((ChannelFutureListener) future -> {
-          final Channel channel = future.channel();
-          if (future.isSuccess()) {
-            this.endpoints.put(address, new Endpoint(channel, ListenerType.MINECRAFT));
-            LOGGER.info("Listening on {}", channel.localAddress());
+    int sockets = listenerSockets(address, listenerSockets);
+    if (sockets == 1) {
+      bootstrap.group(this.bossGroup, this.workerGroup);
+      bootstrap.bind()
+          .addListener((ChannelFutureListener) future -> {
+            final Channel channel = future.channel();
+            if (future.isSuccess()) {
+              this.endpoints.put(address, new Endpoint(channel, ListenerType.MINECRAFT));
+              LOGGER.info("Listening on {}", channel.localAddress());
 
-            // Fire the proxy bound event after the socket is bound
-            server.getEventManager().fireAndForget(
-                new ListenerBoundEvent(address, ListenerType.MINECRAFT));
-          } else {
-            LOGGER.error("Can't bind to {}", address, future.cause());
-          }
-        });
+              // Fire the proxy bound event after the socket is bound
+              server.getEventManager().fireAndForget(
+                  new ListenerBoundEvent(address, ListenerType.MINECRAFT));
+            } else {
+              LOGGER.error("Can't bind to {}", address, future.cause());
+            }
+          });
+      return;
+    }
+
+    List<ChannelFuture> binds = bindReusePort(bootstrap, this.bossGroup, this.workerGroup,
+        sockets);
+    AtomicInteger remaining = new AtomicInteger(sockets);
+    for (ChannelFuture bind : binds) {
+      bind.addListener((ChannelFutureListener) future -> {
+        if (remaining.decrementAndGet() == 0) {
+          completeReusePortBind(address, binds);
+        }
+      });
+    }
+  }
+
+  /**
+   * Binds {@code sockets} sockets with {@code SO_REUSEPORT}, each on its own event loop of
+   * {@code bossGroup}, so each one accepts connections on its own thread and the kernel balances
+   * new connections between them.
+   *
+   * @param bootstrap the bootstrap to bind with
+   * @param bossGroup the group whose event loops accept connections
+   * @param workerGroup the group that handles accepted connections
+   * @param sockets the number of sockets to bind
+   * @return the futures of each bind
+   */
+  static List<ChannelFuture> bindReusePort(ServerBootstrap bootstrap, EventLoopGroup bossGroup,
+      EventLoopGroup workerGroup, int sockets) {
+    bootstrap.option(UnixChannelOption.SO_REUSEPORT, true);
+    List<ChannelFuture> binds = new ArrayList<>(sockets);
+    Iterator<EventExecutor> bossLoops = bossGroup.iterator();
+    for (int i = 0; i < sockets; i++) {
+      binds.add(bootstrap.clone()
+          .group((EventLoop) bossLoops.next(), workerGroup)
+          .bind());
+    }
+    return binds;
+  }
+
+  private void completeReusePortBind(InetSocketAddress address, List<ChannelFuture> binds) {
+    List<Channel> channels = new ArrayList<>(binds.size());
+    Throwable cause = null;
+    for (ChannelFuture bind : binds) {
+      if (bind.isSuccess()) {
+        channels.add(bind.channel());
+      } else if (cause == null) {
+        cause = bind.cause();
+      }
+    }
+
+    if (cause != null) {
+      // The listener is only useful as a whole, so don't leave some of its sockets open.
+      for (Channel channel : channels) {
+        channel.close();
+      }
+      LOGGER.error("Can't bind to {}", address, cause);
+      return;
+    }
+
+    this.endpoints.put(address, new Endpoint(channels, ListenerType.MINECRAFT));
+    LOGGER.info("Listening on {} with {} sockets", channels.get(0).localAddress(),
+        channels.size());
+
+    // Fire the proxy bound event after the socket is bound
+    server.getEventManager().fireAndForget(
+        new ListenerBoundEvent(address, ListenerType.MINECRAFT));
+  }
+
+  private int listenerSockets(InetSocketAddress address, int sockets) {
+    if (sockets <= 1) {
+      return 1;
+    }
+    // The io_uring transport does not support SO_REUSEPORT yet.
+    if (transportType != TransportType.EPOLL) {
+      LOGGER.warn("Multiple listener sockets require the epoll transport, binding a single "
+          + "socket to {}", address);
+      return 1;
+    }
+    if (address.getPort() == 0) {
+      // Each socket would be bound to a different ephemeral port.
+      return 1;
+    }
+
+    int bossLoops = countLoops(this.bossGroup);
+    if (sockets > bossLoops) {
+      LOGGER.warn("Binding {} listener sockets to {} instead of {}, one for each boss thread",
+          bossLoops, address, sockets);
+      return bossLoops;
+    }
+    return sockets;
   }
 
   /**
@@ -150,7 +291,7 @@ public final class ConnectionManager {
     InetSocketAddress address = new InetSocketAddress(hostname, port);
     final Bootstrap bootstrap = new Bootstrap()
         .channelFactory(this.transportType.datagramChannelFactory)
-        .group(this.workerGroup)
+        .group(this.auxiliaryGroup)
         .handler(new GS4QueryHandler(this.server))
         .localAddress(address);
     bootstrap.bind()
@@ -169,6 +310,43 @@ public final class ConnectionManager {
         });
   }
 
+  /**
+   * Binds an HTTP listener serving the proxy's metrics in the OpenMetrics format to the specified
+   * {@code address}.
+   *
+   * @param address the address to bind to
+   */
+  public void metricsBind(final InetSocketAddress address) {
+    final OpenMetricsHandler handler = new OpenMetricsHandler(
+        this.server.getOpenMetricsExporter());
+    final ServerBootstrap bootstrap = new ServerBootstrap()
+        .channelFactory(this.transportType.serverSocketChannelFactory)
+        .group(this.bossGroup, this.workerGroup)
+        .childHandler(new ChannelInitializer<Channel>() {
+          @Override
+          protected void initChannel(Channel ch) {
+            ch.pipeline()
+                .addLast("http-codec", new HttpServerCodec())
+                .addLast("http-aggregator", new HttpObjectAggregator(8192))
+                .addLast("metrics", handler);
+          }
+        })
+        .localAddress(address);
+    bootstrap.bind()
+        .addListener((ChannelFutureListener) future -> {
+          final Channel channel = future.channel();
+          if (future.isSuccess()) {
+            this.endpoints.put(address, new Endpoint(channel, ListenerType.METRICS));
+            LOGGER.info("Serving metrics on {}", channel.localAddress());
+
+            server.getEventManager().fireAndForget(
+                new ListenerBoundEvent(address, ListenerType.METRICS));
+          } else {
+            LOGGER.error("Can't bind to {}", address, future.cause());
+          }
+        });
+  }
+
   /**
    * Creates a TCP {@link Bootstrap} using Velocity's event loops.
    *
@@ -206,7 +384,9 @@ public final class ConnectionManager {
 
     Preconditions.checkState(serverChannel != null, "Endpoint %s not registered", oldBind);
     LOGGER.info("Closing endpoint {}", serverChannel.localAddress());
-    serverChannel.close().syncUninterruptibly();
+    for (Channel channel : endpoint.getChannels()) {
+      channel.close().syncUninterruptibly();
+    }
   }
 
   /**
@@ -223,7 +403,7 @@ public final class ConnectionManager {
 
       try {
         LOGGER.info("Closing endpoint {}", address);
-        endpoint.getChannel().close().sync();
+        endpoint.close();
       } catch (final InterruptedException e) {
         LOGGER.info("Interrupted whilst closing endpoint", e);
         Thread.currentThread().interrupt();
@@ -237,6 +417,17 @@ public final class ConnectionManager {
     return bossGroup;
   }
 
+  /**
+   * Returns the event loop group used for auxiliary traffic, such as session server requests,
+   * GS4 queries and server list pings to backend servers. This is the worker group if no
+   * auxiliary threads are configured.
+   *
+   * @return the auxiliary event loop group
+   */
+  public EventLoopGroup getAuxiliaryGroup() {
+    return auxiliaryGroup;
+  }
+
   public ServerChannelInitializerHolder getServerChannelInitializer() {
     return this.serverChannelInitializer;
   }
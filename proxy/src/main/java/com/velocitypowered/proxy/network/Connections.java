@@ -31,6 +31,7 @@ public class Connections {
   public static final String LEGACY_PING_ENCODER = "legacy-ping-encoder";
   public static final String MINECRAFT_DECODER = "minecraft-decoder";
   public static final String MINECRAFT_ENCODER = "minecraft-encoder";
+  public static final String PRE_ENCODED_PACKET_ENCODER = "pre-encoded-packet-encoder";
   public static final String READ_TIMEOUT = "read-timeout";
 
   private Connections() {
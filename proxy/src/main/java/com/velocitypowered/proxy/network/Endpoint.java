@@ -18,26 +18,63 @@
 package com.velocitypowered.proxy.network;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.velocitypowered.api.network.ListenerType;
 import io.netty.channel.Channel;
+import java.util.List;
 
 /**
- * Represents a listener endpoint.
+ * Represents a listener endpoint. An endpoint is usually backed by a single channel, but may
+ * consist of several channels bound to the same address with {@code SO_REUSEPORT}.
  */
 public final class Endpoint {
-  private final Channel channel;
+  private final List<Channel> channels;
   private final ListenerType type;
 
   public Endpoint(Channel channel, ListenerType type) {
-    this.channel = Preconditions.checkNotNull(channel, "channel");
+    this(ImmutableList.of(channel), type);
+  }
+
+  /**
+   * Creates an endpoint backed by several channels bound to the same address.
+   *
+   * @param channels the channels of this endpoint
+   * @param type the type of listener
+   */
+  public Endpoint(List<Channel> channels, ListenerType type) {
+    Preconditions.checkArgument(!channels.isEmpty(), "channels");
+    this.channels = ImmutableList.copyOf(channels);
     this.type = Preconditions.checkNotNull(type, "type");
   }
 
+  /**
+   * Returns the first channel of this endpoint.
+   *
+   * @return the first channel
+   */
   public Channel getChannel() {
-    return channel;
+    return channels.get(0);
+  }
+
+  public List<Channel> getChannels() {
+    return channels;
   }
 
   public ListenerType getType() {
     return type;
   }
+
+  /**
+   * Closes every channel of this endpoint and waits for them to close.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void close() throws InterruptedException {
+    for (Channel channel : channels) {
+      channel.close();
+    }
+    for (Channel channel : channels) {
+      channel.closeFuture().sync();
+    }
+  }
 }
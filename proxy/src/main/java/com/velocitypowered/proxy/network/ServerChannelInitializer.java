@@ -23,6 +23,7 @@ import static com.velocitypowered.proxy.network.Connections.LEGACY_PING_DECODER;
 import static com.velocitypowered.proxy.network.Connections.LEGACY_PING_ENCODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_DECODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_ENCODER;
+import static com.velocitypowered.proxy.network.Connections.PRE_ENCODED_PACKET_ENCODER;
 import static com.velocitypowered.proxy.network.Connections.READ_TIMEOUT;
 
 import com.velocitypowered.proxy.VelocityServer;
@@ -35,10 +36,13 @@ import com.velocitypowered.proxy.protocol.netty.MinecraftDecoder;
 import com.velocitypowered.proxy.protocol.netty.MinecraftEncoder;
 import com.velocitypowered.proxy.protocol.netty.MinecraftVarintFrameDecoder;
 import com.velocitypowered.proxy.protocol.netty.MinecraftVarintLengthEncoder;
+import com.velocitypowered.proxy.protocol.netty.PreEncodedPacketEncoder;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.handler.codec.haproxy.HAProxyMessageDecoder;
 import io.netty.handler.timeout.ReadTimeoutHandler;
+import java.net.InetSocketAddress;
 import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("WeakerAccess")
@@ -52,6 +56,21 @@ public class ServerChannelInitializer extends ChannelInitializer<Channel> {
 
   @Override
   protected void initChannel(final Channel ch) {
+    // Turn away connections over the rate limit before allocating anything for them. Behind a
+    // PROXY protocol load balancer the remote address is the balancer's, so the limit would apply
+    // to every player at once; the login rate limit still applies once the real address is known.
+    if (!this.server.getConfiguration().isProxyProtocol()
+        && ch.remoteAddress() instanceof InetSocketAddress
+        && !this.server.getConnectionLimiter()
+            .attempt(((InetSocketAddress) ch.remoteAddress()).getAddress())) {
+      reject(ch);
+      return;
+    }
+    if (!this.server.getAdmissionController().tryAdmit(ch)) {
+      reject(ch);
+      return;
+    }
+
     ch.pipeline()
         .addLast(LEGACY_PING_DECODER, new LegacyPingDecoder())
         .addLast(FRAME_DECODER, new MinecraftVarintFrameDecoder())
@@ -59,6 +78,8 @@ public class ServerChannelInitializer extends ChannelInitializer<Channel> {
             new ReadTimeoutHandler(this.server.getConfiguration().getReadTimeout(),
                 TimeUnit.MILLISECONDS))
         .addLast(LEGACY_PING_ENCODER, LegacyPingEncoder.INSTANCE)
+        .addLast(PRE_ENCODED_PACKET_ENCODER,
+            new PreEncodedPacketEncoder(ProtocolUtils.Direction.CLIENTBOUND))
         .addLast(FRAME_ENCODER, MinecraftVarintLengthEncoder.INSTANCE)
         .addLast(MINECRAFT_DECODER, new MinecraftDecoder(ProtocolUtils.Direction.SERVERBOUND))
         .addLast(MINECRAFT_ENCODER, new MinecraftEncoder(ProtocolUtils.Direction.CLIENTBOUND));
@@ -71,4 +92,11 @@ public class ServerChannelInitializer extends ChannelInitializer<Channel> {
       ch.pipeline().addFirst(new HAProxyMessageDecoder());
     }
   }
+
+  private static void reject(Channel ch) {
+    // Reset the connection instead of going through the TCP close handshake, so rejected
+    // connections do not linger in TIME_WAIT.
+    ch.config().setOption(ChannelOption.SO_LINGER, 0);
+    ch.close();
+  }
 }
@@ -32,30 +32,44 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.BiFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 enum TransportType {
   NIO("NIO", NioServerSocketChannel::new,
       NioSocketChannel::new,
       NioDatagramChannel::new,
-      (name, type) -> new NioEventLoopGroup(0, createThreadFactory(name, type))),
+      (threads, factory) -> new NioEventLoopGroup(threads, factory)),
   EPOLL("epoll", EpollServerSocketChannel::new,
       EpollSocketChannel::new,
       EpollDatagramChannel::new,
-      (name, type) -> new EpollEventLoopGroup(0, createThreadFactory(name, type)));
+      (threads, factory) -> new EpollEventLoopGroup(threads, factory)),
+  IO_URING("io_uring", IOUringServerSocketChannel::new,
+      IOUringSocketChannel::new,
+      IOUringDatagramChannel::new,
+      (threads, factory) -> new IOUringEventLoopGroup(threads, factory));
+
+  private static final Logger logger = LogManager.getLogger(TransportType.class);
 
   final String name;
   final ChannelFactory<? extends ServerSocketChannel> serverSocketChannelFactory;
   final ChannelFactory<? extends SocketChannel> socketChannelFactory;
   final ChannelFactory<? extends DatagramChannel> datagramChannelFactory;
-  final BiFunction<String, Type, EventLoopGroup> eventLoopGroupFactory;
+  final BiFunction<Integer, ThreadFactory, EventLoopGroup> eventLoopGroupFactory;
 
   TransportType(final String name,
       final ChannelFactory<? extends ServerSocketChannel> serverSocketChannelFactory,
       final ChannelFactory<? extends SocketChannel> socketChannelFactory,
       final ChannelFactory<? extends DatagramChannel> datagramChannelFactory,
-      final BiFunction<String, Type, EventLoopGroup> eventLoopGroupFactory) {
+      final BiFunction<Integer, ThreadFactory, EventLoopGroup> eventLoopGroupFactory) {
     this.name = name;
     this.serverSocketChannelFactory = serverSocketChannelFactory;
     this.socketChannelFactory = socketChannelFactory;
@@ -69,14 +83,50 @@ enum TransportType {
   }
 
   public EventLoopGroup createEventLoopGroup(final Type type) {
-    return this.eventLoopGroupFactory.apply(this.name, type);
+    return createEventLoopGroup(type, 0, new int[0]);
+  }
+
+  /**
+   * Creates an event loop group with the specified number of threads, optionally pinned to CPUs.
+   *
+   * @param type the type of event loop group
+   * @param threads the number of threads, or {@code 0} for Netty's default
+   * @param cpus the CPUs to pin the threads to, or an empty array to not pin them
+   * @return the new event loop group
+   */
+  public EventLoopGroup createEventLoopGroup(final Type type, final int threads,
+      final int[] cpus) {
+    return this.eventLoopGroupFactory.apply(threads, createThreadFactory(this.name, type, cpus));
   }
 
-  private static ThreadFactory createThreadFactory(final String name, final Type type) {
-    return new VelocityNettyThreadFactory("Netty " + name + ' ' + type.toString() + " #%d");
+  private static ThreadFactory createThreadFactory(final String name, final Type type,
+      final int[] cpus) {
+    return new VelocityNettyThreadFactory("Netty " + name + ' ' + type.toString() + " #%d",
+        cpus);
   }
 
+  /**
+   * Returns the best transport available on this system. The transport can be forced with the
+   * {@code velocity.transport} system property ({@code nio}, {@code epoll} or {@code io_uring}).
+   * The io_uring transport is still incubating and only ships for Linux on x86_64, so it is never
+   * picked unless requested.
+   *
+   * @return the transport to use
+   */
   public static TransportType bestType() {
+    String forced = System.getProperty("velocity.transport");
+    if (forced != null) {
+      TransportType type = byName(forced);
+      if (type == null) {
+        logger.warn("Unknown transport {} requested, picking one automatically", forced);
+      } else if (!type.isAvailable()) {
+        logger.warn("The {} transport was requested, but it is not available on this system",
+            type);
+      } else {
+        return type;
+      }
+    }
+
     if (Boolean.getBoolean("velocity.disable-native-transport")) {
       return NIO;
     }
@@ -88,9 +138,30 @@ enum TransportType {
     }
   }
 
+  private static @Nullable TransportType byName(String name) {
+    for (TransportType type : values()) {
+      if (type.name.equalsIgnoreCase(name)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  boolean isAvailable() {
+    switch (this) {
+      case IO_URING:
+        return IOUring.isAvailable();
+      case EPOLL:
+        return Epoll.isAvailable();
+      default:
+        return true;
+    }
+  }
+
   public enum Type {
     BOSS("Boss"),
-    WORKER("Worker");
+    WORKER("Worker"),
+    AUXILIARY("Auxiliary");
 
     private final String name;
 
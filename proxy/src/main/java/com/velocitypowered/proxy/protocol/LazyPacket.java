@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A packet that is decoded only once its contents are first accessed. A lazy packet keeps a copy
+ * of the bytes it was received as, and until it is modified, it is encoded by writing those
+ * bytes back out. Packets that the proxy only forwards or inspects are therefore never encoded
+ * again, and packets it only forwards are never decoded at all.
+ *
+ * <p>Subclasses implement {@link #decodeContents} and {@link #encodeContents} instead of
+ * {@link #decode} and {@link #encode}. Every getter must call {@link #ensureDecoded()} before
+ * reading a field, and every setter must call {@link #markModified()} before writing one. Like
+ * other packets, lazy packets are not thread-safe.</p>
+ */
+public abstract class LazyPacket implements MinecraftPacket {
+
+  private byte @Nullable [] original;
+  private ProtocolUtils.@Nullable Direction originalDirection;
+  private @Nullable ProtocolVersion originalVersion;
+  private boolean decoded = true;
+
+  @Override
+  public final void decode(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion protocolVersion) {
+    this.original = ByteBufUtil.getBytes(buf);
+    buf.skipBytes(buf.readableBytes());
+    this.originalDirection = direction;
+    this.originalVersion = protocolVersion;
+    this.decoded = false;
+  }
+
+  @Override
+  public final void encode(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion protocolVersion) {
+    if (original != null && direction == originalDirection
+        && protocolVersion == originalVersion) {
+      buf.writeBytes(original);
+    } else {
+      ensureDecoded();
+      encodeContents(buf, direction, protocolVersion);
+    }
+  }
+
+  /**
+   * Decodes the contents of this packet from the bytes it was received as, if that hasn't been
+   * done yet. A packet that fails to decode is left undecoded, so every later access fails too.
+   *
+   * @throws CorruptedFrameException if the packet could not be decoded
+   */
+  protected final void ensureDecoded() {
+    if (decoded) {
+      return;
+    }
+
+    assert original != null && originalDirection != null && originalVersion != null;
+    ByteBuf buf = Unpooled.wrappedBuffer(original);
+    try {
+      decodeContents(buf, originalDirection, originalVersion);
+    } catch (Exception e) {
+      throw new CorruptedFrameException("Error decoding " + getClass(), e);
+    }
+    if (buf.isReadable()) {
+      throw new CorruptedFrameException("Packet sent for " + getClass() + " was too big "
+          + "(expected " + buf.readerIndex() + " bytes, got " + buf.writerIndex() + " bytes)");
+    }
+    decoded = true;
+  }
+
+  /**
+   * Decodes this packet if needed and discards the bytes it was received as, as they no longer
+   * match its contents.
+   */
+  protected final void markModified() {
+    ensureDecoded();
+    this.original = null;
+  }
+
+  /**
+   * Returns whether this packet will be encoded by writing out the bytes it was received as.
+   *
+   * @return whether the packet is unmodified since it was received
+   */
+  public boolean isUnmodified() {
+    return original != null;
+  }
+
+  protected abstract void decodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion protocolVersion);
+
+  protected abstract void encodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion protocolVersion);
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol;
+
+import com.google.common.base.Preconditions;
+import com.velocitypowered.api.network.ProtocolVersion;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link MinecraftPacket} that is sent to many connections at once. The packet is encoded,
+ * compressed and framed only once for every distinct combination of protocol version and
+ * compression threshold, and the resulting frame is shared by every connection that needs it.
+ * Only the cipher stage of the pipeline is applied per connection.
+ *
+ * <p>Pre-encoded packets are always encoded using the {@link StateRegistry#PLAY} registry.</p>
+ *
+ * <p>Each write to a connection consumes one reference, so callers should
+ * {@link #retain()} the packet once per recipient and {@link #release()} their own reference
+ * once they are done sending it. When the last reference is released, all cached frames and
+ * the wrapped packet are released.</p>
+ */
+public final class PreEncodedPacket extends AbstractReferenceCounted {
+
+  private final MinecraftPacket packet;
+  private final LongObjectMap<ByteBuf> frames = new LongObjectHashMap<>(4);
+
+  public PreEncodedPacket(MinecraftPacket packet) {
+    this.packet = Preconditions.checkNotNull(packet, "packet");
+  }
+
+  public MinecraftPacket getPacket() {
+    return packet;
+  }
+
+  /**
+   * Returns the cached frame for the given protocol version and compression threshold, encoding
+   * it with {@code encoder} if it has not been encoded yet. The returned buffer is owned by this
+   * packet and must not be modified or released by the caller.
+   *
+   * @param version the protocol version of the connection
+   * @param threshold the compression threshold of the connection, or {@code -1} if compression
+   *                  is disabled
+   * @param encoder produces the complete (length-prefixed and, if applicable, compressed) frame
+   * @return the cached frame
+   * @throws Exception if the frame could not be encoded
+   */
+  public synchronized ByteBuf getOrEncode(ProtocolVersion version, int threshold,
+      Callable<ByteBuf> encoder) throws Exception {
+    Preconditions.checkState(refCnt() > 0, "Pre-encoded packet already released");
+    long key = ((long) version.getProtocol() << 32) | (threshold & 0xFFFFFFFFL);
+    ByteBuf frame = frames.get(key);
+    if (frame == null) {
+      frame = encoder.call();
+      frames.put(key, frame);
+    }
+    return frame;
+  }
+
+  @Override
+  protected synchronized void deallocate() {
+    for (ByteBuf frame : frames.values()) {
+      frame.release();
+    }
+    frames.clear();
+    ReferenceCountUtil.release(packet);
+  }
+
+  @Override
+  public PreEncodedPacket retain() {
+    super.retain();
+    return this;
+  }
+
+  @Override
+  public PreEncodedPacket touch(Object hint) {
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "PreEncodedPacket{"
+        + "packet=" + packet
+        + '}';
+  }
+}
@@ -419,6 +419,17 @@ public enum StateRegistry {
         return supplier.get();
       }
 
+      /**
+       * Determines whether a packet with the specified {@code id} can be created by this
+       * registry.
+       *
+       * @param id the packet ID
+       * @return {@code true} if the ID is registered for decoding
+       */
+      public boolean containsPacket(final int id) {
+        return this.packetIdToSupplier.containsKey(id);
+      }
+
       /**
        * Attempts to look up the packet ID for an {@code packet}.
        *
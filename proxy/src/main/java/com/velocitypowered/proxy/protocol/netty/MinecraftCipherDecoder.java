@@ -20,6 +20,7 @@ package com.velocitypowered.proxy.protocol.netty;
 import com.google.common.base.Preconditions;
 import com.velocitypowered.natives.encryption.VelocityCipher;
 import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.proxy.telemetry.CodecStatistics;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
@@ -37,7 +38,10 @@ public class MinecraftCipherDecoder extends MessageToMessageDecoder<ByteBuf> {
   protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
     ByteBuf compatible = MoreByteBufUtils.ensureCompatible(ctx.alloc(), cipher, in).slice();
     try {
+      int bytes = compatible.readableBytes();
+      long start = System.nanoTime();
       cipher.process(compatible);
+      CodecStatistics.DECRYPTION.record(bytes, bytes, System.nanoTime() - start);
       out.add(compatible);
     } catch (Exception e) {
       compatible.release(); // compatible will never be used if we throw an exception
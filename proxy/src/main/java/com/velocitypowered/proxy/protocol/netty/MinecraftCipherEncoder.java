@@ -20,33 +20,145 @@ package com.velocitypowered.proxy.protocol.netty;
 import com.google.common.base.Preconditions;
 import com.velocitypowered.natives.encryption.VelocityCipher;
 import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.proxy.telemetry.CodecStatistics;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.PromiseNotifier;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
 import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
-public class MinecraftCipherEncoder extends MessageToMessageEncoder<ByteBuf> {
+/**
+ * Encrypts outbound frames. Frames written between two flushes are gathered into a single buffer
+ * and encrypted with one call to the cipher when the channel is flushed, as AES/CFB8 is a stream
+ * cipher and encrypting the concatenated frames gives the same result as encrypting them one by
+ * one. Large frames, and batches that grow too large, are encrypted right away.
+ */
+public class MinecraftCipherEncoder extends ChannelOutboundHandlerAdapter {
+
+  private static final int MAX_PENDING_BYTES = 64 * 1024;
+  private static final int INITIAL_PENDING_CAPACITY = 2048;
 
   private final VelocityCipher cipher;
+  private @Nullable ByteBuf pending;
+  private final List<ChannelPromise> pendingPromises = new ArrayList<>();
 
   public MinecraftCipherEncoder(VelocityCipher cipher) {
     this.cipher = Preconditions.checkNotNull(cipher, "cipher");
   }
 
   @Override
-  protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-    ByteBuf compatible = MoreByteBufUtils.ensureCompatible(ctx.alloc(), cipher, msg);
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (!(msg instanceof ByteBuf)) {
+      writePending(ctx);
+      ctx.write(msg, promise);
+      return;
+    }
+
+    ByteBuf buf = (ByteBuf) msg;
+    if (buf.readableBytes() >= MAX_PENDING_BYTES) {
+      // Not worth copying - encrypt it in place once everything before it has been written.
+      writePending(ctx);
+      writeEncrypted(ctx, buf, promise);
+      return;
+    }
+
+    try {
+      if (pending == null) {
+        pending = MoreByteBufUtils.preferredBuffer(ctx.alloc(), cipher,
+            Math.max(INITIAL_PENDING_CAPACITY, buf.readableBytes()));
+      }
+      pending.writeBytes(buf);
+    } catch (Throwable e) {
+      promise.setFailure(e);
+      return;
+    } finally {
+      buf.release();
+    }
+
+    if (!promise.isVoid()) {
+      pendingPromises.add(promise);
+    }
+    if (pending.readableBytes() >= MAX_PENDING_BYTES) {
+      writePending(ctx);
+    }
+  }
+
+  @Override
+  public void flush(ChannelHandlerContext ctx) throws Exception {
+    writePending(ctx);
+    ctx.flush();
+  }
+
+  private void writePending(ChannelHandlerContext ctx) {
+    ByteBuf buf = this.pending;
+    if (buf == null) {
+      return;
+    }
+    this.pending = null;
+
+    ChannelPromise promise;
+    if (pendingPromises.isEmpty()) {
+      promise = ctx.voidPromise();
+    } else if (pendingPromises.size() == 1) {
+      promise = pendingPromises.get(0);
+    } else {
+      promise = ctx.newPromise();
+      promise.addListener(new PromiseNotifier<Void, ChannelFuture>(
+          pendingPromises.toArray(new ChannelPromise[0])));
+    }
+    pendingPromises.clear();
+
+    try {
+      process(buf);
+    } catch (Exception e) {
+      buf.release();
+      promise.setFailure(e);
+      return;
+    }
+    ctx.write(buf, promise);
+  }
+
+  private void writeEncrypted(ChannelHandlerContext ctx, ByteBuf msg, ChannelPromise promise) {
+    ByteBuf compatible;
+    try {
+      compatible = MoreByteBufUtils.ensureCompatible(ctx.alloc(), cipher, msg);
+    } finally {
+      msg.release();
+    }
+
     try {
-      cipher.process(compatible);
-      out.add(compatible);
+      process(compatible);
     } catch (Exception e) {
       compatible.release(); // compatible will never be used if we throw an exception
-      throw e;
+      promise.setFailure(e);
+      return;
     }
+    ctx.write(compatible, promise);
+  }
+
+  private void process(ByteBuf buf) {
+    int bytes = buf.readableBytes();
+    long start = System.nanoTime();
+    cipher.process(buf);
+    CodecStatistics.ENCRYPTION.record(bytes, bytes, System.nanoTime() - start);
   }
 
   @Override
   public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    if (pending != null) {
+      pending.release();
+      pending = null;
+    }
+    for (ChannelPromise promise : pendingPromises) {
+      promise.tryFailure(new ClosedChannelException());
+    }
+    pendingPromises.clear();
     cipher.close();
   }
 }
@@ -22,11 +22,17 @@ import static com.velocitypowered.natives.util.MoreByteBufUtils.preferredBuffer;
 import static com.velocitypowered.proxy.protocol.util.NettyPreconditions.checkFrame;
 
 import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.concurrent.FastThreadLocal;
 import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
 
@@ -37,8 +43,24 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
       Boolean.getBoolean("velocity.increased-compression-cap")
           ? HARD_MAXIMUM_UNCOMPRESSED_SIZE : VANILLA_MAXIMUM_UNCOMPRESSED_SIZE;
 
+  // A VarInt packet ID is at most 5 bytes long, so that is all we need to inflate to peek at it.
+  private static final int PEEK_LENGTH = 5;
+  private static final FastThreadLocal<Inflater> PEEK_INFLATER = new FastThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater();
+    }
+
+    @Override
+    protected void onRemoval(Inflater value) {
+      value.end();
+    }
+  };
+
   private int threshold;
   private final VelocityCompressor compressor;
+  private final byte[] peekBuffer = new byte[PEEK_LENGTH];
+  private @Nullable MinecraftDecoder passthroughDecoder;
 
   public MinecraftCompressDecoder(int threshold, VelocityCompressor compressor) {
     this.threshold = threshold;
@@ -60,11 +82,39 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
         "Uncompressed size %s exceeds hard threshold of %s", claimedUncompressedSize,
         UNCOMPRESSED_CAP);
 
-    ByteBuf compatibleIn = ensureCompatible(ctx.alloc(), compressor, in);
-    ByteBuf uncompressed = preferredBuffer(ctx.alloc(), compressor, claimedUncompressedSize);
+    if (passthroughDecoder != null) {
+      int packetId = peekPacketId(in);
+      if (packetId != -1 && !passthroughDecoder.decodesPacket(packetId)) {
+        // Nothing on the proxy is interested in this packet, so relay it still compressed.
+        out.add(new CompressedFrame(in.retain(), claimedUncompressedSize));
+        return;
+      }
+    }
+
+    out.add(inflate(ctx.alloc(), in, claimedUncompressedSize));
+  }
+
+  /**
+   * Inflates a compressed frame that was passed on by this decoder, for a handler that turns out
+   * not to be able to relay it as-is.
+   *
+   * @param alloc the allocator to allocate the inflated packet with
+   * @param frame the frame to inflate
+   * @return the inflated packet
+   * @throws DataFormatException if the frame is corrupted
+   */
+  public ByteBuf inflate(ByteBufAllocator alloc, CompressedFrame frame)
+      throws DataFormatException {
+    return inflate(alloc, frame.content(), frame.getUncompressedSize());
+  }
+
+  private ByteBuf inflate(ByteBufAllocator alloc, ByteBuf in, int uncompressedSize)
+      throws DataFormatException {
+    ByteBuf compatibleIn = ensureCompatible(alloc, compressor, in);
+    ByteBuf uncompressed = preferredBuffer(alloc, compressor, uncompressedSize);
     try {
-      compressor.inflate(compatibleIn, uncompressed, claimedUncompressedSize);
-      out.add(uncompressed);
+      compressor.inflate(compatibleIn, uncompressed, uncompressedSize);
+      return uncompressed;
     } catch (Exception e) {
       uncompressed.release();
       throw e;
@@ -73,6 +123,33 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
     }
   }
 
+  private int peekPacketId(ByteBuf compressed) {
+    if (compressed.nioBufferCount() != 1) {
+      return -1;
+    }
+
+    Inflater inflater = PEEK_INFLATER.get();
+    try {
+      inflater.setInput(compressed.nioBuffer());
+      int produced = inflater.inflate(peekBuffer);
+
+      int packetId = 0;
+      for (int i = 0; i < produced; i++) {
+        byte in = peekBuffer[i];
+        packetId |= (in & 0x7F) << (i * 7);
+        if ((in & 0x80) != 128) {
+          return packetId;
+        }
+      }
+      return -1;
+    } catch (DataFormatException e) {
+      // Let the full inflate report the corrupted data.
+      return -1;
+    } finally {
+      inflater.reset();
+    }
+  }
+
   @Override
   public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
     compressor.close();
@@ -81,4 +158,15 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
   public void setThreshold(int threshold) {
     this.threshold = threshold;
   }
+
+  /**
+   * Enables or disables compressed passthrough. When enabled, compressed packets that the
+   * specified {@code decoder} would not decode are passed on as {@link CompressedFrame}s
+   * instead of being inflated.
+   *
+   * @param decoder the decoder to consult, or {@code null} to disable passthrough
+   */
+  public void setPassthroughDecoder(@Nullable MinecraftDecoder decoder) {
+    this.passthroughDecoder = decoder;
+  }
 }
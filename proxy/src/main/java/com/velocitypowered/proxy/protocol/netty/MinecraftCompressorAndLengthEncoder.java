@@ -21,9 +21,13 @@ import static com.velocitypowered.proxy.protocol.netty.MinecraftVarintLengthEnco
 
 import com.velocitypowered.natives.compression.VelocityCompressor;
 import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.telemetry.CodecStatistics;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.MessageToByteEncoder;
 import java.util.zip.DataFormatException;
 
@@ -37,6 +41,54 @@ public class MinecraftCompressorAndLengthEncoder extends MessageToByteEncoder<By
     this.compressor = compressor;
   }
 
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof CompressedFrame) {
+      writeCompressedFrame(ctx, (CompressedFrame) msg, promise);
+    } else {
+      super.write(ctx, msg, promise);
+    }
+  }
+
+  private void writeCompressedFrame(ChannelHandlerContext ctx, CompressedFrame frame,
+      ChannelPromise promise) throws Exception {
+    ByteBuf out;
+    try {
+      ByteBuf compressed = frame.content();
+      int uncompressedSize = frame.getUncompressedSize();
+      if (uncompressedSize < threshold) {
+        // The packet was compressed under a lower threshold than ours, and the client would
+        // reject it. Inflate it and let it take the usual path.
+        ByteBuf compatibleIn = MoreByteBufUtils.ensureCompatible(ctx.alloc(), compressor,
+            compressed);
+        out = MoreByteBufUtils.preferredBuffer(ctx.alloc(), compressor, uncompressedSize);
+        try {
+          compressor.inflate(compatibleIn, out, uncompressedSize);
+        } catch (Exception e) {
+          out.release();
+          throw e;
+        } finally {
+          compatibleIn.release();
+        }
+        super.write(ctx, out, promise);
+        return;
+      }
+
+      int dataLength = ProtocolUtils.varIntBytes(uncompressedSize) + compressed.readableBytes();
+      int frameLength = ProtocolUtils.varIntBytes(dataLength) + dataLength;
+      out = IS_JAVA_CIPHER
+          ? ctx.alloc().heapBuffer(frameLength)
+          : ctx.alloc().directBuffer(frameLength);
+      ProtocolUtils.writeVarInt(out, dataLength);
+      ProtocolUtils.writeVarInt(out, uncompressedSize);
+      out.writeBytes(compressed, compressed.readerIndex(), compressed.readableBytes());
+    } finally {
+      frame.release();
+    }
+    ctx.write(out, promise);
+  }
+
   @Override
   protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
     int uncompressed = msg.readableBytes();
@@ -52,19 +104,37 @@ public class MinecraftCompressorAndLengthEncoder extends MessageToByteEncoder<By
 
   private void handleCompressed(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out)
       throws DataFormatException {
+    writeCompressed(ctx.alloc(), compressor, msg, out);
+  }
+
+  /**
+   * Compresses {@code msg} with {@code compressor} and writes it as a complete compressed frame
+   * (packet length, uncompressed length and compressed data) into {@code out}, which must be
+   * empty.
+   *
+   * @param alloc the allocator to use for temporary buffers
+   * @param compressor the compressor to use
+   * @param msg the uncompressed packet
+   * @param out the buffer to write the frame to
+   * @throws DataFormatException if the packet could not be compressed
+   */
+  static void writeCompressed(ByteBufAllocator alloc, VelocityCompressor compressor, ByteBuf msg,
+      ByteBuf out) throws DataFormatException {
     int uncompressed = msg.readableBytes();
 
     ProtocolUtils.write21BitVarInt(out, 0); // Dummy packet length
     ProtocolUtils.writeVarInt(out, uncompressed);
-    ByteBuf compatibleIn = MoreByteBufUtils.ensureCompatible(ctx.alloc(), compressor, msg);
+    ByteBuf compatibleIn = MoreByteBufUtils.ensureCompatible(alloc, compressor, msg);
 
     int startCompressed = out.writerIndex();
+    long start = System.nanoTime();
     try {
       compressor.deflate(compatibleIn, out);
     } finally {
       compatibleIn.release();
     }
     int compressedLength = out.writerIndex() - startCompressed;
+    CodecStatistics.COMPRESSION.record(uncompressed, compressedLength, System.nanoTime() - start);
     if (compressedLength >= 1 << 21) {
       throw new DataFormatException("The server sent a very large (over 2MiB compressed) packet.");
     }
@@ -19,9 +19,11 @@ package com.velocitypowered.proxy.protocol.netty;
 
 import com.google.common.base.Preconditions;
 import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.telemetry.PacketStatistics;
 import com.velocitypowered.proxy.util.except.QuietRuntimeException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -36,6 +38,7 @@ public class MinecraftDecoder extends ChannelInboundHandlerAdapter {
           + "developer, launch Velocity with -Dvelocity.packet-decode-logging=true to see more.");
 
   private final ProtocolUtils.Direction direction;
+  private final PacketStatistics statistics;
   private StateRegistry state;
   private StateRegistry.PacketRegistry.ProtocolRegistry registry;
 
@@ -46,6 +49,7 @@ public class MinecraftDecoder extends ChannelInboundHandlerAdapter {
    */
   public MinecraftDecoder(ProtocolUtils.Direction direction) {
     this.direction = Preconditions.checkNotNull(direction, "direction");
+    this.statistics = PacketStatistics.decoded(direction);
     this.registry = direction.getProtocolRegistry(StateRegistry.HANDSHAKE,
         ProtocolVersion.MINIMUM_VERSION);
     this.state = StateRegistry.HANDSHAKE;
@@ -57,6 +61,9 @@ public class MinecraftDecoder extends ChannelInboundHandlerAdapter {
       ByteBuf buf = (ByteBuf) msg;
       tryDecode(ctx, buf);
     } else {
+      if (msg instanceof CompressedFrame) {
+        statistics.recordUnknown(((CompressedFrame) msg).getUncompressedSize());
+      }
       ctx.fireChannelRead(msg);
     }
   }
@@ -68,10 +75,12 @@ public class MinecraftDecoder extends ChannelInboundHandlerAdapter {
     }
 
     int originalReaderIndex = buf.readerIndex();
+    int packetSize = buf.readableBytes();
     int packetId = ProtocolUtils.readVarInt(buf);
     MinecraftPacket packet = this.registry.createPacket(packetId);
     if (packet == null) {
       buf.readerIndex(originalReaderIndex);
+      statistics.recordUnknown(packetSize);
       ctx.fireChannelRead(buf);
     } else {
       try {
@@ -86,6 +95,7 @@ public class MinecraftDecoder extends ChannelInboundHandlerAdapter {
         if (buf.isReadable()) {
           throw handleOverflow(packet, buf.readerIndex(), buf.writerIndex());
         }
+        statistics.record(packet.getClass(), packetSize);
         ctx.fireChannelRead(packet);
       } finally {
         buf.release();
@@ -136,6 +146,17 @@ public class MinecraftDecoder extends ChannelInboundHandlerAdapter {
         + " ID " + Integer.toHexString(packetId);
   }
 
+  /**
+   * Determines whether this decoder would decode the packet with the specified ID, rather than
+   * pass it on as an unknown packet.
+   *
+   * @param packetId the packet ID to check
+   * @return {@code true} if the packet is decoded by the proxy
+   */
+  public boolean decodesPacket(int packetId) {
+    return this.registry.containsPacket(packetId);
+  }
+
   public void setProtocolVersion(ProtocolVersion protocolVersion) {
     this.registry = direction.getProtocolRegistry(state, protocolVersion);
   }
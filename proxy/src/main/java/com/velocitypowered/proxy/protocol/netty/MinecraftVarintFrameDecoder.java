@@ -17,20 +17,26 @@
 
 package com.velocitypowered.proxy.protocol.netty;
 
-import com.velocitypowered.proxy.protocol.netty.VarintByteDecoder.DecodeResult;
 import com.velocitypowered.proxy.util.except.QuietDecoderException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import java.util.List;
 
+/**
+ * Splits the incoming byte stream into frames prefixed by a VarInt length of at most 21 bits.
+ * Every complete frame in the cumulated buffer is emitted in a single pass.
+ */
 public class MinecraftVarintFrameDecoder extends ByteToMessageDecoder {
 
-  private static final QuietDecoderException BAD_LENGTH_CACHED =
-      new QuietDecoderException("Bad packet length");
   private static final QuietDecoderException VARINT_BIG_CACHED =
       new QuietDecoderException("VarInt too big");
 
+  /**
+   * The number of bytes taken by the last length read by {@link #readFrameLength(ByteBuf)}.
+   */
+  private int lengthBytes;
+
   @Override
   protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
     if (!ctx.channel().isActive()) {
@@ -38,34 +44,65 @@ public class MinecraftVarintFrameDecoder extends ByteToMessageDecoder {
       return;
     }
 
-    final VarintByteDecoder reader = new VarintByteDecoder();
-
-    int varintEnd = in.forEachByte(reader);
-    if (varintEnd == -1) {
-      // We tried to go beyond the end of the buffer. This is probably a good sign that the
-      // buffer was too short to hold a proper varint.
-      return;
-    }
+    while (in.isReadable()) {
+      int length = readFrameLength(in);
+      if (length == -1) {
+        // The length of the frame hasn't been fully received yet.
+        return;
+      }
 
-    if (reader.getResult() == DecodeResult.SUCCESS) {
-      int readVarint = reader.getReadVarint();
-      int bytesRead = reader.getBytesRead();
-      if (readVarint < 0) {
-        in.clear();
-        throw BAD_LENGTH_CACHED;
-      } else if (readVarint == 0) {
+      int frameStart = in.readerIndex() + lengthBytes;
+      if (length == 0) {
         // skip over the empty packet and ignore it
-        in.readerIndex(varintEnd + 1);
+        in.readerIndex(frameStart);
+      } else if (in.writerIndex() - frameStart >= length) {
+        out.add(in.retainedSlice(frameStart, length));
+        in.readerIndex(frameStart + length);
       } else {
-        int minimumRead = bytesRead + readVarint;
-        if (in.isReadable(minimumRead)) {
-          out.add(in.retainedSlice(varintEnd + 1, readVarint));
-          in.skipBytes(minimumRead);
-        }
+        // The rest of the frame hasn't been received yet.
+        return;
       }
-    } else if (reader.getResult() == DecodeResult.TOO_BIG) {
-      in.clear();
-      throw VARINT_BIG_CACHED;
     }
   }
+
+  /**
+   * Reads the VarInt length of the next frame without moving the reader index of {@code in}.
+   *
+   * @param in the buffer to read from
+   * @return the length of the frame, or {@code -1} if the length is not yet complete
+   */
+  private int readFrameLength(ByteBuf in) {
+    int index = in.readerIndex();
+    int readable = in.readableBytes();
+
+    byte read = in.getByte(index);
+    if ((read & 0x80) == 0) {
+      lengthBytes = 1;
+      return read;
+    }
+    if (readable < 2) {
+      return -1;
+    }
+
+    int length = read & 0x7F;
+    read = in.getByte(index + 1);
+    length |= (read & 0x7F) << 7;
+    if ((read & 0x80) == 0) {
+      lengthBytes = 2;
+      return length;
+    }
+    if (readable < 3) {
+      return -1;
+    }
+
+    read = in.getByte(index + 2);
+    length |= (read & 0x7F) << 14;
+    if ((read & 0x80) == 0) {
+      lengthBytes = 3;
+      return length;
+    }
+
+    in.clear();
+    throw VARINT_BIG_CACHED;
+  }
 }
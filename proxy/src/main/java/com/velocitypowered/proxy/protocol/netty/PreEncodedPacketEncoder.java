@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import static com.velocitypowered.proxy.protocol.netty.MinecraftVarintLengthEncoder.IS_JAVA_CIPHER;
+
+import com.google.common.base.Preconditions;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.PreEncodedPacket;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Writes the shared frame of a {@link PreEncodedPacket} to the connection. This handler sits
+ * between the framing/compression stage and the cipher stage, so pre-encoded packets skip packet
+ * encoding and compression entirely.
+ */
+public class PreEncodedPacketEncoder extends MessageToMessageEncoder<PreEncodedPacket> {
+
+  private final ProtocolUtils.Direction direction;
+  private ProtocolVersion protocolVersion = ProtocolVersion.MINIMUM_VERSION;
+  private int threshold = -1;
+  private @Nullable VelocityCompressor compressor;
+  private boolean encrypted;
+
+  /**
+   * Creates a new {@code PreEncodedPacketEncoder} encoding packets for the specified
+   * {@code direction}.
+   *
+   * @param direction the direction to encode to
+   */
+  public PreEncodedPacketEncoder(ProtocolUtils.Direction direction) {
+    this.direction = Preconditions.checkNotNull(direction, "direction");
+  }
+
+  @Override
+  protected void encode(ChannelHandlerContext ctx, PreEncodedPacket msg, List<Object> out)
+      throws Exception {
+    ByteBuf frame = msg.getOrEncode(protocolVersion, threshold,
+        () -> encodeFrame(ctx.alloc(), msg.getPacket()));
+    if (encrypted) {
+      // The cipher works in place, so it needs its own copy of the shared frame.
+      int length = frame.readableBytes();
+      ByteBuf copy = IS_JAVA_CIPHER
+          ? ctx.alloc().heapBuffer(length)
+          : ctx.alloc().directBuffer(length);
+      copy.writeBytes(frame, frame.readerIndex(), length);
+      out.add(copy);
+    } else {
+      out.add(frame.retainedDuplicate());
+    }
+  }
+
+  private ByteBuf encodeFrame(ByteBufAllocator alloc, MinecraftPacket packet)
+      throws DataFormatException {
+    StateRegistry.PacketRegistry.ProtocolRegistry registry = direction
+        .getProtocolRegistry(StateRegistry.PLAY, protocolVersion);
+    ByteBuf uncompressed = alloc.directBuffer();
+    try {
+      ProtocolUtils.writeVarInt(uncompressed, registry.getPacketId(packet));
+      packet.encode(uncompressed, direction, protocolVersion);
+
+      int length = uncompressed.readableBytes();
+      if (threshold == -1 || compressor == null) {
+        ByteBuf frame = alloc.directBuffer(ProtocolUtils.varIntBytes(length) + length);
+        ProtocolUtils.writeVarInt(frame, length);
+        frame.writeBytes(uncompressed);
+        return frame;
+      } else if (length < threshold) {
+        ByteBuf frame = alloc.directBuffer(ProtocolUtils.varIntBytes(length + 1) + length + 1);
+        ProtocolUtils.writeVarInt(frame, length + 1);
+        ProtocolUtils.writeVarInt(frame, 0);
+        frame.writeBytes(uncompressed);
+        return frame;
+      } else {
+        int initialBufferSize = (length - 1) + 3 + ProtocolUtils.varIntBytes(length);
+        ByteBuf frame = MoreByteBufUtils.preferredBuffer(alloc, compressor, initialBufferSize);
+        try {
+          MinecraftCompressorAndLengthEncoder.writeCompressed(alloc, compressor, uncompressed,
+              frame);
+        } catch (Exception e) {
+          frame.release();
+          throw e;
+        }
+        return frame;
+      }
+    } finally {
+      uncompressed.release();
+    }
+  }
+
+  public void setProtocolVersion(ProtocolVersion protocolVersion) {
+    this.protocolVersion = protocolVersion;
+  }
+
+  /**
+   * Sets the compression settings used when encoding frames. The compressor is shared with
+   * the connection's compression handlers and is only used from the connection's event loop.
+   *
+   * @param threshold the compression threshold, or {@code -1} to disable compression
+   * @param compressor the compressor to use, or {@code null} if compression is disabled
+   */
+  public void setCompression(int threshold, @Nullable VelocityCompressor compressor) {
+    this.threshold = threshold;
+    this.compressor = compressor;
+  }
+
+  public void setThreshold(int threshold) {
+    this.threshold = threshold;
+  }
+
+  public void setEncrypted(boolean encrypted) {
+    this.encrypted = encrypted;
+  }
+}
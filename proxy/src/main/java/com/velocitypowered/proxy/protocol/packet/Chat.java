@@ -20,7 +20,7 @@ package com.velocitypowered.proxy.protocol.packet;
 import com.google.common.base.Preconditions;
 import com.velocitypowered.api.network.ProtocolVersion;
 import com.velocitypowered.proxy.connection.MinecraftSessionHandler;
-import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.LazyPacket;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import io.netty.buffer.ByteBuf;
 import net.kyori.adventure.identity.Identity;
@@ -28,7 +28,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.UUID;
 
-public class Chat implements MinecraftPacket {
+public class Chat extends LazyPacket {
 
   public static final byte CHAT_TYPE = (byte) 0;
   public static final byte SYSTEM_TYPE = (byte) 1;
@@ -51,6 +51,7 @@ public class Chat implements MinecraftPacket {
   }
 
   public String getMessage() {
+    ensureDecoded();
     if (message == null) {
       throw new IllegalStateException("Message is not specified");
     }
@@ -58,27 +59,33 @@ public class Chat implements MinecraftPacket {
   }
 
   public void setMessage(String message) {
+    markModified();
     this.message = message;
   }
 
   public byte getType() {
+    ensureDecoded();
     return type;
   }
 
   public void setType(byte type) {
+    markModified();
     this.type = type;
   }
 
   public UUID getSenderUuid() {
+    ensureDecoded();
     return sender;
   }
 
   public void setSenderUuid(UUID sender) {
+    markModified();
     this.sender = sender;
   }
 
   @Override
   public String toString() {
+    ensureDecoded();
     return "Chat{"
         + "message='" + message + '\''
         + ", type=" + type
@@ -87,7 +94,8 @@ public class Chat implements MinecraftPacket {
   }
 
   @Override
-  public void decode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
+  protected void decodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion version) {
     message = ProtocolUtils.readString(buf);
     if (direction == ProtocolUtils.Direction.CLIENTBOUND && version.compareTo(ProtocolVersion.MINECRAFT_1_8) >= 0) {
       type = buf.readByte();
@@ -98,7 +106,8 @@ public class Chat implements MinecraftPacket {
   }
 
   @Override
-  public void encode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
+  protected void encodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion version) {
     if (message == null) {
       throw new IllegalStateException("Message is not specified");
     }
@@ -31,7 +31,7 @@ import net.kyori.adventure.nbt.CompoundBinaryTag;
 import net.kyori.adventure.nbt.ListBinaryTag;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-public class JoinGame implements MinecraftPacket {
+public class JoinGame extends LazyPacket {
 
   private static final BinaryTagIO.Reader JOINGAME_READER = BinaryTagIO.reader(2 * 1024 * 1024);
   private int entityId;
@@ -52,119 +52,148 @@ public class JoinGame implements MinecraftPacket {
   private CompoundBinaryTag biomeRegistry; // 1.16.2+
 
   public int getEntityId() {
+    ensureDecoded();
     return entityId;
   }
 
   public void setEntityId(int entityId) {
+    markModified();
     this.entityId = entityId;
   }
 
   public short getGamemode() {
+    ensureDecoded();
     return gamemode;
   }
 
   public void setGamemode(short gamemode) {
+    markModified();
     this.gamemode = gamemode;
   }
 
   public int getDimension() {
+    ensureDecoded();
     return dimension;
   }
 
   public void setDimension(int dimension) {
+    markModified();
     this.dimension = dimension;
   }
 
   public long getPartialHashedSeed() {
+    ensureDecoded();
     return partialHashedSeed;
   }
 
   public short getDifficulty() {
+    ensureDecoded();
     return difficulty;
   }
 
   public void setDifficulty(short difficulty) {
+    markModified();
     this.difficulty = difficulty;
   }
 
   public int getMaxPlayers() {
+    ensureDecoded();
     return maxPlayers;
   }
 
   public void setMaxPlayers(int maxPlayers) {
+    markModified();
     this.maxPlayers = maxPlayers;
   }
 
   public @Nullable String getLevelType() {
+    ensureDecoded();
     return levelType;
   }
 
   public void setLevelType(String levelType) {
+    markModified();
     this.levelType = levelType;
   }
 
   public int getViewDistance() {
+    ensureDecoded();
     return viewDistance;
   }
 
   public void setViewDistance(int viewDistance) {
+    markModified();
     this.viewDistance = viewDistance;
   }
 
   public boolean isReducedDebugInfo() {
+    ensureDecoded();
     return reducedDebugInfo;
   }
 
   public void setReducedDebugInfo(boolean reducedDebugInfo) {
+    markModified();
     this.reducedDebugInfo = reducedDebugInfo;
   }
 
   public DimensionInfo getDimensionInfo() {
+    ensureDecoded();
     return dimensionInfo;
   }
 
   public void setDimensionInfo(DimensionInfo dimensionInfo) {
+    markModified();
     this.dimensionInfo = dimensionInfo;
   }
 
   public DimensionRegistry getDimensionRegistry() {
+    ensureDecoded();
     return dimensionRegistry;
   }
 
   public void setDimensionRegistry(DimensionRegistry dimensionRegistry) {
+    markModified();
     this.dimensionRegistry = dimensionRegistry;
   }
 
   public short getPreviousGamemode() {
+    ensureDecoded();
     return previousGamemode;
   }
 
   public void setPreviousGamemode(short previousGamemode) {
+    markModified();
     this.previousGamemode = previousGamemode;
   }
 
   public boolean getIsHardcore() {
+    ensureDecoded();
     return isHardcore;
   }
 
   public void setIsHardcore(boolean isHardcore) {
+    markModified();
     this.isHardcore = isHardcore;
   }
 
   public CompoundBinaryTag getBiomeRegistry() {
+    ensureDecoded();
     return biomeRegistry;
   }
 
   public void setBiomeRegistry(CompoundBinaryTag biomeRegistry) {
+    markModified();
     this.biomeRegistry = biomeRegistry;
   }
 
   public DimensionData getCurrentDimensionData() {
+    ensureDecoded();
     return currentDimensionData;
   }
 
   @Override
   public String toString() {
+    ensureDecoded();
     return "JoinGame{"
         + "entityId=" + entityId
         + ", gamemode=" + gamemode
@@ -182,7 +211,8 @@ public class JoinGame implements MinecraftPacket {
   }
 
   @Override
-  public void decode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
+  protected void decodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion version) {
     this.entityId = buf.readInt();
     if (version.compareTo(ProtocolVersion.MINECRAFT_1_16_2) >= 0) {
       this.isHardcore = buf.readBoolean();
@@ -255,7 +285,8 @@ public class JoinGame implements MinecraftPacket {
   }
 
   @Override
-  public void encode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
+  protected void encodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion version) {
     buf.writeInt(entityId);
     if (version.compareTo(ProtocolVersion.MINECRAFT_1_16_2) >= 0) {
       buf.writeBoolean(isHardcore);
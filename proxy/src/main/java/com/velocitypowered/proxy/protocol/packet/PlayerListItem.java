@@ -22,17 +22,18 @@ import com.velocitypowered.api.network.ProtocolVersion;
 import com.velocitypowered.api.proxy.player.TabListEntry;
 import com.velocitypowered.api.util.GameProfile;
 import com.velocitypowered.proxy.connection.MinecraftSessionHandler;
-import com.velocitypowered.proxy.protocol.MinecraftPacket;
+import com.velocitypowered.proxy.protocol.LazyPacket;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import io.netty.buffer.ByteBuf;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-public class PlayerListItem implements MinecraftPacket {
+public class PlayerListItem extends LazyPacket {
 
   public static final int ADD_PLAYER = 0;
   public static final int UPDATE_GAMEMODE = 1;
@@ -51,15 +52,26 @@ public class PlayerListItem implements MinecraftPacket {
   }
 
   public int getAction() {
+    ensureDecoded();
     return action;
   }
 
+  /**
+   * Returns the items in this packet. The list can't be modified, and the items of a packet
+   * received from a connection must not be modified either, as the packet is sent on as it was
+   * received.
+   *
+   * @return the items in this packet
+   */
   public List<Item> getItems() {
-    return items;
+    ensureDecoded();
+    return Collections.unmodifiableList(items);
   }
 
   @Override
-  public void decode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
+  protected void decodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion version) {
+    items.clear();
     if (version.compareTo(ProtocolVersion.MINECRAFT_1_8) >= 0) {
       action = ProtocolUtils.readVarInt(buf);
       int length = ProtocolUtils.readVarInt(buf);
@@ -109,7 +121,8 @@ public class PlayerListItem implements MinecraftPacket {
   }
 
   @Override
-  public void encode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
+  protected void encodeContents(ByteBuf buf, ProtocolUtils.Direction direction,
+      ProtocolVersion version) {
     if (version.compareTo(ProtocolVersion.MINECRAFT_1_8) >= 0) {
       ProtocolUtils.writeVarInt(buf, action);
       ProtocolUtils.writeVarInt(buf, items.size());
@@ -22,11 +22,13 @@ import com.velocitypowered.proxy.connection.MinecraftSessionHandler;
 import com.velocitypowered.proxy.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import io.netty.buffer.ByteBuf;
+import java.nio.charset.StandardCharsets;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 public class StatusResponse implements MinecraftPacket {
 
   private @Nullable CharSequence status;
+  private byte @Nullable [] encodedStatus;
 
   public StatusResponse() {
   }
@@ -35,9 +37,28 @@ public class StatusResponse implements MinecraftPacket {
     this.status = status;
   }
 
+  /**
+   * Creates a status response from a status that was already encoded as UTF-8, so that a cached
+   * status can be written without encoding it again. The array is not copied and must not be
+   * modified afterwards.
+   *
+   * @param encodedStatus the UTF-8 encoded status JSON
+   */
+  public StatusResponse(byte[] encodedStatus) {
+    this.encodedStatus = encodedStatus;
+  }
+
+  /**
+   * Returns the status JSON.
+   *
+   * @return the status
+   */
   public String getStatus() {
     if (status == null) {
-      throw new IllegalStateException("Status is not specified");
+      if (encodedStatus == null) {
+        throw new IllegalStateException("Status is not specified");
+      }
+      status = new String(encodedStatus, StandardCharsets.UTF_8);
     }
     return status.toString();
   }
@@ -45,17 +66,23 @@ public class StatusResponse implements MinecraftPacket {
   @Override
   public String toString() {
     return "StatusResponse{"
-        + "status='" + status + '\''
+        + "status='" + (encodedStatus != null ? getStatus() : status) + '\''
         + '}';
   }
 
   @Override
   public void decode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
     status = ProtocolUtils.readString(buf, Short.MAX_VALUE);
+    encodedStatus = null;
   }
 
   @Override
   public void encode(ByteBuf buf, ProtocolUtils.Direction direction, ProtocolVersion version) {
+    if (encodedStatus != null) {
+      ProtocolUtils.writeVarInt(buf, encodedStatus.length);
+      buf.writeBytes(encodedStatus);
+      return;
+    }
     if (status == null) {
       throw new IllegalStateException("Status is not specified");
     }
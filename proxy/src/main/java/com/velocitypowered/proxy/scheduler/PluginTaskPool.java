@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.scheduler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.velocitypowered.proxy.util.LatencyHistogram;
+import com.velocitypowered.proxy.util.concurrent.VirtualThreads;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The threads that run the scheduled tasks of a single plugin. Each plugin gets its own pool
+ * with a bounded number of threads, so a plugin that schedules many tasks (or tasks that block)
+ * only delays its own tasks, not those of other plugins.
+ *
+ * <p>The number of threads is set by {@code velocity.scheduler.threads-per-plugin} (16 by
+ * default). Tasks that become due while all of them are busy wait in an unbounded queue until a
+ * thread is free. A warning is logged when the queue grows as long as the number of threads,
+ * since that usually means the plugin is blocking in its tasks.</p>
+ *
+ * <p>In {@linkplain VirtualThreads virtual thread mode}, every task runs on its own virtual
+ * thread instead, and a semaphore limits how many of the plugin's tasks run at once.</p>
+ */
+public final class PluginTaskPool {
+
+  private static final Logger logger = LogManager.getLogger(PluginTaskPool.class);
+
+  /**
+   * Tasks that start this long after they were due are counted as late.
+   */
+  static final long LATE_START_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  private final String pluginId;
+  private final ExecutorService executor;
+  private final int maxConcurrency;
+  private final @Nullable Semaphore permits;
+  private final LatencyHistogram runTime = new LatencyHistogram();
+  private final LatencyHistogram startDelay = new LatencyHistogram();
+  private final LongAdder lateStarts = new LongAdder();
+  private final AtomicBoolean backlogReported = new AtomicBoolean();
+
+  PluginTaskPool(String pluginId, int maxConcurrency, boolean virtualThreads) {
+    this.pluginId = pluginId;
+    this.maxConcurrency = maxConcurrency;
+    if (virtualThreads) {
+      this.executor = VirtualThreads.newExecutor();
+      this.permits = new Semaphore(maxConcurrency);
+    } else {
+      String nameFormat = "Velocity Task Scheduler - " + pluginId.replace("%", "%%") + " #%d";
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat(nameFormat)
+              .build());
+      pool.allowCoreThreadTimeOut(true);
+      this.executor = pool;
+      this.permits = null;
+    }
+  }
+
+  /**
+   * Runs {@code task} on this pool.
+   *
+   * @param dueNanos the {@link System#nanoTime()} at which the task was due to run
+   * @param task the task to run
+   */
+  void execute(long dueNanos, Runnable task) {
+    executor.execute(() -> {
+      if (permits != null) {
+        permits.acquireUninterruptibly();
+      } else if (getQueueDepth() == 0) {
+        backlogReported.set(false);
+      }
+      long start = System.nanoTime();
+      long delay = Math.max(0, start - dueNanos);
+      startDelay.record(delay);
+      if (delay > LATE_START_NANOS) {
+        lateStarts.increment();
+      }
+      try {
+        task.run();
+      } finally {
+        runTime.record(System.nanoTime() - start);
+        if (permits != null) {
+          permits.release();
+        }
+      }
+    });
+    if (permits == null) {
+      reportBacklog();
+    }
+  }
+
+  private void reportBacklog() {
+    int queued = getQueueDepth();
+    if (queued >= maxConcurrency && backlogReported.compareAndSet(false, true)) {
+      logger.warn("Plugin {} has {} scheduled tasks waiting for one of its {} threads. Its tasks"
+          + " may be blocking; they will run late until the queue drains.", pluginId, queued,
+          maxConcurrency);
+    }
+  }
+
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  boolean awaitTermination(long deadlineNanos) throws InterruptedException {
+    return executor.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()),
+        TimeUnit.NANOSECONDS);
+  }
+
+  public String getPluginId() {
+    return pluginId;
+  }
+
+  /**
+   * Returns the number of tasks that are due but waiting for a free thread.
+   *
+   * @return the number of queued tasks
+   */
+  public int getQueueDepth() {
+    if (permits != null) {
+      return permits.getQueueLength();
+    }
+    return ((ThreadPoolExecutor) executor).getQueue().size();
+  }
+
+  /**
+   * Returns the number of threads currently running a task.
+   *
+   * @return the number of busy threads
+   */
+  public int getActiveThreads() {
+    if (permits != null) {
+      return maxConcurrency - permits.availablePermits();
+    }
+    return ((ThreadPoolExecutor) executor).getActiveCount();
+  }
+
+  public int getMaxThreads() {
+    return maxConcurrency;
+  }
+
+  /**
+   * Returns how long tasks took to run.
+   *
+   * @return the run time histogram
+   */
+  public LatencyHistogram getRunTime() {
+    return runTime;
+  }
+
+  /**
+   * Returns how long after they were due tasks started running.
+   *
+   * @return the start delay histogram
+   */
+  public LatencyHistogram getStartDelay() {
+    return startDelay;
+  }
+
+  /**
+   * Returns the number of tasks that started more than 50 milliseconds after they were due.
+   *
+   * @return the number of late starts
+   */
+  public long getLateStarts() {
+    return lateStarts.sum();
+  }
+}
@@ -20,6 +20,7 @@ package com.velocitypowered.proxy.scheduler;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
@@ -29,23 +30,38 @@ import com.velocitypowered.api.plugin.PluginManager;
 import com.velocitypowered.api.scheduler.ScheduledTask;
 import com.velocitypowered.api.scheduler.Scheduler;
 import com.velocitypowered.api.scheduler.TaskStatus;
+import com.velocitypowered.proxy.util.concurrent.VirtualThreads;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+/**
+ * The Velocity scheduler. Task delays are tracked by a hashed wheel timer, which schedules and
+ * cancels tasks in constant time, and due tasks run on a bounded thread pool belonging to the
+ * plugin that scheduled them (see {@link PluginTaskPool}). Each pool has at most
+ * {@code velocity.scheduler.threads-per-plugin} threads; further due tasks are queued.
+ */
 public class VelocityScheduler implements Scheduler {
 
+  private static final long TICK_MILLIS = 5;
+  private static final int THREADS_PER_PLUGIN = Integer
+      .getInteger("velocity.scheduler.threads-per-plugin", 16);
+
   private final PluginManager pluginManager;
-  private final ExecutorService taskService;
-  private final ScheduledExecutorService timerExecutionService;
+  private final int threadsPerPlugin;
+  private final boolean virtualThreads;
+  private final HashedWheelTimer timer;
+  private final ConcurrentMap<String, PluginTaskPool> pools = new ConcurrentHashMap<>();
   private final Multimap<Object, ScheduledTask> tasksByPlugin = Multimaps.synchronizedMultimap(
       Multimaps.newSetMultimap(new IdentityHashMap<>(), HashSet::new));
 
@@ -55,20 +71,54 @@ public class VelocityScheduler implements Scheduler {
    * @param pluginManager the Velocity plugin manager
    */
   public VelocityScheduler(PluginManager pluginManager) {
+    this(pluginManager, VirtualThreads.isEnabled());
+  }
+
+  private VelocityScheduler(PluginManager pluginManager, boolean virtualThreads) {
+    this(pluginManager, virtualThreads
+        ? VirtualThreads.getConcurrencyLimit() : THREADS_PER_PLUGIN, virtualThreads);
+  }
+
+  /**
+   * Initializes the scheduler.
+   *
+   * @param pluginManager the Velocity plugin manager
+   * @param threadsPerPlugin the maximum number of tasks of a single plugin that run at once
+   * @param virtualThreads whether tasks run on virtual threads
+   */
+  @VisibleForTesting
+  VelocityScheduler(PluginManager pluginManager, int threadsPerPlugin, boolean virtualThreads) {
+    checkArgument(threadsPerPlugin > 0, "threadsPerPlugin must be positive");
     this.pluginManager = pluginManager;
-    this.taskService = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true)
-        .setNameFormat("Velocity Task Scheduler - #%d").build());
-    this.timerExecutionService = Executors
-        .newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
-            .setNameFormat("Velocity Task Scheduler Timer").build());
+    this.threadsPerPlugin = threadsPerPlugin;
+    this.virtualThreads = virtualThreads;
+    this.timer = new HashedWheelTimer(new ThreadFactoryBuilder().setDaemon(true)
+        .setNameFormat("Velocity Task Scheduler Timer").build(), TICK_MILLIS,
+        TimeUnit.MILLISECONDS);
   }
 
   @Override
   public TaskBuilder buildTask(Object plugin, Runnable runnable) {
     checkNotNull(plugin, "plugin");
     checkNotNull(runnable, "runnable");
-    checkArgument(pluginManager.fromInstance(plugin).isPresent(), "plugin is not registered");
-    return new TaskBuilderImpl(plugin, runnable);
+    PluginContainer container = pluginManager.fromInstance(plugin)
+        .orElseThrow(() -> new IllegalArgumentException("plugin is not registered"));
+    return new TaskBuilderImpl(plugin, pool(container), runnable);
+  }
+
+  private PluginTaskPool pool(PluginContainer container) {
+    String id = container.getDescription().getId();
+    return pools.computeIfAbsent(id, key -> new PluginTaskPool(key, threadsPerPlugin,
+        virtualThreads));
+  }
+
+  /**
+   * Returns the task pools of all plugins that have scheduled a task.
+   *
+   * @return the plugin task pools
+   */
+  public Collection<PluginTaskPool> getPluginTaskPools() {
+    return ImmutableList.copyOf(pools.values());
   }
 
   /**
@@ -84,20 +134,29 @@ public class VelocityScheduler implements Scheduler {
     for (ScheduledTask task : terminating) {
       task.cancel();
     }
-    timerExecutionService.shutdown();
-    taskService.shutdown();
-    return taskService.awaitTermination(10, TimeUnit.SECONDS);
+    timer.stop();
+    for (PluginTaskPool pool : pools.values()) {
+      pool.shutdown();
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    boolean terminated = true;
+    for (PluginTaskPool pool : pools.values()) {
+      terminated &= pool.awaitTermination(deadline);
+    }
+    return terminated;
   }
 
   private class TaskBuilderImpl implements TaskBuilder {
 
     private final Object plugin;
+    private final PluginTaskPool pool;
     private final Runnable runnable;
     private long delay; // ms
     private long repeat; // ms
 
-    private TaskBuilderImpl(Object plugin, Runnable runnable) {
+    private TaskBuilderImpl(Object plugin, PluginTaskPool pool, Runnable runnable) {
       this.plugin = plugin;
+      this.pool = pool;
       this.runnable = runnable;
     }
 
@@ -127,35 +186,47 @@ public class VelocityScheduler implements Scheduler {
 
     @Override
     public ScheduledTask schedule() {
-      VelocityTask task = new VelocityTask(plugin, runnable, delay, repeat);
+      VelocityTask task = new VelocityTask(plugin, pool, runnable, delay, repeat);
       tasksByPlugin.put(plugin, task);
       task.schedule();
       return task;
     }
   }
 
-  private class VelocityTask implements Runnable, ScheduledTask {
+  private class VelocityTask implements TimerTask, ScheduledTask {
 
     private final Object plugin;
+    private final PluginTaskPool pool;
     private final Runnable runnable;
     private final long delay;
     private final long repeat;
-    private @Nullable ScheduledFuture<?> future;
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private volatile TaskStatus status = TaskStatus.SCHEDULED;
+    private volatile @Nullable Timeout timeout;
     private volatile @Nullable Thread currentTaskThread;
+    private long nextRunNanos;
 
-    private VelocityTask(Object plugin, Runnable runnable, long delay, long repeat) {
+    private VelocityTask(Object plugin, PluginTaskPool pool, Runnable runnable, long delay,
+        long repeat) {
       this.plugin = plugin;
+      this.pool = pool;
       this.runnable = runnable;
       this.delay = delay;
       this.repeat = repeat;
     }
 
     void schedule() {
-      if (repeat == 0) {
-        this.future = timerExecutionService.schedule(this, delay, TimeUnit.MILLISECONDS);
-      } else {
-        this.future = timerExecutionService
-            .scheduleAtFixedRate(this, delay, repeat, TimeUnit.MILLISECONDS);
+      this.nextRunNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+      arm();
+    }
+
+    private void arm() {
+      Timeout armed = timer.newTimeout(this, Math.max(0, nextRunNanos - System.nanoTime()),
+          TimeUnit.NANOSECONDS);
+      this.timeout = armed;
+      if (status == TaskStatus.CANCELLED) {
+        // Cancelled while being re-armed.
+        armed.cancel();
       }
     }
 
@@ -166,25 +237,17 @@ public class VelocityScheduler implements Scheduler {
 
     @Override
     public TaskStatus status() {
-      if (future == null) {
-        return TaskStatus.SCHEDULED;
-      }
-
-      if (future.isCancelled()) {
-        return TaskStatus.CANCELLED;
-      }
-
-      if (future.isDone()) {
-        return TaskStatus.FINISHED;
-      }
-
-      return TaskStatus.SCHEDULED;
+      return status;
     }
 
     @Override
     public void cancel() {
-      if (future != null) {
-        future.cancel(false);
+      Timeout current = timeout;
+      if (current != null) {
+        if (status == TaskStatus.SCHEDULED) {
+          status = TaskStatus.CANCELLED;
+        }
+        current.cancel();
 
         Thread cur = currentTaskThread;
         if (cur != null) {
@@ -196,30 +259,59 @@ public class VelocityScheduler implements Scheduler {
     }
 
     @Override
-    public void run() {
-      taskService.execute(() -> {
-        currentTaskThread = Thread.currentThread();
-        try {
-          runnable.run();
-        } catch (Throwable e) {
-          //noinspection ConstantConditions
-          if (e instanceof InterruptedException) {
-            Thread.currentThread().interrupt();
-          } else {
-            String friendlyPluginName = pluginManager.fromInstance(plugin)
-                .map(container -> container.getDescription().getName()
-                      .orElse(container.getDescription().getId()))
-                .orElse("UNKNOWN");
-            Log.logger.error("Exception in task {} by plugin {}", runnable, friendlyPluginName,
-                e);
-          }
-        } finally {
-          if (repeat == 0) {
-            onFinish();
-          }
-          currentTaskThread = null;
+    public void run(Timeout firedTimeout) {
+      if (status != TaskStatus.SCHEDULED) {
+        return;
+      }
+
+      long due = nextRunNanos;
+      if (repeat == 0) {
+        status = TaskStatus.FINISHED;
+      } else {
+        // Repeat at a fixed rate, measured from when the task was due rather than when it fired.
+        nextRunNanos += TimeUnit.MILLISECONDS.toNanos(repeat);
+        arm();
+      }
+
+      if (!queued.compareAndSet(false, true)) {
+        // The previous run of this repeating task is still waiting for a thread. Don't pile up
+        // more runs behind it.
+        return;
+      }
+      try {
+        pool.execute(due, this::runTask);
+      } catch (RuntimeException e) {
+        // The pool is shutting down.
+        queued.set(false);
+      }
+    }
+
+    private void runTask() {
+      queued.set(false);
+      if (status == TaskStatus.CANCELLED) {
+        return;
+      }
+      currentTaskThread = Thread.currentThread();
+      try {
+        runnable.run();
+      } catch (Throwable e) {
+        //noinspection ConstantConditions
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        } else {
+          String friendlyPluginName = pluginManager.fromInstance(plugin)
+              .map(container -> container.getDescription().getName()
+                    .orElse(container.getDescription().getId()))
+              .orElse("UNKNOWN");
+          Log.logger.error("Exception in task {} by plugin {}", runnable, friendlyPluginName,
+              e);
         }
-      });
+      } finally {
+        if (repeat == 0) {
+          onFinish();
+        }
+        currentTaskThread = null;
+      }
     }
 
     private void onFinish() {
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import com.velocitypowered.proxy.VelocityServer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Pings backend servers in the background for ping passthrough. Instead of pinging every backend
+ * server for every client ping, the latest response of each server is kept per protocol version
+ * and refreshed on a schedule, so the number of connections made to the backend servers does not
+ * depend on how often the proxy is pinged.
+ *
+ * <p>A server is only polled for a protocol version after a client has pinged with that version,
+ * and is no longer polled once no client has asked for it for a while. Concurrent requests for a
+ * server that has not been polled yet share a single ping.</p>
+ *
+ * <p>If {@code backend-probe-interval} is set, every registered server is also pinged on that
+ * interval and the outcome is fed into its {@link ServerHealth}, so that servers going down, and
+ * coming back up, are noticed without sending players to them first.</p>
+ */
+public class PingPassthroughPoller {
+
+  private static final Logger logger = LogManager.getLogger(PingPassthroughPoller.class);
+
+  /**
+   * How many poll intervals a target is kept alive without being requested.
+   */
+  private static final int IDLE_INTERVALS = 6;
+
+  /**
+   * The maximum fraction of the poll interval by which polls are spread out, so that servers
+   * added at the same time are not all pinged at the same time.
+   */
+  private static final double JITTER = 0.1;
+
+  private final IntSupplier interval;
+  private final IntSupplier timeout;
+  private final BiFunction<VelocityRegisteredServer, ProtocolVersion,
+      CompletableFuture<ServerPing>> pinger;
+  private final IntSupplier probeInterval;
+  private final Supplier<Collection<RegisteredServer>> servers;
+  private final ScheduledExecutorService executor;
+  private final Map<Target, Target> targets = new ConcurrentHashMap<>();
+  private final Set<VelocityRegisteredServer> probing = ConcurrentHashMap.newKeySet();
+  private int probeGeneration;
+
+  /**
+   * Creates a new poller.
+   *
+   * @param server the proxy
+   */
+  public PingPassthroughPoller(VelocityServer server) {
+    this(() -> server.getConfiguration().getPingPassthroughInterval(),
+        () -> server.getConfiguration().getPingPassthroughTimeout(),
+        (registeredServer, version) -> registeredServer.ping(null, version),
+        () -> server.getConfiguration().getBackendProbeInterval(),
+        server::getAllServers,
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("Velocity Ping Passthrough Poller")
+            .build()));
+  }
+
+  PingPassthroughPoller(IntSupplier interval, IntSupplier timeout,
+      BiFunction<VelocityRegisteredServer, ProtocolVersion, CompletableFuture<ServerPing>> pinger,
+      IntSupplier probeInterval, Supplier<Collection<RegisteredServer>> servers,
+      ScheduledExecutorService executor) {
+    this.interval = interval;
+    this.timeout = timeout;
+    this.pinger = pinger;
+    this.probeInterval = probeInterval;
+    this.servers = servers;
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the latest known response of the specified server to a ping from the specified
+   * protocol version. If the server has not been polled for this version yet, it is pinged and
+   * the returned future completes once the ping does.
+   *
+   * @param registeredServer the server to get the response of
+   * @param version the protocol version of the pinging client
+   * @return the latest response of the server
+   */
+  public CompletableFuture<ServerPing> getPing(VelocityRegisteredServer registeredServer,
+      ProtocolVersion version) {
+    if (interval.getAsInt() <= 0) {
+      return ping(registeredServer, version);
+    }
+
+    Target target = targets.get(new Target(registeredServer, version));
+    if (target == null) {
+      Target created = new Target(registeredServer, version);
+      CompletableFuture<ServerPing> first = new CompletableFuture<>();
+      created.latest = first;
+      created.lastRequested = System.nanoTime();
+      target = targets.putIfAbsent(created, created);
+      if (target == null) {
+        target = created;
+        ping(registeredServer, version).whenComplete((ping, ex) -> {
+          if (ex != null) {
+            first.completeExceptionally(ex);
+          } else {
+            first.complete(ping);
+          }
+          scheduleNext(created);
+        });
+      }
+    }
+    target.lastRequested = System.nanoTime();
+    return target.latest;
+  }
+
+  private CompletableFuture<ServerPing> ping(VelocityRegisteredServer registeredServer,
+      ProtocolVersion version) {
+    int timeout = this.timeout.getAsInt();
+    CompletableFuture<ServerPing> ping = pinger.apply(registeredServer, version);
+    return timeout > 0 ? ping.orTimeout(timeout, TimeUnit.MILLISECONDS) : ping;
+  }
+
+  private void scheduleNext(Target target) {
+    long interval = this.interval.getAsInt();
+    if (interval <= 0 || executor.isShutdown()) {
+      targets.remove(target);
+      return;
+    }
+    long jitter = (long) (interval * JITTER);
+    long delay = interval + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+    try {
+      executor.schedule(() -> poll(target), delay, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      // The executor is shutting down.
+      targets.remove(target);
+    }
+  }
+
+  private void poll(Target target) {
+    long interval = this.interval.getAsInt();
+    long idleNanos = TimeUnit.MILLISECONDS.toNanos(interval) * IDLE_INTERVALS;
+    if (interval <= 0 || System.nanoTime() - target.lastRequested > idleNanos) {
+      targets.remove(target);
+      return;
+    }
+
+    ping(target.server, target.version).whenComplete((ping, ex) -> {
+      if (ex != null) {
+        logger.debug("Unable to ping {} for ping passthrough",
+            target.server.getServerInfo().getName(), ex);
+      }
+      // Only replace the previous response once the new one is known, so clients are never kept
+      // waiting on a poll.
+      target.latest = ex == null ? CompletableFuture.completedFuture(ping)
+          : CompletableFuture.failedFuture(ex);
+      scheduleNext(target);
+    });
+  }
+
+  /**
+   * Starts probing the health of every backend server with the interval from the current
+   * configuration, replacing any previous schedule. Probing stops if the interval is {@code 0}.
+   */
+  public synchronized void rescheduleProbes() {
+    scheduleProbes(++probeGeneration);
+  }
+
+  private synchronized void scheduleProbes(int generation) {
+    long interval = probeInterval.getAsInt();
+    if (generation != probeGeneration || interval <= 0 || executor.isShutdown()) {
+      return;
+    }
+    try {
+      executor.schedule(() -> probeAll(generation), interval, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      // The executor is shutting down.
+    }
+  }
+
+  private void probeAll(int generation) {
+    synchronized (this) {
+      if (generation != probeGeneration) {
+        return;
+      }
+    }
+    for (RegisteredServer registered : servers.get()) {
+      VelocityRegisteredServer target = (VelocityRegisteredServer) registered;
+      // Don't pile up probes against a server that takes longer than the interval to respond.
+      if (!probing.add(target)) {
+        continue;
+      }
+      ping(target, ProtocolVersion.UNKNOWN).whenComplete((ping, ex) -> {
+        probing.remove(target);
+        if (ex != null) {
+          logger.debug("Health probe of {} failed", target.getServerInfo().getName(), ex);
+        }
+        target.recordHealth(ex == null);
+      });
+    }
+    scheduleProbes(generation);
+  }
+
+  /**
+   * Stops polling and probing the backend servers.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+    targets.clear();
+  }
+
+  private static final class Target {
+
+    private final VelocityRegisteredServer server;
+    private final ProtocolVersion version;
+    private volatile CompletableFuture<ServerPing> latest;
+    private volatile long lastRequested;
+
+    private Target(VelocityRegisteredServer server, ProtocolVersion version) {
+      this.server = server;
+      this.version = version;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Target target = (Target) o;
+      return server == target.server && version == target.version;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(System.identityHashCode(server), version);
+    }
+  }
+}
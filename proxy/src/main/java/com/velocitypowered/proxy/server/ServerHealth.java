@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.server;
+
+/**
+ * Tracks the health of a single backend server and acts as a circuit breaker for connections to
+ * it. Connections that fail to reach the server, failed status probes and overly slow logins
+ * count as failures; once enough of them happen in a row the breaker opens and connections to
+ * the server fail
+ * immediately instead of waiting for the connection timeout. After the retry delay has passed a
+ * single trial connection is let through, and its outcome decides whether the breaker closes
+ * again or stays open for another retry delay.
+ *
+ * <p>Times are passed in by the caller as {@link System#nanoTime()} values.</p>
+ */
+public final class ServerHealth {
+
+  private static final double EWMA_ALPHA = 0.2;
+
+  /**
+   * The state of the circuit breaker.
+   */
+  public enum State {
+    /**
+     * The server is healthy and connections are let through.
+     */
+    CLOSED,
+    /**
+     * The server is considered down and connections fail immediately.
+     */
+    OPEN,
+    /**
+     * The retry delay has passed and a trial connection decides whether the server is back.
+     */
+    HALF_OPEN
+  }
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean trialInFlight;
+  private int consecutiveFailures;
+  private long totalFailures;
+  private long trips;
+  private long handshakeLatencyNanos;
+
+  /**
+   * Decides whether a connection to the server may be attempted now. If this returns
+   * {@code true}, the caller must report the outcome of the attempt with
+   * {@link #recordSuccess()}, {@link #recordFailure(long, int)} or {@link #release()}.
+   *
+   * @param now the current time
+   * @param retryDelayNanos how long the breaker stays open before a trial connection is allowed
+   * @return whether the connection may be attempted
+   */
+  public synchronized boolean tryAcquire(long now, long retryDelayNanos) {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (now - openedAt < retryDelayNanos) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+      case HALF_OPEN:
+        if (trialInFlight) {
+          return false;
+        }
+        trialInFlight = true;
+        return true;
+      default:
+        throw new AssertionError(state);
+    }
+  }
+
+  /**
+   * Returns whether a connection to the server would currently be let through.
+   *
+   * @param now the current time
+   * @param retryDelayNanos how long the breaker stays open before a trial connection is allowed
+   * @return whether the server is available
+   */
+  public synchronized boolean isAvailable(long now, long retryDelayNanos) {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        return now - openedAt >= retryDelayNanos;
+      case HALF_OPEN:
+        return !trialInFlight;
+      default:
+        throw new AssertionError(state);
+    }
+  }
+
+  /**
+   * Records a successful connection or status probe, closing the breaker.
+   */
+  public synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    trialInFlight = false;
+    state = State.CLOSED;
+  }
+
+  /**
+   * Records the time a successful login to the server took.
+   *
+   * @param nanos the login time in nanoseconds
+   */
+  public synchronized void recordHandshakeLatency(long nanos) {
+    long current = handshakeLatencyNanos;
+    handshakeLatencyNanos = current == 0 ? nanos
+        : (long) (current + (nanos - current) * EWMA_ALPHA);
+  }
+
+  /**
+   * Records a failed connection or status probe. The breaker opens once {@code threshold}
+   * failures have happened in a row, or immediately if the failure was a trial connection.
+   *
+   * @param now the current time
+   * @param threshold the number of consecutive failures that opens the breaker
+   */
+  public synchronized void recordFailure(long now, int threshold) {
+    consecutiveFailures++;
+    totalFailures++;
+    trialInFlight = false;
+    if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= threshold)) {
+      state = State.OPEN;
+      openedAt = now;
+      trips++;
+    }
+  }
+
+  /**
+   * Gives up a connection attempt that was allowed by {@link #tryAcquire(long, long)} but ended
+   * without telling anything about the health of the server, for instance because the player
+   * disconnected.
+   */
+  public synchronized void release() {
+    trialInFlight = false;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public synchronized int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  public synchronized long getTotalFailures() {
+    return totalFailures;
+  }
+
+  /**
+   * Returns the number of times the breaker has opened.
+   *
+   * @return the number of times the breaker has opened
+   */
+  public synchronized long getTrips() {
+    return trips;
+  }
+
+  /**
+   * Returns the moving average of the time taken to log in to the server.
+   *
+   * @return the average login time in nanoseconds, or {@code 0} if nobody has logged in yet
+   */
+  public synchronized long getHandshakeLatencyNanos() {
+    return handshakeLatencyNanos;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ServerHealth{"
+        + "state=" + state
+        + ", consecutiveFailures=" + consecutiveFailures
+        + ", trips=" + trips
+        + '}';
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.server;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Decides which server a player is sent to when they join the proxy or have to be moved to a
+ * fallback server. Every strategy is handed the servers that are still eligible, in the order
+ * they were configured, and picks one of them.
+ */
+public enum ServerSelectionStrategy {
+  /**
+   * Tries the servers in the configured order. This is the historical behavior.
+   */
+  ORDERED("ordered") {
+    @Override
+    VelocityRegisteredServer select(List<VelocityRegisteredServer> candidates,
+        ToIntFunction<String> weights) {
+      return candidates.get(0);
+    }
+  },
+  /**
+   * Picks the server with the fewest players, counting connections still in progress.
+   */
+  LEAST_PLAYERS("least-players") {
+    @Override
+    VelocityRegisteredServer select(List<VelocityRegisteredServer> candidates,
+        ToIntFunction<String> weights) {
+      VelocityRegisteredServer best = candidates.get(0);
+      for (int i = 1; i < candidates.size(); i++) {
+        VelocityRegisteredServer candidate = candidates.get(i);
+        if (candidate.getLoad() < best.getLoad()) {
+          best = candidate;
+        }
+      }
+      return best;
+    }
+  },
+  /**
+   * Spreads players over the servers in proportion to their configured weights.
+   */
+  WEIGHTED_ROUND_ROBIN("weighted-round-robin") {
+    @Override
+    VelocityRegisteredServer select(List<VelocityRegisteredServer> candidates,
+        ToIntFunction<String> weights) {
+      long total = 0;
+      for (VelocityRegisteredServer candidate : candidates) {
+        total += weightOf(candidate, weights);
+      }
+      long slot = Math.floorMod(ROUND_ROBIN_COUNTER.getAndIncrement(), total);
+      for (VelocityRegisteredServer candidate : candidates) {
+        slot -= weightOf(candidate, weights);
+        if (slot < 0) {
+          return candidate;
+        }
+      }
+      return candidates.get(candidates.size() - 1);
+    }
+  },
+  /**
+   * Samples two servers at random and picks the less loaded one, breaking ties on connect
+   * latency. This avoids herding players onto the same server when many join at once.
+   */
+  POWER_OF_TWO_CHOICES("power-of-two-choices") {
+    @Override
+    VelocityRegisteredServer select(List<VelocityRegisteredServer> candidates,
+        ToIntFunction<String> weights) {
+      if (candidates.size() == 1) {
+        return candidates.get(0);
+      }
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int first = random.nextInt(candidates.size());
+      int second = random.nextInt(candidates.size() - 1);
+      if (second >= first) {
+        second++;
+      }
+      VelocityRegisteredServer a = candidates.get(first);
+      VelocityRegisteredServer b = candidates.get(second);
+      if (a.getLoad() != b.getLoad()) {
+        return a.getLoad() < b.getLoad() ? a : b;
+      }
+      return a.getConnectLatencyNanos() <= b.getConnectLatencyNanos() ? a : b;
+    }
+  },
+  /**
+   * Picks the server with the best combination of load, connect latency and recent connect
+   * failures.
+   */
+  HEALTH_AWARE("health-aware") {
+    @Override
+    VelocityRegisteredServer select(List<VelocityRegisteredServer> candidates,
+        ToIntFunction<String> weights) {
+      VelocityRegisteredServer best = candidates.get(0);
+      double bestScore = healthScore(best, weights);
+      for (int i = 1; i < candidates.size(); i++) {
+        VelocityRegisteredServer candidate = candidates.get(i);
+        double score = healthScore(candidate, weights);
+        if (score < bestScore) {
+          best = candidate;
+          bestScore = score;
+        }
+      }
+      return best;
+    }
+  };
+
+  private static final AtomicLong ROUND_ROBIN_COUNTER = new AtomicLong();
+  private static final double MIN_SUCCESS_RATE = 0.05;
+
+  private final String configName;
+
+  ServerSelectionStrategy(String configName) {
+    this.configName = configName;
+  }
+
+  /**
+   * Selects one of the {@code candidates}.
+   *
+   * @param candidates the eligible servers in configured order, never empty
+   * @param weights the configured weight of each server, by name
+   * @return the selected server
+   */
+  abstract VelocityRegisteredServer select(List<VelocityRegisteredServer> candidates,
+      ToIntFunction<String> weights);
+
+  public String getConfigName() {
+    return configName;
+  }
+
+  /**
+   * Looks up a strategy by the name used for it in the configuration file.
+   *
+   * @param name the name of the strategy
+   * @return the strategy, or {@code null} if there is no strategy with that name
+   */
+  public static @Nullable ServerSelectionStrategy fromConfigName(String name) {
+    String lowerName = name.toLowerCase(Locale.ROOT);
+    for (ServerSelectionStrategy strategy : values()) {
+      if (strategy.configName.equals(lowerName)) {
+        return strategy;
+      }
+    }
+    return null;
+  }
+
+  private static int weightOf(VelocityRegisteredServer server, ToIntFunction<String> weights) {
+    return Math.max(1, weights.applyAsInt(server.getServerInfo().getName()));
+  }
+
+  private static double healthScore(VelocityRegisteredServer server,
+      ToIntFunction<String> weights) {
+    // Lower is better. Servers that have not been connected to yet count as 1ms away, so they
+    // get tried instead of being starved by servers with a known, higher latency.
+    double latencyMillis = Math.max(1.0, server.getConnectLatencyNanos()
+        / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    double successRate = Math.max(MIN_SUCCESS_RATE, 1.0 - server.getConnectFailureRate());
+    return (server.getLoad() + 1.0) * latencyMillis / (successRate * weightOf(server, weights));
+  }
+}
@@ -54,6 +54,7 @@ import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.kyori.adventure.audience.Audience;
 import net.kyori.adventure.audience.ForwardingAudience;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -61,9 +62,15 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 public class VelocityRegisteredServer implements RegisteredServer, ForwardingAudience {
 
+  private static final double EWMA_ALPHA = 0.2;
+
   private final @Nullable VelocityServer server;
   private final ServerInfo serverInfo;
   private final Map<UUID, ConnectedPlayer> players = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingConnections = new AtomicInteger();
+  private volatile long connectLatencyNanos;
+  private volatile double connectFailureRate;
+  private final ServerHealth health = new ServerHealth();
 
   public VelocityRegisteredServer(@Nullable VelocityServer server, ServerInfo serverInfo) {
     this.server = server;
@@ -88,7 +95,7 @@ public class VelocityRegisteredServer implements RegisteredServer, ForwardingAud
   /**
    * Pings the specified server using the specified event {@code loop}, claiming to be
    * {@code version}.
-   * @param loop the event loop to use
+   * @param loop the event loop to use, or {@code null} to use the proxy's auxiliary event loops
    * @param version the version to report
    * @return the server list ping response
    */
@@ -97,7 +104,7 @@ public class VelocityRegisteredServer implements RegisteredServer, ForwardingAud
       throw new IllegalStateException("No Velocity proxy instance available");
     }
     CompletableFuture<ServerPing> pingFuture = new CompletableFuture<>();
-    server.createBootstrap(loop)
+    server.createBootstrap(loop != null ? loop : server.getAuxiliaryGroup())
         .handler(new ChannelInitializer<Channel>() {
           @Override
           protected void initChannel(Channel ch) throws Exception {
@@ -136,6 +143,144 @@ public class VelocityRegisteredServer implements RegisteredServer, ForwardingAud
     players.remove(player.getUniqueId(), player);
   }
 
+  /**
+   * Records that a player has started connecting to this server.
+   */
+  public void connectionStarted() {
+    pendingConnections.incrementAndGet();
+  }
+
+  /**
+   * Asks the circuit breaker of this server whether a player may start connecting to it. If this
+   * returns {@code true}, the outcome of the connection must be reported with
+   * {@link #connectionFinished(boolean, long)} or {@link #connectionCancelled()}.
+   *
+   * @return whether the connection may be attempted
+   */
+  public boolean tryStartConnection() {
+    if (isCircuitBreakerEnabled()
+        && !health.tryAcquire(System.nanoTime(), getRetryDelayNanos())) {
+      return false;
+    }
+    connectionStarted();
+    return true;
+  }
+
+  /**
+   * Records that a connection attempt to this server has finished. Failed attempts are not
+   * counted against the health of the server, as they may have failed after reaching it; failing
+   * to reach the server must be reported separately with {@link #recordHealth(boolean)}.
+   *
+   * @param failed whether the proxy was unable to connect or log in to the server
+   * @param loginNanos the time taken to connect and log in to the server, in nanoseconds
+   */
+  public void connectionFinished(boolean failed, long loginNanos) {
+    pendingConnections.decrementAndGet();
+    synchronized (this) {
+      connectFailureRate += (((failed ? 1.0 : 0.0) - connectFailureRate) * EWMA_ALPHA);
+    }
+    if (failed) {
+      health.release();
+      return;
+    }
+    health.recordHandshakeLatency(loginNanos);
+
+    long slowLoginNanos = server == null ? 0 : TimeUnit.MILLISECONDS.toNanos(
+        server.getConfiguration().getBackendSlowLoginThreshold());
+    recordHealth(slowLoginNanos == 0 || loginNanos <= slowLoginNanos);
+  }
+
+  /**
+   * Records that a connection attempt to this server was abandoned without telling anything
+   * about the health of the server, for instance because the player disconnected.
+   */
+  public void connectionCancelled() {
+    pendingConnections.decrementAndGet();
+    health.release();
+  }
+
+  /**
+   * Records the outcome of a connection attempt or status probe in the health of this server.
+   *
+   * @param healthy whether the server responded as expected
+   */
+  public void recordHealth(boolean healthy) {
+    if (healthy) {
+      health.recordSuccess();
+    } else if (isCircuitBreakerEnabled()) {
+      health.recordFailure(System.nanoTime(), getFailureThreshold());
+    } else {
+      health.release();
+    }
+  }
+
+  /**
+   * Returns whether players can currently be sent to this server, that is whether its circuit
+   * breaker would let a connection through.
+   *
+   * @return whether the server is available
+   */
+  public boolean isAvailable() {
+    return !isCircuitBreakerEnabled()
+        || health.isAvailable(System.nanoTime(), getRetryDelayNanos());
+  }
+
+  public ServerHealth getHealth() {
+    return health;
+  }
+
+  private boolean isCircuitBreakerEnabled() {
+    return getFailureThreshold() > 0;
+  }
+
+  private int getFailureThreshold() {
+    return server == null ? 0 : server.getConfiguration().getBackendFailureThreshold();
+  }
+
+  private long getRetryDelayNanos() {
+    return server == null ? 0
+        : TimeUnit.MILLISECONDS.toNanos(server.getConfiguration().getBackendRetryDelay());
+  }
+
+  /**
+   * Records how long it took to open a connection to this server.
+   *
+   * @param nanos the time taken to connect, in nanoseconds
+   */
+  public synchronized void recordConnectLatency(long nanos) {
+    long current = connectLatencyNanos;
+    connectLatencyNanos = current == 0 ? nanos : (long) (current + (nanos - current) * EWMA_ALPHA);
+  }
+
+  /**
+   * Returns the number of players on this server plus the number of players currently connecting
+   * to it.
+   *
+   * @return the load on this server
+   */
+  public int getLoad() {
+    return players.size() + Math.max(0, pendingConnections.get());
+  }
+
+  /**
+   * Returns the moving average of the time taken to connect to this server.
+   *
+   * @return the average connect latency in nanoseconds, or {@code 0} if no connection has been
+   *         made yet
+   */
+  public long getConnectLatencyNanos() {
+    return connectLatencyNanos;
+  }
+
+  /**
+   * Returns the moving average of the fraction of connection attempts to this server that failed.
+   *
+   * @return the connect failure rate, between {@code 0} and {@code 1}
+   */
+  public double getConnectFailureRate() {
+    return connectFailureRate;
+  }
+
   @Override
   public boolean sendPluginMessage(ChannelIdentifier identifier, byte[] data) {
     return sendPluginMessage(identifier, Unpooled.wrappedBuffer(data));
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the work done by a codec stage, such as compression or encryption: how many bytes went
+ * into it, how many came out, and how long it took.
+ */
+public final class CodecStatistics {
+
+  /**
+   * Packets compressed before being sent.
+   */
+  public static final CodecStatistics COMPRESSION = new CodecStatistics();
+
+  /**
+   * Data encrypted before being sent.
+   */
+  public static final CodecStatistics ENCRYPTION = new CodecStatistics();
+
+  /**
+   * Data decrypted after being received.
+   */
+  public static final CodecStatistics DECRYPTION = new CodecStatistics();
+
+  private final LongAdder operations = new LongAdder();
+  private final LongAdder inputBytes = new LongAdder();
+  private final LongAdder outputBytes = new LongAdder();
+  private final LongAdder nanos = new LongAdder();
+
+  private CodecStatistics() {
+  }
+
+  /**
+   * Records a single operation.
+   *
+   * @param inputBytes the number of bytes processed
+   * @param outputBytes the number of bytes produced
+   * @param nanos the time taken, in nanoseconds
+   */
+  public void record(int inputBytes, int outputBytes, long nanos) {
+    this.operations.increment();
+    this.inputBytes.add(inputBytes);
+    this.outputBytes.add(outputBytes);
+    this.nanos.add(nanos);
+  }
+
+  public long getOperations() {
+    return operations.sum();
+  }
+
+  public long getInputBytes() {
+    return inputBytes.sum();
+  }
+
+  public long getOutputBytes() {
+    return outputBytes.sum();
+  }
+
+  public long getTotalNanos() {
+    return nanos.sum();
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Keeps track of how many connections, to both clients and backend servers, are in each
+ * protocol state.
+ */
+public final class ConnectionStatistics {
+
+  private static final AtomicIntegerArray CONNECTIONS =
+      new AtomicIntegerArray(StateRegistry.values().length);
+
+  private ConnectionStatistics() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Records a connection moving from one state to another.
+   *
+   * @param from the previous state of the connection, or {@code null} if it is new
+   * @param to the new state of the connection, or {@code null} if it has closed
+   */
+  public static void transition(@Nullable StateRegistry from, @Nullable StateRegistry to) {
+    if (from != null) {
+      CONNECTIONS.decrementAndGet(from.ordinal());
+    }
+    if (to != null) {
+      CONNECTIONS.incrementAndGet(to.ordinal());
+    }
+  }
+
+  /**
+   * Returns the number of open connections in the specified state.
+   *
+   * @param state the state to count connections in
+   * @return the number of connections in that state
+   */
+  public static int getConnections(StateRegistry state) {
+    return CONNECTIONS.get(state.ordinal());
+  }
+}
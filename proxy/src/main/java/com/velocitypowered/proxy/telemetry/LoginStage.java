@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import com.velocitypowered.proxy.util.LatencyHistogram;
+
+/**
+ * The stages a client goes through while logging in to the proxy, each with a histogram of how
+ * long it takes.
+ */
+public enum LoginStage {
+  /**
+   * From the login start packet until the pre-login event has been handled.
+   */
+  PRE_LOGIN("pre_login"),
+  /**
+   * Decrypting the shared secret sent by an online-mode client.
+   */
+  DECRYPTION("decryption"),
+  /**
+   * Authenticating an online-mode client with the session server.
+   */
+  AUTHENTICATION("authentication"),
+  /**
+   * Handling the game profile request and permission setup events.
+   */
+  PROFILE("profile"),
+  /**
+   * Handling the login event.
+   */
+  LOGIN_EVENT("login_event"),
+  /**
+   * From the login start packet until the player has been registered with the proxy.
+   */
+  TOTAL("total");
+
+  private final String metricName;
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  LoginStage(String metricName) {
+    this.metricName = metricName;
+  }
+
+  public String getMetricName() {
+    return metricName;
+  }
+
+  /**
+   * Records the time a client spent in this stage.
+   *
+   * @param startNanos when the stage started, as a {@link System#nanoTime()} value
+   */
+  public void recordSince(long startNanos) {
+    latency.record(System.nanoTime() - startNanos);
+  }
+
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import com.velocitypowered.api.event.EventHandlerStatistics;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.natives.compression.LibdeflateContextPool;
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.connection.FlushCoalescer;
+import com.velocitypowered.proxy.connection.client.SessionVerifier;
+import com.velocitypowered.proxy.event.VelocityEventManager;
+import com.velocitypowered.proxy.network.AdmissionController;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.scheduler.PluginTaskPool;
+import com.velocitypowered.proxy.server.ServerHealth;
+import com.velocitypowered.proxy.server.VelocityRegisteredServer;
+import com.velocitypowered.proxy.util.concurrent.CryptoExecutor;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetric;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.util.internal.PlatformDependent;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the metrics of the proxy into an OpenMetrics exposition.
+ */
+public final class OpenMetricsExporter {
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final VelocityServer server;
+  private final VelocityEventManager eventManager;
+
+  public OpenMetricsExporter(VelocityServer server, VelocityEventManager eventManager) {
+    this.server = server;
+    this.eventManager = eventManager;
+  }
+
+  /**
+   * Collects the current value of every metric.
+   *
+   * @return the metrics in the OpenMetrics text format
+   */
+  public String export() {
+    OpenMetricsWriter writer = new OpenMetricsWriter();
+    writeConnections(writer);
+    writePackets(writer);
+    writeCodecs(writer);
+    writeLogins(writer);
+    writeEvents(writer);
+    writeBackends(writer);
+    writeScheduler(writer);
+    writeMemory(writer);
+    return writer.finish();
+  }
+
+  private void writeConnections(OpenMetricsWriter writer) {
+    writer.gauge("velocity_players", "Players connected to the proxy")
+        .sample("velocity_players", server.getPlayerCount());
+
+    writer.gauge("velocity_connections", "Open client and backend connections by protocol state");
+    for (StateRegistry state : StateRegistry.values()) {
+      writer.sample("velocity_connections", ConnectionStatistics.getConnections(state),
+          "state", name(state));
+    }
+
+    AdmissionController admission = server.getAdmissionController();
+    writer.gauge("velocity_admission_connections", "Client connections tracked by admission "
+        + "control")
+        .sample("velocity_admission_connections", admission.getConnections())
+        .gauge("velocity_admission_handshakes_in_flight", "Client handshakes in progress")
+        .sample("velocity_admission_handshakes_in_flight", admission.getHandshakesInFlight())
+        .gauge("velocity_admission_backoff", "Whether admission control is backing off")
+        .sample("velocity_admission_backoff", admission.isBackoffActive() ? 1 : 0)
+        .counter("velocity_admission_admitted", "Client connections admitted")
+        .counterSample("velocity_admission_admitted", admission.getAdmitted())
+        .counter("velocity_admission_rejected", "Client connections rejected")
+        .counterSample("velocity_admission_rejected", admission.getRejected());
+
+    writer.counter("velocity_flushes", "Flushes of relayed packets")
+        .counterSample("velocity_flushes", FlushCoalescer.CLIENTBOUND.getFlushes(),
+            "direction", "clientbound")
+        .counterSample("velocity_flushes", FlushCoalescer.SERVERBOUND.getFlushes(),
+            "direction", "serverbound")
+        .counter("velocity_flushes_coalesced", "Flushes saved by coalescing relayed packets")
+        .counterSample("velocity_flushes_coalesced",
+            FlushCoalescer.CLIENTBOUND.getCoalescedFlushes(), "direction", "clientbound")
+        .counterSample("velocity_flushes_coalesced",
+            FlushCoalescer.SERVERBOUND.getCoalescedFlushes(), "direction", "serverbound")
+        .counter("velocity_flush_delay_seconds", "Time by which flushes were deferred")
+        .counterSample("velocity_flush_delay_seconds",
+            FlushCoalescer.CLIENTBOUND.getAddedLatencyNanos() / NANOS_PER_SECOND,
+            "direction", "clientbound")
+        .counterSample("velocity_flush_delay_seconds",
+            FlushCoalescer.SERVERBOUND.getAddedLatencyNanos() / NANOS_PER_SECOND,
+            "direction", "serverbound");
+  }
+
+  private void writePackets(OpenMetricsWriter writer) {
+    writer.counter("velocity_packets_decoded", "Packets received, by direction and type");
+    for (ProtocolUtils.Direction direction : ProtocolUtils.Direction.values()) {
+      for (PacketStatistics.Counter counter : PacketStatistics.decoded(direction).getCounters()) {
+        writer.counterSample("velocity_packets_decoded", counter.getPackets(),
+            "direction", name(direction), "type", counter.getType());
+      }
+    }
+    writer.counter("velocity_packet_bytes_decoded", "Bytes of packets received, by direction "
+        + "and type");
+    for (ProtocolUtils.Direction direction : ProtocolUtils.Direction.values()) {
+      for (PacketStatistics.Counter counter : PacketStatistics.decoded(direction).getCounters()) {
+        writer.counterSample("velocity_packet_bytes_decoded", counter.getBytes(),
+            "direction", name(direction), "type", counter.getType());
+      }
+    }
+    writer.counter("velocity_packets_encoded", "Packets encoded by the proxy, by direction and "
+        + "type");
+    for (ProtocolUtils.Direction direction : ProtocolUtils.Direction.values()) {
+      for (PacketStatistics.Counter counter : PacketStatistics.encoded(direction).getCounters()) {
+        writer.counterSample("velocity_packets_encoded", counter.getPackets(),
+            "direction", name(direction), "type", counter.getType());
+      }
+    }
+    writer.counter("velocity_packet_bytes_encoded", "Bytes of packets encoded by the proxy, by "
+        + "direction and type");
+    for (ProtocolUtils.Direction direction : ProtocolUtils.Direction.values()) {
+      for (PacketStatistics.Counter counter : PacketStatistics.encoded(direction).getCounters()) {
+        writer.counterSample("velocity_packet_bytes_encoded", counter.getBytes(),
+            "direction", name(direction), "type", counter.getType());
+      }
+    }
+  }
+
+  private void writeCodecs(OpenMetricsWriter writer) {
+    CodecStatistics compression = CodecStatistics.COMPRESSION;
+    writer.counter("velocity_compression_input_bytes", "Bytes of packets compressed")
+        .counterSample("velocity_compression_input_bytes", compression.getInputBytes())
+        .counter("velocity_compression_output_bytes", "Bytes produced by compressing packets")
+        .counterSample("velocity_compression_output_bytes", compression.getOutputBytes())
+        .counter("velocity_compression_seconds", "Time spent compressing packets")
+        .counterSample("velocity_compression_seconds",
+            compression.getTotalNanos() / NANOS_PER_SECOND)
+        .gauge("velocity_compression_ratio", "Compressed size divided by uncompressed size of "
+            + "all packets compressed so far")
+        .sample("velocity_compression_ratio", compression.getInputBytes() == 0 ? 1.0
+            : (double) compression.getOutputBytes() / compression.getInputBytes());
+
+    writer.counter("velocity_cipher_bytes", "Bytes encrypted or decrypted")
+        .counterSample("velocity_cipher_bytes", CodecStatistics.ENCRYPTION.getInputBytes(),
+            "operation", "encrypt")
+        .counterSample("velocity_cipher_bytes", CodecStatistics.DECRYPTION.getInputBytes(),
+            "operation", "decrypt")
+        .counter("velocity_cipher_seconds", "Time spent encrypting or decrypting")
+        .counterSample("velocity_cipher_seconds",
+            CodecStatistics.ENCRYPTION.getTotalNanos() / NANOS_PER_SECOND,
+            "operation", "encrypt")
+        .counterSample("velocity_cipher_seconds",
+            CodecStatistics.DECRYPTION.getTotalNanos() / NANOS_PER_SECOND,
+            "operation", "decrypt");
+
+    writer.gauge("velocity_libdeflate_contexts", "Native compression contexts allocated")
+        .sample("velocity_libdeflate_contexts", LibdeflateContextPool.getAllocatedContexts())
+        .gauge("velocity_libdeflate_contexts_leased", "Native compression contexts in use")
+        .sample("velocity_libdeflate_contexts_leased", LibdeflateContextPool.getLeasedContexts())
+        .counter("velocity_libdeflate_leases", "Leases of native compression contexts")
+        .counterSample("velocity_libdeflate_leases", LibdeflateContextPool.getTotalLeases());
+  }
+
+  private void writeLogins(OpenMetricsWriter writer) {
+    writer.summary("velocity_login_stage_seconds", "Time clients spend in each login stage");
+    for (LoginStage stage : LoginStage.values()) {
+      writer.summarySample("velocity_login_stage_seconds", stage.getLatency(),
+          "stage", stage.getMetricName());
+    }
+
+    SessionVerifier verifier = server.getSessionVerifier();
+    writer.summary("velocity_session_request_seconds", "Latency of session server requests")
+        .summarySample("velocity_session_request_seconds", verifier.getRequestLatency())
+        .counter("velocity_session_failures", "Failed session server requests")
+        .counterSample("velocity_session_failures", verifier.getFailures())
+        .counter("velocity_session_rejected", "Logins rejected while the session server was "
+            + "unavailable")
+        .counterSample("velocity_session_rejected", verifier.getRejected());
+
+    CryptoExecutor crypto = server.getCryptoExecutor();
+    writer.gauge("velocity_crypto_queue_depth", "Login decryption tasks waiting to run")
+        .sample("velocity_crypto_queue_depth", crypto.getQueueDepth())
+        .gauge("velocity_crypto_queue_capacity", "Capacity of the login decryption queue")
+        .sample("velocity_crypto_queue_capacity", crypto.getQueueCapacity())
+        .counter("velocity_crypto_tasks_completed", "Login decryption tasks completed")
+        .counterSample("velocity_crypto_tasks_completed", crypto.getCompletedTasks())
+        .counter("velocity_crypto_tasks_rejected", "Login decryption tasks rejected")
+        .counterSample("velocity_crypto_tasks_rejected", crypto.getRejectedTasks());
+  }
+
+  private void writeEvents(OpenMetricsWriter writer) {
+    writer.summary("velocity_event_dispatch_seconds", "Time from firing an event until all of "
+        + "its handlers have completed")
+        .summarySample("velocity_event_dispatch_seconds",
+            eventManager.getDispatchLatency());
+
+    writer.counter("velocity_event_handler_invocations", "Invocations of plugin event handlers");
+    for (EventHandlerStatistics statistics : eventManager.getHandlerStatistics()) {
+      writer.counterSample("velocity_event_handler_invocations",
+          statistics.getInvocationCount(), handlerLabels(statistics));
+    }
+    writer.counter("velocity_event_handler_seconds", "Time spent running plugin event handlers");
+    for (EventHandlerStatistics statistics : eventManager.getHandlerStatistics()) {
+      writer.counterSample("velocity_event_handler_seconds",
+          statistics.getTotalExecutionTime().toNanos() / NANOS_PER_SECOND,
+          handlerLabels(statistics));
+    }
+  }
+
+  private static String[] handlerLabels(EventHandlerStatistics statistics) {
+    return new String[] {"plugin", statistics.getPluginId(),
+        "event", statistics.getEventType().getSimpleName()};
+  }
+
+  private void writeBackends(OpenMetricsWriter writer) {
+    writer.gauge("velocity_backend_players", "Players connected to each backend server");
+    for (RegisteredServer registered : server.getAllServers()) {
+      VelocityRegisteredServer backend = (VelocityRegisteredServer) registered;
+      writer.sample("velocity_backend_players", backend.getPlayersConnected().size(),
+          "server", backend.getServerInfo().getName());
+    }
+    writer.gauge("velocity_backend_connect_seconds", "Moving average of the time taken to "
+        + "connect to each backend server");
+    for (RegisteredServer registered : server.getAllServers()) {
+      VelocityRegisteredServer backend = (VelocityRegisteredServer) registered;
+      writer.sample("velocity_backend_connect_seconds",
+          backend.getConnectLatencyNanos() / NANOS_PER_SECOND,
+          "server", backend.getServerInfo().getName());
+    }
+    writer.gauge("velocity_backend_login_seconds", "Moving average of the time taken to log "
+        + "in to each backend server");
+    for (RegisteredServer registered : server.getAllServers()) {
+      VelocityRegisteredServer backend = (VelocityRegisteredServer) registered;
+      writer.sample("velocity_backend_login_seconds",
+          backend.getHealth().getHandshakeLatencyNanos() / NANOS_PER_SECOND,
+          "server", backend.getServerInfo().getName());
+    }
+    writer.gauge("velocity_backend_connect_failure_rate", "Moving average of the fraction of "
+        + "connections to each backend server that failed");
+    for (RegisteredServer registered : server.getAllServers()) {
+      VelocityRegisteredServer backend = (VelocityRegisteredServer) registered;
+      writer.sample("velocity_backend_connect_failure_rate", backend.getConnectFailureRate(),
+          "server", backend.getServerInfo().getName());
+    }
+    writer.gauge("velocity_backend_circuit_state", "Circuit breaker state of each backend "
+        + "server");
+    for (RegisteredServer registered : server.getAllServers()) {
+      VelocityRegisteredServer backend = (VelocityRegisteredServer) registered;
+      ServerHealth.State current = backend.getHealth().getState();
+      for (ServerHealth.State state : ServerHealth.State.values()) {
+        writer.sample("velocity_backend_circuit_state", state == current ? 1 : 0,
+            "server", backend.getServerInfo().getName(), "state", name(state));
+      }
+    }
+    writer.counter("velocity_backend_circuit_trips", "Times the circuit breaker of each backend "
+        + "server opened");
+    for (RegisteredServer registered : server.getAllServers()) {
+      VelocityRegisteredServer backend = (VelocityRegisteredServer) registered;
+      writer.counterSample("velocity_backend_circuit_trips", backend.getHealth().getTrips(),
+          "server", backend.getServerInfo().getName());
+    }
+  }
+
+  private void writeScheduler(OpenMetricsWriter writer) {
+    writer.gauge("velocity_plugin_tasks_queued", "Scheduled plugin tasks waiting for a thread");
+    for (PluginTaskPool pool : server.getScheduler().getPluginTaskPools()) {
+      writer.sample("velocity_plugin_tasks_queued", pool.getQueueDepth(),
+          "plugin", pool.getPluginId());
+    }
+    writer.gauge("velocity_plugin_tasks_active", "Scheduled plugin tasks running");
+    for (PluginTaskPool pool : server.getScheduler().getPluginTaskPools()) {
+      writer.sample("velocity_plugin_tasks_active", pool.getActiveThreads(),
+          "plugin", pool.getPluginId());
+    }
+    writer.counter("velocity_plugin_tasks_late", "Scheduled plugin tasks that started late");
+    for (PluginTaskPool pool : server.getScheduler().getPluginTaskPools()) {
+      writer.counterSample("velocity_plugin_tasks_late", pool.getLateStarts(),
+          "plugin", pool.getPluginId());
+    }
+    writer.summary("velocity_plugin_task_run_seconds", "Time taken by scheduled plugin tasks");
+    for (PluginTaskPool pool : server.getScheduler().getPluginTaskPools()) {
+      writer.summarySample("velocity_plugin_task_run_seconds", pool.getRunTime(),
+          "plugin", pool.getPluginId());
+    }
+    writer.summary("velocity_plugin_task_start_delay_seconds", "Time scheduled plugin tasks "
+        + "waited for a thread");
+    for (PluginTaskPool pool : server.getScheduler().getPluginTaskPools()) {
+      writer.summarySample("velocity_plugin_task_start_delay_seconds", pool.getStartDelay(),
+          "plugin", pool.getPluginId());
+    }
+  }
+
+  private void writeMemory(OpenMetricsWriter writer) {
+    writer.gauge("velocity_netty_direct_memory_bytes", "Direct memory reserved by Netty")
+        .sample("velocity_netty_direct_memory_bytes", PlatformDependent.usedDirectMemory())
+        .gauge("velocity_netty_direct_memory_max_bytes", "Maximum direct memory Netty may use")
+        .sample("velocity_netty_direct_memory_max_bytes", PlatformDependent.maxDirectMemory());
+
+    ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    if (allocator instanceof ByteBufAllocatorMetricProvider) {
+      ByteBufAllocatorMetric metric = ((ByteBufAllocatorMetricProvider) allocator).metric();
+      writer.gauge("velocity_netty_allocator_bytes", "Memory used by the Netty buffer allocator")
+          .sample("velocity_netty_allocator_bytes", metric.usedDirectMemory(), "type", "direct")
+          .sample("velocity_netty_allocator_bytes", metric.usedHeapMemory(), "type", "heap");
+    }
+  }
+
+  private static String name(Enum<?> value) {
+    return value.name().toLowerCase(Locale.ROOT);
+  }
+}
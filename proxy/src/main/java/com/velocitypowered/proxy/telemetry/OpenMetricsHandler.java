@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves the proxy's metrics in the OpenMetrics text format on {@code /metrics}.
+ */
+@ChannelHandler.Sharable
+public class OpenMetricsHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+  private static final Logger logger = LogManager.getLogger(OpenMetricsHandler.class);
+
+  private static final String PATH = "/metrics";
+
+  private final Supplier<String> exposition;
+
+  public OpenMetricsHandler(OpenMetricsExporter exporter) {
+    this(exporter::export);
+  }
+
+  @VisibleForTesting
+  OpenMetricsHandler(Supplier<String> exposition) {
+    this.exposition = exposition;
+  }
+
+  @Override
+  protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+    FullHttpResponse response;
+    if (!request.decoderResult().isSuccess()) {
+      response = status(ctx, request, HttpResponseStatus.BAD_REQUEST);
+    } else if (!PATH.equals(new QueryStringDecoder(request.uri()).path())) {
+      response = status(ctx, request, HttpResponseStatus.NOT_FOUND);
+    } else if (!request.method().equals(HttpMethod.GET)
+        && !request.method().equals(HttpMethod.HEAD)) {
+      response = status(ctx, request, HttpResponseStatus.METHOD_NOT_ALLOWED);
+      response.headers().set(HttpHeaderNames.ALLOW, "GET, HEAD");
+    } else {
+      ByteBuf body = ByteBufUtil.writeUtf8(ctx.alloc(), exposition.get());
+      int length = body.readableBytes();
+      if (request.method().equals(HttpMethod.HEAD)) {
+        body.release();
+        body = Unpooled.EMPTY_BUFFER;
+      }
+      response = new DefaultFullHttpResponse(request.protocolVersion(), HttpResponseStatus.OK,
+          body);
+      response.headers()
+          .set(HttpHeaderNames.CONTENT_TYPE, OpenMetricsWriter.CONTENT_TYPE)
+          .setInt(HttpHeaderNames.CONTENT_LENGTH, length);
+    }
+
+    boolean keepAlive = HttpUtil.isKeepAlive(request);
+    HttpUtil.setKeepAlive(response, keepAlive);
+    if (keepAlive) {
+      ctx.writeAndFlush(response, ctx.voidPromise());
+    } else {
+      ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+  }
+
+  private static FullHttpResponse status(ChannelHandlerContext ctx, FullHttpRequest request,
+      HttpResponseStatus status) {
+    FullHttpResponse response = new DefaultFullHttpResponse(request.protocolVersion(), status,
+        ByteBufUtil.writeUtf8(ctx.alloc(), status.toString() + "\n"));
+    response.headers()
+        .set(HttpHeaderNames.CONTENT_TYPE, "text/plain; charset=utf-8")
+        .setInt(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
+    return response;
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+    logger.debug("Error serving metrics to {}", ctx.channel().remoteAddress(), cause);
+    ctx.close();
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import com.google.common.base.Preconditions;
+import com.velocitypowered.proxy.util.LatencyHistogram;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Writes metrics in the OpenMetrics text format. Each metric family is started with one of the
+ * {@code counter}, {@code gauge} or {@code summary} methods, followed by its samples.
+ */
+public final class OpenMetricsWriter {
+
+  /**
+   * The content type of the OpenMetrics text format.
+   */
+  public static final String CONTENT_TYPE =
+      "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final StringBuilder out = new StringBuilder(4096);
+  private boolean finished;
+
+  /**
+   * Starts a counter metric family. Samples must be written with {@link #counterSample}.
+   *
+   * @param name the name of the family, without the {@code _total} suffix
+   * @param help a description of the metric
+   * @return this writer
+   */
+  public OpenMetricsWriter counter(String name, String help) {
+    return family(name, "counter", help);
+  }
+
+  /**
+   * Starts a gauge metric family. Samples must be written with {@link #sample}.
+   *
+   * @param name the name of the family
+   * @param help a description of the metric
+   * @return this writer
+   */
+  public OpenMetricsWriter gauge(String name, String help) {
+    return family(name, "gauge", help);
+  }
+
+  /**
+   * Starts a summary metric family. Samples must be written with {@link #summarySample}.
+   *
+   * @param name the name of the family, in seconds
+   * @param help a description of the metric
+   * @return this writer
+   */
+  public OpenMetricsWriter summary(String name, String help) {
+    return family(name, "summary", help);
+  }
+
+  private OpenMetricsWriter family(String name, String type, String help) {
+    Preconditions.checkState(!finished, "writer already finished");
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    out.append("# HELP ").append(name).append(' ');
+    escape(help);
+    out.append('\n');
+    return this;
+  }
+
+  /**
+   * Writes a sample of a gauge.
+   *
+   * @param name the name of the family
+   * @param value the value of the sample
+   * @param labels alternating label names and values
+   * @return this writer
+   */
+  public OpenMetricsWriter sample(String name, double value, String... labels) {
+    line(name, labels, null);
+    value(value);
+    out.append('\n');
+    return this;
+  }
+
+  /**
+   * Writes a sample of a counter.
+   *
+   * @param name the name of the family, without the {@code _total} suffix
+   * @param value the value of the counter
+   * @param labels alternating label names and values
+   * @return this writer
+   */
+  public OpenMetricsWriter counterSample(String name, double value, String... labels) {
+    return sample(name + "_total", value, labels);
+  }
+
+  /**
+   * Writes the quantiles, count and sum of a latency histogram as a summary, in seconds.
+   *
+   * @param name the name of the family
+   * @param histogram the histogram to write
+   * @param labels alternating label names and values
+   * @return this writer
+   */
+  public OpenMetricsWriter summarySample(String name, LatencyHistogram histogram,
+      String... labels) {
+    for (double quantile : QUANTILES) {
+      line(name, labels, Double.toString(quantile));
+      value(histogram.getPercentileNanos(quantile * 100) / NANOS_PER_SECOND);
+      out.append('\n');
+    }
+    sample(name + "_count", histogram.getCount(), labels);
+    return sample(name + "_sum", histogram.getTotalNanos() / NANOS_PER_SECOND, labels);
+  }
+
+  private void line(String name, String[] labels, @Nullable String quantile) {
+    Preconditions.checkState(!finished, "writer already finished");
+    Preconditions.checkArgument(labels.length % 2 == 0, "labels must be name/value pairs");
+    out.append(name);
+    if (labels.length > 0 || quantile != null) {
+      out.append('{');
+      for (int i = 0; i < labels.length; i += 2) {
+        if (i > 0) {
+          out.append(',');
+        }
+        label(labels[i], labels[i + 1]);
+      }
+      if (quantile != null) {
+        if (labels.length > 0) {
+          out.append(',');
+        }
+        label("quantile", quantile);
+      }
+      out.append('}');
+    }
+    out.append(' ');
+  }
+
+  private void label(String name, String value) {
+    out.append(name).append("=\"");
+    escape(value);
+    out.append('"');
+  }
+
+  private void value(double value) {
+    if (Double.isNaN(value)) {
+      out.append("NaN");
+    } else if (Double.isInfinite(value)) {
+      out.append(value > 0 ? "+Inf" : "-Inf");
+    } else if (value == (long) value) {
+      out.append((long) value);
+    } else {
+      out.append(value);
+    }
+  }
+
+  private void escape(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\') {
+        out.append("\\\\");
+      } else if (c == '\n') {
+        out.append("\\n");
+      } else if (c == '"') {
+        out.append("\\\"");
+      } else {
+        out.append(c);
+      }
+    }
+  }
+
+  /**
+   * Ends the exposition and returns it.
+   *
+   * @return the metrics in the OpenMetrics text format
+   */
+  public String finish() {
+    if (!finished) {
+      out.append("# EOF\n");
+      finished = true;
+    }
+    return out.toString();
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the packets, and their bytes, that the proxy decodes or encodes in one direction,
+ * broken down by packet type. Packets the proxy does not decode are counted under a single
+ * {@link #UNKNOWN_TYPE unknown} type.
+ */
+public final class PacketStatistics {
+
+  /**
+   * The name under which packets that are passed through without being decoded are counted.
+   */
+  public static final String UNKNOWN_TYPE = "unknown";
+
+  private static final PacketStatistics[] DECODED = create();
+  private static final PacketStatistics[] ENCODED = create();
+
+  private final ProtocolUtils.Direction direction;
+  private final Collection<Counter> counters = new ConcurrentLinkedQueue<>();
+  private final Counter unknown;
+  private final ClassValue<Counter> byType = new ClassValue<Counter>() {
+    @Override
+    protected Counter computeValue(Class<?> type) {
+      Counter counter = new Counter(type.getSimpleName());
+      counters.add(counter);
+      return counter;
+    }
+  };
+
+  private PacketStatistics(ProtocolUtils.Direction direction) {
+    this.direction = direction;
+    this.unknown = new Counter(UNKNOWN_TYPE);
+    this.counters.add(unknown);
+  }
+
+  private static PacketStatistics[] create() {
+    ProtocolUtils.Direction[] directions = ProtocolUtils.Direction.values();
+    PacketStatistics[] statistics = new PacketStatistics[directions.length];
+    for (ProtocolUtils.Direction direction : directions) {
+      statistics[direction.ordinal()] = new PacketStatistics(direction);
+    }
+    return statistics;
+  }
+
+  /**
+   * Returns the statistics of the packets decoded from the specified direction.
+   *
+   * @param direction the direction the packets travel in
+   * @return the statistics for decoded packets
+   */
+  public static PacketStatistics decoded(ProtocolUtils.Direction direction) {
+    return DECODED[direction.ordinal()];
+  }
+
+  /**
+   * Returns the statistics of the packets encoded for the specified direction.
+   *
+   * @param direction the direction the packets travel in
+   * @return the statistics for encoded packets
+   */
+  public static PacketStatistics encoded(ProtocolUtils.Direction direction) {
+    return ENCODED[direction.ordinal()];
+  }
+
+  /**
+   * Records a packet of the specified type.
+   *
+   * @param type the class of the packet
+   * @param bytes the size of the packet, excluding its frame length
+   */
+  public void record(Class<?> type, int bytes) {
+    byType.get(type).add(bytes);
+  }
+
+  /**
+   * Records a packet that was not decoded.
+   *
+   * @param bytes the size of the packet, excluding its frame length
+   */
+  public void recordUnknown(int bytes) {
+    unknown.add(bytes);
+  }
+
+  public ProtocolUtils.Direction getDirection() {
+    return direction;
+  }
+
+  public Collection<Counter> getCounters() {
+    return Collections.unmodifiableCollection(counters);
+  }
+
+  /**
+   * The packet and byte counts of a single packet type.
+   */
+  public static final class Counter {
+
+    private final String type;
+    private final LongAdder packets = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    private Counter(String type) {
+      this.type = type;
+    }
+
+    private void add(int bytes) {
+      this.packets.increment();
+      this.bytes.add(bytes);
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    public long getPackets() {
+      return packets.sum();
+    }
+
+    public long getBytes() {
+      return bytes.sum();
+    }
+  }
+}
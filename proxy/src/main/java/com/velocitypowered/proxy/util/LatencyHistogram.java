@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds. Values are counted in buckets whose width
+ * grows with their magnitude, so that every recorded value is reported with an error of at most
+ * 12.5%. Recording a value costs two atomic increments and a few arithmetic operations, so the
+ * histogram can be updated on hot paths.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = bucketFor(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos the duration in nanoseconds, negative durations are recorded as zero
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    buckets.incrementAndGet(bucketFor(value));
+    count.increment();
+    total.add(value);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotalNanos() {
+    return total.sum();
+  }
+
+  /**
+   * Returns an estimate of the given percentile of the recorded durations.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the estimated duration in nanoseconds, or {@code 0} if nothing was recorded
+   */
+  public long getPercentileNanos(double percentile) {
+    Preconditions.checkArgument(percentile >= 0 && percentile <= 100,
+        "percentile must be between 0 and 100");
+    long[] snapshot = new long[BUCKETS];
+    long recorded = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = buckets.get(i);
+      recorded += snapshot[i];
+    }
+    if (recorded == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return highestValueIn(i);
+      }
+    }
+    return highestValueIn(BUCKETS - 1);
+  }
+
+  private static int bucketFor(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long highestValueIn(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    long lowest = (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+    return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+}
@@ -20,6 +20,7 @@ package com.velocitypowered.proxy.util.bossbar;
 import com.google.common.collect.MapMaker;
 import com.velocitypowered.api.network.ProtocolVersion;
 import com.velocitypowered.proxy.connection.client.ConnectedPlayer;
+import com.velocitypowered.proxy.protocol.PreEncodedPacket;
 import com.velocitypowered.proxy.protocol.ProtocolUtils;
 import com.velocitypowered.proxy.util.collect.Enum2IntMap;
 import com.velocitypowered.proxy.util.concurrent.Once;
@@ -139,9 +140,7 @@ public class AdventureBossBarManager implements BossBar.Listener {
     }
     com.velocitypowered.proxy.protocol.packet.BossBar packet = holder
         .createPercentUpdate(newPercent);
-    for (ConnectedPlayer player : holder.subscribers) {
-      player.getConnection().write(packet);
-    }
+    holder.broadcast(packet);
   }
 
   @Override
@@ -152,9 +151,7 @@ public class AdventureBossBarManager implements BossBar.Listener {
       return;
     }
     com.velocitypowered.proxy.protocol.packet.BossBar packet = holder.createColorUpdate(newColor);
-    for (ConnectedPlayer player : holder.subscribers) {
-      player.getConnection().write(packet);
-    }
+    holder.broadcast(packet);
   }
 
   @Override
@@ -166,9 +163,7 @@ public class AdventureBossBarManager implements BossBar.Listener {
     }
     com.velocitypowered.proxy.protocol.packet.BossBar packet = holder
         .createOverlayUpdate(newOverlay);
-    for (ConnectedPlayer player : holder.subscribers) {
-      player.getConnection().write(packet);
-    }
+    holder.broadcast(packet);
   }
 
   @Override
@@ -179,9 +174,7 @@ public class AdventureBossBarManager implements BossBar.Listener {
       return;
     }
     com.velocitypowered.proxy.protocol.packet.BossBar packet = holder.createFlagsUpdate();
-    for (ConnectedPlayer player : holder.subscribers) {
-      player.getConnection().write(packet);
-    }
+    holder.broadcast(packet);
   }
 
   private class BossBarHolder {
@@ -195,6 +188,23 @@ public class AdventureBossBarManager implements BossBar.Listener {
       this.bar = bar;
     }
 
+    /**
+     * Sends the specified packet to every subscriber. The packet is encoded at most once per
+     * distinct protocol version and compression threshold among the subscribers.
+     *
+     * @param packet the packet to send
+     */
+    void broadcast(com.velocitypowered.proxy.protocol.packet.BossBar packet) {
+      PreEncodedPacket encoded = new PreEncodedPacket(packet);
+      try {
+        for (ConnectedPlayer player : subscribers) {
+          player.getConnection().write(encoded.retain());
+        }
+      } finally {
+        encoded.release();
+      }
+    }
+
     void register() {
       registrationOnce.run(() -> this.bar.addListener(AdventureBossBarManager.this));
     }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.concurrent;
+
+import java.util.Arrays;
+import net.openhft.affinity.Affinity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Pins threads to CPUs.
+ */
+public final class CpuAffinity {
+
+  private static final Logger logger = LogManager.getLogger(CpuAffinity.class);
+
+  /**
+   * The highest CPU id Linux supports. CPU ids are not checked against the CPUs of this machine,
+   * as the proxy may be restricted to a set of CPUs whose ids are higher than the number of CPUs
+   * it can use, for example by {@code taskset -c 16-31}.
+   */
+  private static final int MAX_CPU = 8191;
+
+  private CpuAffinity() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Parses a CPU list in the format used by {@code taskset} and Linux's {@code cpuset}, such as
+   * {@code 0-3,8,10-11}. An empty list yields an empty array.
+   *
+   * @param list the CPU list
+   * @return the CPUs in the list, in the order they are listed
+   * @throws IllegalArgumentException if the list is malformed
+   */
+  public static int[] parseCpuList(String list) {
+    String trimmed = list.trim();
+    if (trimmed.isEmpty()) {
+      return new int[0];
+    }
+
+    int[] cpus = new int[0];
+    for (String part : trimmed.split(",")) {
+      String range = part.trim();
+      int dash = range.indexOf('-');
+      int first;
+      int last;
+      try {
+        if (dash == -1) {
+          first = last = Integer.parseInt(range);
+        } else {
+          first = Integer.parseInt(range.substring(0, dash).trim());
+          last = Integer.parseInt(range.substring(dash + 1).trim());
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid CPU list entry " + range, e);
+      }
+      if (first < 0 || last < first || last > MAX_CPU) {
+        throw new IllegalArgumentException("Invalid CPU list entry " + range);
+      }
+
+      int offset = cpus.length;
+      cpus = Arrays.copyOf(cpus, offset + last - first + 1);
+      for (int cpu = first; cpu <= last; cpu++) {
+        cpus[offset + cpu - first] = cpu;
+      }
+    }
+    return cpus;
+  }
+
+  /**
+   * Pins the current thread to the specified CPU. Failures, such as a CPU that does not exist or
+   * that the proxy may not run on, are logged, as pinning is only an optimization.
+   *
+   * @param cpu the CPU to pin the current thread to
+   */
+  public static void pinCurrentThread(int cpu) {
+    try {
+      Affinity.setAffinity(cpu);
+    } catch (Throwable e) {
+      logger.warn("Unable to pin {} to CPU {}", Thread.currentThread().getName(), cpu, e);
+    }
+  }
+}
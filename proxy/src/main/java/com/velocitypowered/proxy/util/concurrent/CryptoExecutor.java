@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.concurrent;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size pool for CPU-heavy cryptographic work, such as the RSA decryption done during
+ * login, that would otherwise stall the event loops. The queue of pending tasks is bounded:
+ * once it is full, new tasks are rejected so callers can shed load instead of building up an
+ * ever-growing backlog.
+ */
+public final class CryptoExecutor {
+
+  private final ThreadPoolExecutor executor;
+  private final int queueCapacity;
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Creates a new crypto executor.
+   *
+   * @param threads the number of threads
+   * @param queueCapacity the maximum number of tasks waiting to run
+   */
+  public CryptoExecutor(int threads, int queueCapacity) {
+    Preconditions.checkArgument(threads > 0, "threads must be positive");
+    Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+    this.queueCapacity = queueCapacity;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("Velocity Crypto Worker #%d")
+            .build());
+  }
+
+  /**
+   * Runs {@code task} on the pool.
+   *
+   * @param task the task to run
+   * @param <T> the result type of the task
+   * @return a future completing with the result of the task. If the pool is overloaded, the
+   *         future fails with a {@link RejectedExecutionException}.
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> task) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(task.call());
+        } catch (Throwable t) {
+          future.completeExceptionally(t);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public long getRejectedTasks() {
+    return rejected.sum();
+  }
+
+  public long getCompletedTasks() {
+    return executor.getCompletedTaskCount();
+  }
+
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -27,14 +27,36 @@ public class VelocityNettyThreadFactory implements ThreadFactory {
 
   private final AtomicInteger threadNumber = new AtomicInteger();
   private final String nameFormat;
+  private final int[] cpus;
 
   public VelocityNettyThreadFactory(String nameFormat) {
+    this(nameFormat, new int[0]);
+  }
+
+  /**
+   * Creates a thread factory whose threads are pinned to the specified CPUs, one CPU per thread
+   * in a round-robin fashion.
+   *
+   * @param nameFormat the format of the thread names
+   * @param cpus the CPUs to pin threads to, or an empty array to not pin threads
+   */
+  public VelocityNettyThreadFactory(String nameFormat, int[] cpus) {
     this.nameFormat = checkNotNull(nameFormat, "nameFormat");
+    this.cpus = checkNotNull(cpus, "cpus").clone();
   }
 
   @Override
   public Thread newThread(Runnable r) {
-    String name = String.format(nameFormat, threadNumber.getAndIncrement());
-    return new FastThreadLocalThread(r, name);
+    int number = threadNumber.getAndIncrement();
+    String name = String.format(nameFormat, number);
+    if (cpus.length == 0) {
+      return new FastThreadLocalThread(r, name);
+    }
+
+    int cpu = cpus[number % cpus.length];
+    return new FastThreadLocalThread(() -> {
+      CpuAffinity.pinCurrentThread(cpu);
+      r.run();
+    }, name);
   }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Support for running plugin code (scheduled tasks and asynchronous event handlers) on virtual
+ * threads, enabled with {@code -Dvelocity.plugin-threads=virtual}. Plugin code that blocks on
+ * I/O then only parks a cheap virtual thread instead of tying up one of a few platform threads.
+ *
+ * <p>In this mode, the number of tasks of a single plugin running at once is limited by
+ * {@code velocity.plugin-concurrency-limit} (64 by default) rather than by the size of a thread
+ * pool.</p>
+ *
+ * <p>Virtual threads require Java 21 or newer. On older versions the option is ignored with a
+ * warning, and plugin code keeps running on the bounded pools of platform threads.</p>
+ */
+public final class VirtualThreads {
+
+  private static final Logger logger = LogManager.getLogger(VirtualThreads.class);
+
+  private static final boolean REQUESTED = "virtual"
+      .equalsIgnoreCase(System.getProperty("velocity.plugin-threads", "platform"));
+  private static final int CONCURRENCY_LIMIT = Integer
+      .getInteger("velocity.plugin-concurrency-limit", 64);
+  private static final @Nullable MethodHandle NEW_VIRTUAL_THREAD_EXECUTOR = findExecutorFactory();
+
+  static {
+    if (REQUESTED && NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+      logger.warn("Virtual threads were requested, but they require Java 21 or newer. Plugin code"
+          + " will run on platform threads.");
+    }
+  }
+
+  private VirtualThreads() {
+    throw new AssertionError();
+  }
+
+  private static @Nullable MethodHandle findExecutorFactory() {
+    try {
+      return MethodHandles.publicLookup().findStatic(Executors.class,
+          "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns whether plugin code should run on virtual threads. This is only the case if it was
+   * requested and this JVM supports virtual threads.
+   *
+   * @return whether virtual thread mode is enabled
+   */
+  public static boolean isEnabled() {
+    return REQUESTED && isSupported();
+  }
+
+  /**
+   * Returns whether this JVM supports virtual threads.
+   *
+   * @return whether virtual threads are supported
+   */
+  public static boolean isSupported() {
+    return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+  }
+
+  /**
+   * Returns the maximum number of tasks of a single plugin that may run at once when virtual
+   * thread mode is enabled.
+   *
+   * @return the per-plugin concurrency limit
+   */
+  public static int getConcurrencyLimit() {
+    return Math.max(1, CONCURRENCY_LIMIT);
+  }
+
+  /**
+   * Creates an executor that runs every task on a new virtual thread.
+   *
+   * @return the new executor
+   * @throws IllegalStateException if this JVM does not support virtual threads
+   */
+  public static ExecutorService newExecutor() {
+    if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+      throw new IllegalStateException("Virtual threads are not supported");
+    }
+    try {
+      return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invokeExact();
+    } catch (Throwable e) {
+      throw new IllegalStateException("Unable to create a virtual thread executor", e);
+    }
+  }
+}
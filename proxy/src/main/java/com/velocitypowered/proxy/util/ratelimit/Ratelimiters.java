@@ -25,7 +25,21 @@ public final class Ratelimiters {
   }
 
   public static Ratelimiter createWithMilliseconds(long ms) {
-    return ms <= 0 ? NoopCacheRatelimiter.INSTANCE : new GuavaCacheRatelimiter(ms,
-        TimeUnit.MILLISECONDS);
+    return ms <= 0 ? NoopCacheRatelimiter.INSTANCE : new TokenBucketRatelimiter(ms,
+        TimeUnit.MILLISECONDS, 1, false);
+  }
+
+  /**
+   * Creates a rate limiter that lets each address make {@code burst} attempts in a row, and
+   * regain one attempt every {@code ms} milliseconds. Subnets are limited as well, to four times
+   * the rate and burst of a single address.
+   *
+   * @param ms the time it takes to regain an attempt, or {@code 0} to disable rate limiting
+   * @param burst how many attempts an address may make in a row
+   * @return the rate limiter
+   */
+  public static Ratelimiter createTokenBucket(long ms, int burst) {
+    return ms <= 0 ? NoopCacheRatelimiter.INSTANCE : new TokenBucketRatelimiter(ms,
+        TimeUnit.MILLISECONDS, burst, true);
   }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.ratelimit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A token-bucket rate limiter whose memory use does not depend on the number of clients. Every
+ * client address (IPv4 addresses, and IPv6 addresses by their /64 prefix) is hashed into a
+ * fixed-size table of buckets. Addresses are also aggregated by subnet (IPv4 /24 and IPv6 /48),
+ * so a flood from many addresses of the same network is limited as a whole.
+ *
+ * <p>Each bucket is a single {@code long} updated with compare-and-set, so attempts never
+ * block. When a part of the table is full of active buckets, for example during a flood from a
+ * very large number of addresses, new addresses share an existing bucket instead of growing the
+ * table. This can only make limiting stricter, never looser.</p>
+ */
+public final class TokenBucketRatelimiter implements Ratelimiter {
+
+  private static final int DEFAULT_ADDRESS_SLOTS = 1 << 16;
+  private static final int DEFAULT_SUBNET_SLOTS = 1 << 14;
+
+  /**
+   * The subnet of an address may make this many times more attempts than the address itself.
+   */
+  private static final int SUBNET_MULTIPLIER = 4;
+
+  private final Ticker ticker;
+  private final long epoch;
+  private final BucketTable addresses;
+  private final BucketTable subnets;
+
+  /**
+   * Creates a new token-bucket rate limiter.
+   *
+   * @param refillTime the time it takes to gain one attempt
+   * @param unit the unit of {@code refillTime}
+   * @param burst how many attempts an address may make in a row
+   * @param aggregateSubnets whether to also limit the attempts of each subnet
+   */
+  TokenBucketRatelimiter(long refillTime, TimeUnit unit, int burst, boolean aggregateSubnets) {
+    this(refillTime, unit, burst, aggregateSubnets, DEFAULT_ADDRESS_SLOTS, DEFAULT_SUBNET_SLOTS,
+        Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  TokenBucketRatelimiter(long refillTime, TimeUnit unit, int burst, boolean aggregateSubnets,
+      int addressSlots, int subnetSlots, Ticker ticker) {
+    Preconditions.checkArgument(refillTime > 0, "refillTime must be positive");
+    Preconditions.checkArgument(burst > 0 && burst * SUBNET_MULTIPLIER <= BucketTable.MAX_TOKENS,
+        "burst must be between 1 and %s", BucketTable.MAX_TOKENS / SUBNET_MULTIPLIER);
+    this.ticker = Preconditions.checkNotNull(ticker, "ticker");
+    this.epoch = ticker.read();
+    long refillNanos = unit.toNanos(refillTime);
+    this.addresses = new BucketTable(addressSlots, refillNanos, burst);
+    this.subnets = aggregateSubnets
+        ? new BucketTable(subnetSlots, refillNanos / SUBNET_MULTIPLIER, burst * SUBNET_MULTIPLIER)
+        : null;
+  }
+
+  @Override
+  public boolean attempt(InetAddress address) {
+    Preconditions.checkNotNull(address, "address");
+    byte[] raw = address.getAddress();
+    long key;
+    long subnetKey;
+    if (address instanceof Inet4Address) {
+      int ip = ByteBuffer.wrap(raw).getInt();
+      key = mix(ip & 0xFFFFFFFFL);
+      subnetKey = mix((ip >>> 8) | (1L << 32));
+    } else {
+      long prefix = ByteBuffer.wrap(raw).getLong();
+      key = mix(prefix ^ 0x5DEECE66DL);
+      subnetKey = mix((prefix >>> 16) ^ 0xB5AD4ECEDA1CE2A9L);
+    }
+
+    long now = (ticker.read() - epoch) >>> BucketTable.TIME_SHIFT;
+    // Check the address first, so that an address over its own limit can't use up the attempts
+    // of the rest of its subnet.
+    if (!addresses.tryAcquire(key, now)) {
+      return false;
+    }
+    return subnets == null || subnets.tryAcquire(subnetKey, now);
+  }
+
+  /**
+   * Spreads the bits of a key, so that similar addresses end up far apart in the table.
+   */
+  private static long mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    h *= 0xC2B2AE3D27D4EB4FL;
+    return h ^ (h >>> 29);
+  }
+
+  /**
+   * A table of token buckets. A bucket is packed into a {@code long}: a fingerprint of the key
+   * that owns the bucket, the number of tokens in the bucket (in fixed point), and the time the
+   * bucket was last updated. A slot of {@code 0} is unused.
+   */
+  private static final class BucketTable {
+
+    private static final int PROBES = 4;
+
+    /**
+     * Times are stored in units of 2^20 nanoseconds (about a millisecond) in 32 bits, which
+     * covers about 52 days before wrapping around.
+     */
+    private static final int TIME_SHIFT = 20;
+    private static final int TIME_BITS = 32;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private static final int TOKEN_FRACTION_BITS = 3;
+    private static final int TOKEN_BITS = 13;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final int ONE_TOKEN = 1 << TOKEN_FRACTION_BITS;
+    static final int MAX_TOKENS = (int) (TOKEN_MASK >>> TOKEN_FRACTION_BITS);
+
+    private static final int FINGERPRINT_BITS = 64 - TOKEN_BITS - TIME_BITS;
+    private static final long FINGERPRINT_MASK = (1L << FINGERPRINT_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long capacity;
+    private final double tokensPerTimeUnit;
+
+    BucketTable(int size, long refillNanos, int burst) {
+      Preconditions.checkArgument(Integer.bitCount(size) == 1, "size must be a power of two");
+      this.slots = new AtomicLongArray(size);
+      this.mask = size - 1;
+      this.capacity = (long) burst * ONE_TOKEN;
+      this.tokensPerTimeUnit = (double) ONE_TOKEN * (1L << TIME_SHIFT) / Math.max(1, refillNanos);
+    }
+
+    boolean tryAcquire(long hash, long now) {
+      long fingerprint = (hash >>> (64 - FINGERPRINT_BITS)) & FINGERPRINT_MASK;
+      if (fingerprint == 0) {
+        fingerprint = 1;
+      }
+      int home = (int) hash & mask;
+
+      for (;;) {
+        int target = -1;
+        long expected = 0;
+        long tokens = 0;
+        long owner = fingerprint;
+        int reusable = -1;
+        long reusableState = 0;
+
+        for (int i = 0; i < PROBES; i++) {
+          int index = (home + i) & mask;
+          long state = slots.get(index);
+          if (state != 0 && fingerprintOf(state) == fingerprint) {
+            target = index;
+            expected = state;
+            tokens = tokensAt(state, now);
+            break;
+          }
+          if (reusable == -1 && (state == 0 || tokensAt(state, now) >= capacity)) {
+            // Unused, or idle long enough to have refilled completely. Either way, nothing is
+            // lost by handing the slot to another key.
+            reusable = index;
+            reusableState = state;
+          }
+        }
+
+        if (target == -1) {
+          if (reusable != -1) {
+            target = reusable;
+            expected = reusableState;
+            tokens = capacity;
+          } else {
+            // Every slot this key could use is busy, so share the bucket of its home slot.
+            target = home;
+            expected = slots.get(home);
+            tokens = tokensAt(expected, now);
+            owner = fingerprintOf(expected);
+          }
+        }
+
+        if (tokens < ONE_TOKEN) {
+          return false;
+        }
+        long updated = (owner << (TOKEN_BITS + TIME_BITS))
+            | ((tokens - ONE_TOKEN) << TIME_BITS)
+            | (now & TIME_MASK);
+        if (slots.compareAndSet(target, expected, updated)) {
+          return true;
+        }
+      }
+    }
+
+    private long tokensAt(long state, long now) {
+      long tokens = (state >>> TIME_BITS) & TOKEN_MASK;
+      long elapsed = (now - state) & TIME_MASK;
+      double refilled = tokens + elapsed * tokensPerTimeUnit;
+      return refilled >= capacity ? capacity : (long) refilled;
+    }
+
+    private static long fingerprintOf(long state) {
+      return state >>> (TOKEN_BITS + TIME_BITS);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class FlushCoalescerTest {
+
+  private final FlushCoalescer.Statistics statistics = new FlushCoalescer.Statistics();
+  private final EmbeddedChannel channel = new EmbeddedChannel();
+  private final MinecraftConnection connection = new MinecraftConnection(channel, null);
+  private long now;
+
+  private FlushCoalescer coalescer(long maxDelayNanos, long rttNanos) {
+    return new FlushCoalescer(statistics, maxDelayNanos, () -> rttNanos, () -> now);
+  }
+
+  private static void write(MinecraftConnection connection, FlushCoalescer coalescer) {
+    connection.delayedWrite(Unpooled.buffer(1).writeByte(0));
+    coalescer.written(connection);
+  }
+
+  private static int drain(EmbeddedChannel channel) {
+    int count = 0;
+    ByteBuf buf;
+    while ((buf = channel.readOutbound()) != null) {
+      buf.release();
+      count++;
+    }
+    return count;
+  }
+
+  private void readCompleted(FlushCoalescer coalescer, long afterNanos) {
+    now += afterNanos;
+    coalescer.readCompleted();
+  }
+
+  @Test
+  void flushesOnReadCompleteWithoutDelay() {
+    FlushCoalescer coalescer = coalescer(0, -1);
+
+    write(connection, coalescer);
+    write(connection, coalescer);
+    assertEquals(0, drain(channel));
+
+    readCompleted(coalescer, 100);
+    assertEquals(2, drain(channel));
+    assertEquals(1, statistics.getFlushes());
+    assertEquals(0, statistics.getDeferredFlushes());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void coalescesReadsArrivingInQuickSuccession() {
+    // Keep the real delay short, since the embedded event loop schedules on the real clock.
+    FlushCoalescer coalescer = coalescer(TimeUnit.MICROSECONDS.toNanos(1), -1);
+
+    // The first read has no read interval to go by, so it is flushed right away.
+    write(connection, coalescer);
+    readCompleted(coalescer, 100);
+    assertEquals(1, drain(channel));
+
+    write(connection, coalescer);
+    readCompleted(coalescer, 100);
+    write(connection, coalescer);
+    readCompleted(coalescer, 100);
+    assertEquals(0, drain(channel));
+    assertEquals(1, statistics.getCoalescedFlushes());
+
+    while (channel.runScheduledPendingTasks() != -1) {
+      Thread.onSpinWait();
+    }
+    assertEquals(2, drain(channel));
+    assertEquals(2, statistics.getFlushes());
+    assertEquals(1, statistics.getDeferredFlushes());
+    assertEquals(100, statistics.getAddedLatencyNanos());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void flushesRightAwayWhenReadsAreFurtherApartThanDelay() {
+    FlushCoalescer coalescer = coalescer(TimeUnit.MILLISECONDS.toNanos(1), -1);
+
+    for (int i = 0; i < 3; i++) {
+      write(connection, coalescer);
+      readCompleted(coalescer, TimeUnit.MILLISECONDS.toNanos(2));
+      assertEquals(1, drain(channel));
+    }
+    assertEquals(3, statistics.getFlushes());
+    assertEquals(0, statistics.getDeferredFlushes());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void neverDefersLongerThanFractionOfRtt() {
+    // With a 1 ns round trip time, the flush delay rounds down to nothing.
+    FlushCoalescer coalescer = coalescer(TimeUnit.SECONDS.toNanos(1), 1);
+
+    for (int i = 0; i < 3; i++) {
+      write(connection, coalescer);
+      readCompleted(coalescer, 100);
+      assertEquals(1, drain(channel));
+    }
+    assertNull(channel.readOutbound());
+    assertEquals(0, statistics.getDeferredFlushes());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void flushesPreviousConnectionWhenTargetChanges() {
+    EmbeddedChannel otherChannel = new EmbeddedChannel();
+    MinecraftConnection other = new MinecraftConnection(otherChannel, null);
+    FlushCoalescer coalescer = coalescer(0, -1);
+
+    write(connection, coalescer);
+    write(other, coalescer);
+    assertEquals(1, drain(channel));
+    assertEquals(0, drain(otherChannel));
+
+    readCompleted(coalescer, 100);
+    assertEquals(1, drain(otherChannel));
+    assertEquals(2, statistics.getFlushes());
+    channel.finishAndReleaseAll();
+    otherChannel.finishAndReleaseAll();
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection;
+
+import static com.velocitypowered.proxy.network.Connections.COMPRESSION_DECODER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.netty.MinecraftCompressDecoder;
+import com.velocitypowered.proxy.protocol.netty.MinecraftDecoder;
+import com.velocitypowered.proxy.protocol.netty.MinecraftEncoder;
+import com.velocitypowered.proxy.telemetry.ConnectionStatistics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+
+class MinecraftConnectionTest {
+
+  private static EmbeddedChannel channel() {
+    return new EmbeddedChannel(
+        new MinecraftDecoder(ProtocolUtils.Direction.SERVERBOUND),
+        new MinecraftEncoder(ProtocolUtils.Direction.CLIENTBOUND));
+  }
+
+  @Test
+  void connectionIsCountedInItsState() {
+    // The counts are shared by every connection, so only look at how they change.
+    int handshake = ConnectionStatistics.getConnections(StateRegistry.HANDSHAKE);
+    int login = ConnectionStatistics.getConnections(StateRegistry.LOGIN);
+    EmbeddedChannel channel = channel();
+    MinecraftConnection connection = new MinecraftConnection(channel, null);
+
+    channel.pipeline().addLast(connection);
+    assertEquals(handshake + 1, ConnectionStatistics.getConnections(StateRegistry.HANDSHAKE));
+
+    connection.setState(StateRegistry.LOGIN);
+    assertEquals(handshake, ConnectionStatistics.getConnections(StateRegistry.HANDSHAKE));
+    assertEquals(login + 1, ConnectionStatistics.getConnections(StateRegistry.LOGIN));
+
+    channel.pipeline().remove(connection);
+    assertEquals(handshake, ConnectionStatistics.getConnections(StateRegistry.HANDSHAKE));
+    assertEquals(login, ConnectionStatistics.getConnections(StateRegistry.LOGIN));
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void closedConnectionIsNoLongerCounted() {
+    int status = ConnectionStatistics.getConnections(StateRegistry.STATUS);
+    EmbeddedChannel channel = channel();
+    MinecraftConnection connection = new MinecraftConnection(channel, null);
+    channel.pipeline().addLast(connection);
+    connection.setState(StateRegistry.STATUS);
+    assertEquals(status + 1, ConnectionStatistics.getConnections(StateRegistry.STATUS));
+
+    channel.close();
+    assertEquals(status, ConnectionStatistics.getConnections(StateRegistry.STATUS));
+  }
+
+  @Test
+  void stateChangeBeforeAddingIsNotCounted() {
+    int handshake = ConnectionStatistics.getConnections(StateRegistry.HANDSHAKE);
+    int play = ConnectionStatistics.getConnections(StateRegistry.PLAY);
+    EmbeddedChannel channel = channel();
+    MinecraftConnection connection = new MinecraftConnection(channel, null);
+    connection.setState(StateRegistry.PLAY);
+    assertEquals(play, ConnectionStatistics.getConnections(StateRegistry.PLAY));
+
+    channel.pipeline().addLast(connection);
+    assertEquals(handshake, ConnectionStatistics.getConnections(StateRegistry.HANDSHAKE));
+    assertEquals(play + 1, ConnectionStatistics.getConnections(StateRegistry.PLAY));
+
+    channel.pipeline().remove(connection);
+    assertEquals(play, ConnectionStatistics.getConnections(StateRegistry.PLAY));
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void compressedFrameIsInflatedForHandlerThatDoesNotRelayIt() {
+    byte[] packet = new byte[512];
+    for (int i = 0; i < packet.length; i++) {
+      packet[i] = (byte) (i % 7);
+    }
+    Deflater deflater = new Deflater();
+    deflater.setInput(packet);
+    deflater.finish();
+    byte[] compressed = new byte[packet.length + 64];
+    int compressedLength = deflater.deflate(compressed);
+    deflater.end();
+
+    EmbeddedChannel channel = channel();
+    channel.pipeline().addFirst(COMPRESSION_DECODER, new MinecraftCompressDecoder(256,
+        JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION)));
+    MinecraftConnection connection = new MinecraftConnection(channel, null);
+    channel.pipeline().addLast(connection);
+    List<ByteBuf> unknown = new ArrayList<>();
+    connection.setSessionHandler(new MinecraftSessionHandler() {
+      @Override
+      public void handleUnknown(ByteBuf buf) {
+        unknown.add(Unpooled.copiedBuffer(buf));
+      }
+    });
+
+    channel.writeInbound(new CompressedFrame(
+        Unpooled.wrappedBuffer(compressed, 0, compressedLength), packet.length));
+    assertEquals(1, unknown.size());
+    assertEquals(Unpooled.wrappedBuffer(packet), unknown.get(0));
+    unknown.get(0).release();
+    channel.finishAndReleaseAll();
+  }
+}
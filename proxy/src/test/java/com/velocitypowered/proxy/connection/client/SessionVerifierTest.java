@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.velocitypowered.api.util.GameProfile;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.asynchttpclient.Response;
+import org.junit.jupiter.api.Test;
+
+class SessionVerifierTest {
+
+  private static final String URL = "https://session.example/hasJoined";
+  private static final String PROFILE_JSON = "{\"id\":\"069a79f444e94726a5befca90e38aaf5\","
+      + "\"name\":\"Notch\",\"properties\":[]}";
+
+  private final List<String> requests = new ArrayList<>();
+  private final List<CompletableFuture<Response>> responses = new ArrayList<>();
+  private long now;
+  private final SessionVerifier verifier = new SessionVerifier(() -> URL, url -> {
+    requests.add(url);
+    CompletableFuture<Response> response = new CompletableFuture<>();
+    responses.add(response);
+    return response;
+  }, () -> now);
+
+  private static Response response(int statusCode, String body) {
+    Response response = mock(Response.class);
+    when(response.getStatusCode()).thenReturn(statusCode);
+    when(response.getResponseBody()).thenReturn(body);
+    return response;
+  }
+
+  private CompletableFuture<GameProfile> verify() {
+    return verifier.verify("Notch", "serverid", null);
+  }
+
+  private void failRequests(int times) {
+    for (int i = 0; i < times; i++) {
+      verify();
+      responses.get(responses.size() - 1).complete(response(500, ""));
+    }
+  }
+
+  @Test
+  void returnsJoinedProfile() {
+    CompletableFuture<GameProfile> result = verify();
+    assertFalse(result.isDone());
+    responses.get(0).complete(response(200, PROFILE_JSON));
+
+    GameProfile profile = result.join();
+    assertEquals("Notch", profile.getName());
+    assertEquals("069a79f444e94726a5befca90e38aaf5", profile.getUndashedId());
+  }
+
+  @Test
+  void returnsNullIfPlayerHasNotJoined() {
+    CompletableFuture<GameProfile> result = verify();
+    responses.get(0).complete(response(204, ""));
+    assertNull(result.join());
+  }
+
+  @Test
+  void buildsHasJoinedRequest() {
+    verifier.verify("Some Player", "-1a2b", "127.0.0.1");
+    assertEquals(URL + "?username=Some+Player&serverId=-1a2b&ip=127.0.0.1", requests.get(0));
+  }
+
+  @Test
+  void verifiesEveryLoginSeparately() {
+    verify();
+    responses.get(0).complete(response(200, PROFILE_JSON));
+    verify();
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  void propagatesErrorResponses() {
+    CompletableFuture<GameProfile> result = verify();
+    responses.get(0).complete(response(500, ""));
+
+    CompletionException thrown = assertThrows(CompletionException.class, result::join);
+    assertTrue(thrown.getCause() instanceof IOException);
+    assertFalse(SessionVerifier.isUnavailable(thrown));
+    assertEquals(1, verifier.getFailures());
+  }
+
+  @Test
+  void propagatesRequestFailures() {
+    ConnectException cause = new ConnectException("Connection refused");
+    CompletableFuture<GameProfile> result = verify();
+    responses.get(0).completeExceptionally(cause);
+
+    CompletionException thrown = assertThrows(CompletionException.class, result::join);
+    assertSame(cause, thrown.getCause());
+    assertFalse(SessionVerifier.isUnavailable(thrown));
+  }
+
+  @Test
+  void rejectsLoginsAfterConsecutiveFailures() {
+    failRequests(SessionVerifier.FAILURE_THRESHOLD);
+    assertTrue(verifier.isSessionServerUnavailable());
+
+    CompletableFuture<GameProfile> result = verify();
+    assertEquals(SessionVerifier.FAILURE_THRESHOLD, requests.size(),
+        "Session server was contacted while unavailable");
+    CompletionException thrown = assertThrows(CompletionException.class, result::join);
+    assertTrue(SessionVerifier.isUnavailable(thrown));
+    assertEquals(1, verifier.getRejected());
+  }
+
+  @Test
+  void successResetsConsecutiveFailures() {
+    failRequests(SessionVerifier.FAILURE_THRESHOLD - 1);
+    verify();
+    responses.get(responses.size() - 1).complete(response(204, ""));
+    failRequests(1);
+    assertFalse(verifier.isSessionServerUnavailable());
+  }
+
+  @Test
+  void probesOnceUnavailablePeriodExpires() {
+    failRequests(SessionVerifier.FAILURE_THRESHOLD);
+
+    now += SessionVerifier.UNAVAILABLE_NANOS;
+    CompletableFuture<GameProfile> probe = verify();
+    assertEquals(SessionVerifier.FAILURE_THRESHOLD + 1, requests.size());
+    // Only one login probes the session server at a time.
+    assertTrue(SessionVerifier.isUnavailable(assertThrows(CompletionException.class,
+        verify()::join)));
+
+    responses.get(responses.size() - 1).complete(response(200, PROFILE_JSON));
+    assertEquals("Notch", probe.join().getName());
+    assertFalse(verifier.isSessionServerUnavailable());
+  }
+
+  @Test
+  void failedProbeKeepsSessionServerUnavailable() {
+    failRequests(SessionVerifier.FAILURE_THRESHOLD);
+
+    now += SessionVerifier.UNAVAILABLE_NANOS;
+    failRequests(1);
+    assertTrue(verifier.isSessionServerUnavailable());
+    assertTrue(SessionVerifier.isUnavailable(assertThrows(CompletionException.class,
+        verify()::join)));
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class StatusResponseCacheTest {
+
+  private static final byte[] STATUS = "{}".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void cachesPerProtocolAndHost() {
+    StatusResponseCache cache = new StatusResponseCache(60_000);
+    cache.put(754, "play.example.com", 3, STATUS);
+
+    assertArrayEquals(STATUS, cache.get(754, "play.example.com", 3));
+    assertNull(cache.get(340, "play.example.com", 3));
+    assertNull(cache.get(754, "other.example.com", 3));
+  }
+
+  @Test
+  void playerCountChangeInvalidates() {
+    StatusResponseCache cache = new StatusResponseCache(60_000);
+    cache.put(754, "", 3, STATUS);
+
+    assertNull(cache.get(754, "", 4));
+  }
+
+  @Test
+  void disabledCacheStoresNothing() {
+    StatusResponseCache cache = new StatusResponseCache(0);
+    cache.put(754, "", 3, STATUS);
+
+    assertFalse(cache.isEnabled());
+    assertNull(cache.get(754, "", 3));
+  }
+}
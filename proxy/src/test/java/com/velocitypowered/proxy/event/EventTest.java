@@ -21,7 +21,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.common.reflect.TypeToken;
+import com.velocitypowered.api.event.AwaitingEventExecutor;
 import com.velocitypowered.api.event.Continuation;
+import com.velocitypowered.api.event.EventHandler;
+import com.velocitypowered.api.event.EventHandlerStatistics;
 import com.velocitypowered.api.event.EventTask;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.Subscribe;
@@ -87,6 +90,64 @@ public class EventTest {
     assertTrue(listenerBInvoked.get() < listenerCInvoked.get(), "Listener C invoked before B!");
   }
 
+  interface TestEventSupertype {
+  }
+
+  static final class TestSubtypeEvent implements TestEventSupertype {
+  }
+
+  @Test
+  void supertypeRegistrationInvalidatesBakedHandlers() throws Exception {
+    final AtomicInteger invoked = new AtomicInteger();
+    // Bake the (empty) handlers for the subtype before anything listens to it.
+    eventManager.fire(new TestSubtypeEvent()).get();
+
+    final EventHandler<TestEventSupertype> handler =
+        event -> invoked.incrementAndGet();
+    eventManager.register(FakePluginManager.PLUGIN_A, TestEventSupertype.class, handler);
+    try {
+      eventManager.fire(new TestSubtypeEvent()).get();
+      assertEquals(1, invoked.get());
+    } finally {
+      eventManager.unregisterListeners(FakePluginManager.PLUGIN_A);
+    }
+
+    eventManager.fire(new TestSubtypeEvent()).get();
+    assertEquals(1, invoked.get(), "Handler was called after it was unregistered");
+  }
+
+  static final class StatisticsEvent {
+  }
+
+  @Test
+  void handlerStatisticsAreRecorded() throws Exception {
+    eventManager.register(FakePluginManager.PLUGIN_A, StatisticsEvent.class, event -> { });
+    eventManager.register(FakePluginManager.PLUGIN_A, StatisticsEvent.class, PostOrder.LATE,
+        (AwaitingEventExecutor<StatisticsEvent>) event -> EventTask.withContinuation(continuation -> new Thread(() -> {
+          try {
+            Thread.sleep(20);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          continuation.resume();
+        }).start()));
+    try {
+      eventManager.fire(new StatisticsEvent()).get();
+    } finally {
+      eventManager.unregisterListeners(FakePluginManager.PLUGIN_A);
+    }
+
+    final EventHandlerStatistics statistics = eventManager.getHandlerStatistics().stream()
+        .filter(s -> s.getEventType() == StatisticsEvent.class)
+        .findFirst()
+        .orElseThrow(AssertionError::new);
+    assertEquals("a", statistics.getPluginId());
+    assertEquals(2, statistics.getInvocationCount());
+    assertEquals(1, statistics.getSuspensionCount());
+    assertTrue(statistics.getTotalSuspendedTime().toMillis() >= 15,
+        "Suspended time was not recorded");
+  }
+
   @Test
   void testAlwaysAsync() throws Exception {
     final AlwaysAsyncListener listener = new AlwaysAsyncListener();
@@ -123,6 +184,42 @@ public class EventTest {
     }
   }
 
+  @Test
+  void testNeverAsync() throws Exception {
+    final NeverAsyncListener listener = new NeverAsyncListener();
+    handleMethodListener(listener);
+    assertEquals(Thread.currentThread(), listener.threadA);
+    assertEquals(Thread.currentThread(), listener.threadB);
+    assertAsyncThread(listener.threadC);
+    assertEquals(3, listener.result);
+  }
+
+  static final class NeverAsyncListener {
+
+    @MonotonicNonNull Thread threadA;
+    @MonotonicNonNull Thread threadB;
+    @MonotonicNonNull Thread threadC;
+    int result;
+
+    @Subscribe(order = PostOrder.EARLY, async = false)
+    void firstSync(TestEvent event) {
+      result++;
+      threadA = Thread.currentThread();
+    }
+
+    @Subscribe(async = false)
+    EventTask secondRequiresAsync(TestEvent event) {
+      threadB = Thread.currentThread();
+      return EventTask.async(() -> result++);
+    }
+
+    @Subscribe(order = PostOrder.LATE, async = false)
+    void thirdAfterAsync(TestEvent event) {
+      result++;
+      threadC = Thread.currentThread();
+    }
+  }
+
   @Test
   void testContinuation() throws Exception {
     final ContinuationListener listener = new ContinuationListener();
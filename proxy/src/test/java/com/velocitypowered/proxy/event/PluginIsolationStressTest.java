@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.event;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+import com.velocitypowered.api.event.connection.LoginEvent;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.proxy.testutil.FakePluginManager;
+import com.velocitypowered.proxy.util.concurrent.VirtualThreads;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Simulates a plugin doing blocking I/O in event handlers while players log in, and checks that
+ * logins are not held up by it and the plugin stays within its limit, both on the per-plugin
+ * pools of platform threads and in virtual thread mode.
+ */
+class PluginIsolationStressTest {
+
+  private static final int PLUGIN_CONCURRENCY_LIMIT = 4;
+  private static final int LOGINS = 200;
+  private static final long MAX_LOGIN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  static final class BlockingEvent {
+  }
+
+  static final class OuterEvent {
+  }
+
+  static final class InnerEvent {
+  }
+
+  @Test
+  void loginsCompleteWhilePluginBlocksOnPlatformThreads() throws Exception {
+    assertLoginsCompleteWhilePluginBlocks(false);
+  }
+
+  @Test
+  void loginsCompleteWhilePluginBlocksOnVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreads.isSupported(), "Virtual threads are not supported");
+    assertLoginsCompleteWhilePluginBlocks(true);
+  }
+
+  private static void assertLoginsCompleteWhilePluginBlocks(boolean virtualThreads)
+      throws Exception {
+    VelocityEventManager eventManager = new VelocityEventManager(new FakePluginManager(),
+        virtualThreads, PLUGIN_CONCURRENCY_LIMIT);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    eventManager.register(FakePluginManager.PLUGIN_A, BlockingEvent.class, event -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        // Stands in for a slow database query.
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        running.decrementAndGet();
+      }
+    });
+    eventManager.register(FakePluginManager.PLUGIN_B, LoginEvent.class, event -> { });
+
+    try {
+      // Enough to tie up every thread of a shared pool several times over.
+      for (int i = 0; i < Runtime.getRuntime().availableProcessors() * 4; i++) {
+        eventManager.fireAndForget(new BlockingEvent());
+      }
+
+      Player player = mock(Player.class);
+      long slowest = 0;
+      for (int i = 0; i < LOGINS; i++) {
+        long start = System.nanoTime();
+        eventManager.fire(new LoginEvent(player)).get(5, TimeUnit.SECONDS);
+        slowest = Math.max(slowest, System.nanoTime() - start);
+      }
+      assertTrue(slowest < MAX_LOGIN_NANOS,
+          "Slowest login took " + TimeUnit.NANOSECONDS.toMillis(slowest) + " ms");
+      assertTrue(maxRunning.get() <= PLUGIN_CONCURRENCY_LIMIT,
+          "Plugin ran " + maxRunning.get() + " handlers at once");
+    } finally {
+      release.countDown();
+      eventManager.shutdown();
+    }
+  }
+
+  @Test
+  void handlerCanWaitForEventHandledByItsOwnPlugin() throws Exception {
+    assumeTrue(VirtualThreads.isSupported(), "Virtual threads are not supported");
+    VelocityEventManager eventManager = new VelocityEventManager(new FakePluginManager(), true,
+        1);
+    InnerEvent inner = new InnerEvent();
+    AtomicReference<InnerEvent> fired = new AtomicReference<>();
+    eventManager.register(FakePluginManager.PLUGIN_A, InnerEvent.class, event -> { });
+    eventManager.register(FakePluginManager.PLUGIN_A, OuterEvent.class,
+        event -> fired.set(eventManager.fire(inner).join()));
+
+    try {
+      // The outer handler gives up the plugin's only permit while it waits for the inner event.
+      eventManager.fire(new OuterEvent()).get(5, TimeUnit.SECONDS);
+      assertSame(inner, fired.get());
+    } finally {
+      eventManager.shutdown();
+    }
+  }
+
+  @Test
+  void eventFiredWithoutWaitingDoesNotGetThePermit() throws Exception {
+    assumeTrue(VirtualThreads.isSupported(), "Virtual threads are not supported");
+    VelocityEventManager eventManager = new VelocityEventManager(new FakePluginManager(), true,
+        1);
+    CountDownLatch innerRan = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    eventManager.register(FakePluginManager.PLUGIN_A, InnerEvent.class, event -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      running.decrementAndGet();
+      innerRan.countDown();
+    });
+    eventManager.register(FakePluginManager.PLUGIN_A, OuterEvent.class, event -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        eventManager.fireAndForget(new InnerEvent());
+        // Give the inner handler a chance to run while this one still holds the plugin's only
+        // permit.
+        innerRan.await(200, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        running.decrementAndGet();
+      }
+    });
+
+    try {
+      eventManager.fire(new OuterEvent()).get(5, TimeUnit.SECONDS);
+      assertTrue(innerRan.await(5, TimeUnit.SECONDS), "Inner handler did not run");
+      assertTrue(maxRunning.get() <= 1, "Plugin ran " + maxRunning.get() + " handlers at once");
+    } finally {
+      eventManager.shutdown();
+    }
+  }
+}
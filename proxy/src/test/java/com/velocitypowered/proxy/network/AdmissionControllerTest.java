@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.config.VelocityConfiguration;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControllerTest {
+
+  private final VelocityConfiguration configuration = mock(VelocityConfiguration.class);
+  private long now;
+  private AdmissionController controller;
+
+  @BeforeEach
+  void setUp() {
+    VelocityServer server = mock(VelocityServer.class);
+    when(server.getConfiguration()).thenReturn(configuration);
+    controller = new AdmissionController(server, () -> now);
+  }
+
+  private void limits(int maxConnections, int maxPerIp, int maxHandshakes) {
+    when(configuration.getMaxConnections()).thenReturn(maxConnections);
+    when(configuration.getMaxConnectionsPerIp()).thenReturn(maxPerIp);
+    when(configuration.getMaxHandshakesInFlight()).thenReturn(maxHandshakes);
+  }
+
+  private static EmbeddedChannel channel(String ip) {
+    InetSocketAddress address = new InetSocketAddress(ip, 50000);
+    return new EmbeddedChannel() {
+      @Override
+      protected SocketAddress remoteAddress0() {
+        return address;
+      }
+    };
+  }
+
+  private boolean handshake(EmbeddedChannel channel) {
+    return controller.tryAdmit(channel) && controller.tryBeginHandshake(channel);
+  }
+
+  private void enterBackoff() {
+    EmbeddedChannel handshaking = channel("10.0.0.1");
+    EmbeddedChannel refused = channel("10.0.0.2");
+    assertTrue(handshake(handshaking));
+    assertFalse(handshake(refused));
+    handshaking.close();
+    refused.close();
+  }
+
+  @Test
+  void limitsConnectionsOverall() {
+    limits(2, 0, 0);
+    EmbeddedChannel first = channel("10.0.0.1");
+    assertTrue(controller.tryAdmit(first));
+    assertTrue(controller.tryAdmit(channel("10.0.0.2")));
+    assertFalse(controller.tryAdmit(channel("10.0.0.3")));
+    assertEquals(2, controller.getConnections());
+    assertEquals(1, controller.getRejected());
+
+    first.close();
+    assertEquals(1, controller.getConnections());
+    assertTrue(controller.tryAdmit(channel("10.0.0.3")));
+  }
+
+  @Test
+  void limitsConnectionsPerAddress() {
+    limits(0, 1, 0);
+    EmbeddedChannel first = channel("10.0.0.1");
+    assertTrue(controller.tryAdmit(first));
+    assertFalse(controller.tryAdmit(channel("10.0.0.1")));
+    assertTrue(controller.tryAdmit(channel("10.0.0.2")));
+    // A rejected address must not hold on to the global count.
+    assertEquals(2, controller.getConnections());
+
+    first.close();
+    assertTrue(controller.tryAdmit(channel("10.0.0.1")));
+  }
+
+  @Test
+  void idleConnectionsDoNotUseHandshakeBudget() {
+    limits(0, 0, 1);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(controller.tryAdmit(channel("10.0.0.1")));
+    }
+    assertEquals(3, controller.getConnections());
+    assertEquals(0, controller.getHandshakesInFlight());
+    assertTrue(handshake(channel("10.0.0.2")));
+    assertFalse(controller.isBackoffActive());
+  }
+
+  @Test
+  void completedHandshakeReleasesItsSlot() {
+    limits(0, 0, 1);
+    EmbeddedChannel first = channel("10.0.0.1");
+    assertTrue(handshake(first));
+    assertEquals(1, controller.getHandshakesInFlight());
+
+    controller.handshakeCompleted(first);
+    assertEquals(0, controller.getHandshakesInFlight());
+    assertEquals(1, controller.getConnections());
+    assertTrue(handshake(channel("10.0.0.2")));
+  }
+
+  @Test
+  void closeReleasesConnectionAndHandshake() {
+    limits(0, 0, 0);
+    EmbeddedChannel handshaking = channel("10.0.0.1");
+    EmbeddedChannel completed = channel("10.0.0.1");
+    assertTrue(handshake(handshaking));
+    assertTrue(handshake(completed));
+    controller.handshakeCompleted(completed);
+    controller.handshakeCompleted(completed);
+    assertEquals(1, controller.getHandshakesInFlight());
+
+    handshaking.close();
+    completed.close();
+    assertEquals(0, controller.getConnections());
+    assertEquals(0, controller.getHandshakesInFlight());
+    assertEquals(2, controller.getAdmitted());
+  }
+
+  @Test
+  void backoffAllowsOneHandshakePerAddress() {
+    limits(0, 0, 2);
+    EmbeddedChannel first = channel("10.0.0.1");
+    assertTrue(handshake(first));
+    assertTrue(handshake(channel("10.0.0.2")));
+    assertFalse(handshake(channel("10.0.0.3")));
+    assertTrue(controller.isBackoffActive());
+
+    controller.handshakeCompleted(first);
+    assertFalse(handshake(channel("10.0.0.2")),
+        "Address with a handshake in flight was admitted during backoff");
+    assertTrue(handshake(channel("10.0.0.1")));
+  }
+
+  @Test
+  void backoffGrowsWhenFloodsReturnAndResetsLater() {
+    limits(0, 0, 1);
+    long second = TimeUnit.SECONDS.toNanos(1);
+
+    enterBackoff();
+    now += second - 1;
+    assertTrue(controller.isBackoffActive());
+    now += 1;
+    assertFalse(controller.isBackoffActive());
+
+    // A flood shortly after the previous backoff ended doubles the backoff period.
+    now += second / 2;
+    enterBackoff();
+    now += 2 * second - 1;
+    assertTrue(controller.isBackoffActive());
+    now += 1;
+    assertFalse(controller.isBackoffActive());
+
+    // After a quiet period, the backoff period starts over.
+    now += 60 * second;
+    enterBackoff();
+    now += second;
+    assertFalse(controller.isBackoffActive());
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.junit.jupiter.api.condition.OS.LINUX;
+
+import com.velocitypowered.api.network.ListenerType;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+
+class EndpointTest {
+
+  private static final int SOCKETS = 4;
+
+  @Test
+  void closesEveryChannel() throws Exception {
+    EventLoopGroup group = new NioEventLoopGroup(1);
+    try {
+      ServerBootstrap bootstrap = new ServerBootstrap()
+          .channel(NioServerSocketChannel.class)
+          .group(group)
+          .childHandler(new ChannelInboundHandlerAdapter())
+          .localAddress(InetAddress.getLoopbackAddress(), 0);
+      List<Channel> channels = new ArrayList<>();
+      for (int i = 0; i < SOCKETS; i++) {
+        channels.add(bootstrap.bind().sync().channel());
+      }
+
+      Endpoint endpoint = new Endpoint(channels, ListenerType.MINECRAFT);
+      assertEquals(channels.get(0), endpoint.getChannel());
+      endpoint.close();
+      for (Channel channel : channels) {
+        assertFalse(channel.isOpen());
+      }
+    } finally {
+      group.shutdownGracefully().sync();
+    }
+  }
+
+  @Test
+  @EnabledOnOs({LINUX})
+  void bindsAndClosesReusePortSockets() throws Exception {
+    assumeTrue(Epoll.isAvailable(), "epoll is not available");
+
+    EventLoopGroup bossGroup = new EpollEventLoopGroup(SOCKETS);
+    EventLoopGroup workerGroup = new EpollEventLoopGroup(1);
+    try {
+      InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+          freePort());
+      ServerBootstrap bootstrap = new ServerBootstrap()
+          .channel(EpollServerSocketChannel.class)
+          .childHandler(new ChannelInboundHandlerAdapter())
+          .localAddress(address);
+
+      List<Channel> channels = new ArrayList<>();
+      for (ChannelFuture bind : ConnectionManager.bindReusePort(bootstrap, bossGroup,
+          workerGroup, SOCKETS)) {
+        channels.add(bind.sync().channel());
+      }
+      assertEquals(SOCKETS, channels.size());
+      for (Channel channel : channels) {
+        assertTrue(channel.isActive());
+        assertEquals(address.getPort(), ((InetSocketAddress) channel.localAddress()).getPort());
+      }
+      assertEquals(SOCKETS, channels.stream().map(Channel::eventLoop).distinct().count(),
+          "Sockets share a boss event loop");
+
+      new Endpoint(channels, ListenerType.MINECRAFT).close();
+      for (Channel channel : channels) {
+        assertFalse(channel.isOpen());
+      }
+    } finally {
+      bossGroup.shutdownGracefully().sync();
+      workerGroup.shutdownGracefully().sync();
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.proxy.protocol.packet.Chat;
+import com.velocitypowered.proxy.protocol.packet.PlayerListItem;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class LazyPacketTest {
+
+  private static final ProtocolUtils.Direction DIRECTION = ProtocolUtils.Direction.CLIENTBOUND;
+  private static final ProtocolVersion VERSION = ProtocolVersion.MINECRAFT_1_16_4;
+
+  private static ByteBuf encode(MinecraftPacket packet) {
+    ByteBuf buf = Unpooled.buffer();
+    packet.encode(buf, DIRECTION, VERSION);
+    return buf;
+  }
+
+  private static Chat receive(ByteBuf buf) {
+    Chat packet = new Chat();
+    packet.decode(buf, DIRECTION, VERSION);
+    assertFalse(buf.isReadable(), "Packet did not consume its contents");
+    return packet;
+  }
+
+  @Test
+  void unmodifiedPacketIsWrittenAsReceived() {
+    ByteBuf received = encode(new Chat("{\"text\":\"hello\"}", Chat.CHAT_TYPE,
+        UUID.randomUUID()));
+    Chat packet = receive(received.duplicate());
+
+    ByteBuf sent = encode(packet);
+    try {
+      assertTrue(packet.isUnmodified());
+      assertEquals(received, sent);
+      assertEquals("{\"text\":\"hello\"}", packet.getMessage());
+      assertTrue(packet.isUnmodified());
+    } finally {
+      received.release();
+      sent.release();
+    }
+  }
+
+  @Test
+  void modifiedPacketIsEncodedAgain() {
+    UUID sender = UUID.randomUUID();
+    ByteBuf received = encode(new Chat("{\"text\":\"hello\"}", Chat.CHAT_TYPE, sender));
+    Chat packet = receive(received);
+    packet.setMessage("{\"text\":\"goodbye\"}");
+    assertFalse(packet.isUnmodified());
+
+    ByteBuf sent = encode(packet);
+    ByteBuf expected = encode(new Chat("{\"text\":\"goodbye\"}", Chat.CHAT_TYPE, sender));
+    try {
+      assertEquals(expected, sent);
+    } finally {
+      received.release();
+      sent.release();
+      expected.release();
+    }
+  }
+
+  @Test
+  void failedDecodeFailsOnEveryAccess() {
+    ByteBuf received = encode(new Chat("{\"text\":\"hello\"}", Chat.CHAT_TYPE,
+        UUID.randomUUID()));
+    received.writeByte(0);
+    Chat packet = receive(received);
+    try {
+      assertThrows(CorruptedFrameException.class, packet::getMessage);
+      assertThrows(CorruptedFrameException.class, packet::getMessage);
+    } finally {
+      received.release();
+    }
+  }
+
+  @Test
+  void receivedPlayerListItemsCannotBeModified() {
+    PlayerListItem.Item item = new PlayerListItem.Item(UUID.randomUUID());
+    ByteBuf received = encode(new PlayerListItem(PlayerListItem.REMOVE_PLAYER,
+        Collections.singletonList(item)));
+    PlayerListItem packet = new PlayerListItem();
+    packet.decode(received, DIRECTION, VERSION);
+    try {
+      assertEquals(1, packet.getItems().size());
+      assertThrows(UnsupportedOperationException.class, () -> packet.getItems().clear());
+      assertTrue(packet.isUnmodified());
+    } finally {
+      received.release();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.protocol.netty.MinecraftCompressorAndLengthEncoder;
+import com.velocitypowered.proxy.protocol.netty.MinecraftEncoder;
+import com.velocitypowered.proxy.protocol.netty.PreEncodedPacketEncoder;
+import com.velocitypowered.proxy.protocol.packet.BossBar;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+
+class PreEncodedPacketTest {
+
+  private static EmbeddedChannel createChannel(ProtocolVersion version) {
+    PreEncodedPacketEncoder encoder = new PreEncodedPacketEncoder(
+        ProtocolUtils.Direction.CLIENTBOUND);
+    encoder.setProtocolVersion(version);
+    return new EmbeddedChannel(encoder);
+  }
+
+  private static EmbeddedChannel createCompressedChannel(ProtocolVersion version, int threshold) {
+    PreEncodedPacketEncoder encoder = new PreEncodedPacketEncoder(
+        ProtocolUtils.Direction.CLIENTBOUND);
+    encoder.setProtocolVersion(version);
+    VelocityCompressor compressor = JavaVelocityCompressor.FACTORY
+        .create(Deflater.DEFAULT_COMPRESSION);
+    encoder.setCompression(threshold, compressor);
+    // As in the real pipeline, pre-encoded frames bypass the compression handler.
+    return new EmbeddedChannel(encoder,
+        new MinecraftCompressorAndLengthEncoder(threshold, compressor));
+  }
+
+  private static ByteBuf expectedCompressedFrame(BossBar packet, ProtocolVersion version,
+      int threshold) {
+    MinecraftEncoder encoder = new MinecraftEncoder(ProtocolUtils.Direction.CLIENTBOUND);
+    encoder.setState(StateRegistry.PLAY);
+    encoder.setProtocolVersion(version);
+    VelocityCompressor compressor = JavaVelocityCompressor.FACTORY
+        .create(Deflater.DEFAULT_COMPRESSION);
+    EmbeddedChannel channel = new EmbeddedChannel(
+        new MinecraftCompressorAndLengthEncoder(threshold, compressor), encoder);
+    channel.writeOutbound(packet);
+    ByteBuf frame = channel.readOutbound();
+    channel.finishAndReleaseAll();
+    return frame;
+  }
+
+  private static BossBar createPacket() {
+    BossBar packet = new BossBar();
+    packet.setUuid(UUID.randomUUID());
+    packet.setAction(BossBar.UPDATE_PERCENT);
+    packet.setPercent(0.5f);
+    return packet;
+  }
+
+  private static ByteBuf expectedFrame(BossBar packet, ProtocolVersion version) {
+    ByteBuf body = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(body, ProtocolUtils.Direction.CLIENTBOUND
+        .getProtocolRegistry(StateRegistry.PLAY, version).getPacketId(packet));
+    packet.encode(body, ProtocolUtils.Direction.CLIENTBOUND, version);
+
+    ByteBuf frame = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(frame, body.readableBytes());
+    frame.writeBytes(body);
+    body.release();
+    return frame;
+  }
+
+  @Test
+  void sharesFrameAcrossConnections() {
+    EmbeddedChannel first = createChannel(ProtocolVersion.MINECRAFT_1_16_4);
+    EmbeddedChannel second = createChannel(ProtocolVersion.MINECRAFT_1_16_4);
+
+    BossBar packet = createPacket();
+    PreEncodedPacket encoded = new PreEncodedPacket(packet);
+    first.writeOutbound(encoded.retain());
+    second.writeOutbound(encoded.retain());
+
+    ByteBuf firstFrame = first.readOutbound();
+    ByteBuf secondFrame = second.readOutbound();
+    ByteBuf expected = expectedFrame(packet, ProtocolVersion.MINECRAFT_1_16_4);
+    try {
+      assertEquals(expected, firstFrame);
+      assertEquals(expected, secondFrame);
+      assertSame(firstFrame.unwrap(), secondFrame.unwrap(), "Frame was encoded twice");
+    } finally {
+      expected.release();
+      firstFrame.release();
+      secondFrame.release();
+    }
+
+    assertEquals(1, encoded.refCnt());
+    encoded.release();
+    assertEquals(0, encoded.refCnt());
+  }
+
+  @Test
+  void encodesPerProtocolVersion() {
+    EmbeddedChannel modern = createChannel(ProtocolVersion.MINECRAFT_1_16_4);
+    EmbeddedChannel older = createChannel(ProtocolVersion.MINECRAFT_1_12_2);
+
+    BossBar packet = createPacket();
+    PreEncodedPacket encoded = new PreEncodedPacket(packet);
+    modern.writeOutbound(encoded.retain());
+    older.writeOutbound(encoded.retain());
+    encoded.release();
+
+    ByteBuf modernFrame = modern.readOutbound();
+    ByteBuf olderFrame = older.readOutbound();
+    ByteBuf modernExpected = expectedFrame(packet, ProtocolVersion.MINECRAFT_1_16_4);
+    ByteBuf olderExpected = expectedFrame(packet, ProtocolVersion.MINECRAFT_1_12_2);
+    try {
+      assertEquals(modernExpected, modernFrame);
+      assertEquals(olderExpected, olderFrame);
+    } finally {
+      modernExpected.release();
+      olderExpected.release();
+      modernFrame.release();
+      olderFrame.release();
+    }
+  }
+
+  @Test
+  void compressedFrameMatchesRegularEncoder() {
+    assertCompressedFrameMatches(0);
+  }
+
+  @Test
+  void uncompressedFrameUnderThresholdMatchesRegularEncoder() {
+    assertCompressedFrameMatches(256);
+  }
+
+  private static void assertCompressedFrameMatches(int threshold) {
+    EmbeddedChannel first = createCompressedChannel(ProtocolVersion.MINECRAFT_1_16_4, threshold);
+    EmbeddedChannel second = createCompressedChannel(ProtocolVersion.MINECRAFT_1_16_4, threshold);
+
+    BossBar packet = createPacket();
+    PreEncodedPacket encoded = new PreEncodedPacket(packet);
+    first.writeOutbound(encoded.retain());
+    second.writeOutbound(encoded.retain());
+    encoded.release();
+
+    ByteBuf firstFrame = first.readOutbound();
+    ByteBuf secondFrame = second.readOutbound();
+    ByteBuf expected = expectedCompressedFrame(packet, ProtocolVersion.MINECRAFT_1_16_4,
+        threshold);
+    try {
+      assertEquals(expected, firstFrame);
+      assertEquals(expected, secondFrame);
+      assertSame(firstFrame.unwrap(), secondFrame.unwrap(), "Frame was encoded twice");
+    } finally {
+      expected.release();
+      firstFrame.release();
+      secondFrame.release();
+      first.finishAndReleaseAll();
+      second.finishAndReleaseAll();
+    }
+  }
+}
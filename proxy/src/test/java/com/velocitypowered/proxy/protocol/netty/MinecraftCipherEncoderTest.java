@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.natives.encryption.JavaVelocityCipher;
+import com.velocitypowered.natives.encryption.VelocityCipher;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Random;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+class MinecraftCipherEncoderTest {
+
+  private static final SecretKeySpec KEY = new SecretKeySpec(new byte[16], "AES");
+
+  @Test
+  void encryptsBatchOnFlush() throws Exception {
+    Random random = new Random(1);
+    byte[][] frames = new byte[16][];
+    for (int i = 0; i < frames.length; i++) {
+      frames[i] = new byte[1 + random.nextInt(512)];
+      random.nextBytes(frames[i]);
+    }
+
+    // Encrypt each frame separately to get the expected output.
+    VelocityCipher reference = JavaVelocityCipher.FACTORY.forEncryption(KEY);
+    ByteBuf expected = Unpooled.buffer();
+    for (byte[] frame : frames) {
+      ByteBuf buf = Unpooled.wrappedBuffer(frame.clone());
+      reference.process(buf);
+      expected.writeBytes(buf);
+    }
+    reference.close();
+
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftCipherEncoder(
+        JavaVelocityCipher.FACTORY.forEncryption(KEY)));
+    ChannelFuture[] futures = new ChannelFuture[frames.length];
+    for (int i = 0; i < frames.length; i++) {
+      futures[i] = channel.write(Unpooled.wrappedBuffer(frames[i]));
+    }
+    assertNull(channel.readOutbound(), "Frames were written before the flush");
+    channel.flush();
+
+    ByteBuf actual = channel.readOutbound();
+    try {
+      assertNull(channel.readOutbound(), "Frames were not batched");
+      assertEquals(expected, actual);
+      for (ChannelFuture future : futures) {
+        assertTrue(future.isSuccess());
+      }
+    } finally {
+      expected.release();
+      actual.release();
+      channel.finishAndReleaseAll();
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.proxy.protocol.CompressedFrame;
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.protocol.StateRegistry;
+import com.velocitypowered.proxy.protocol.packet.Chat;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.util.zip.Deflater;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Test;
+
+class MinecraftCompressDecoderTest {
+
+  private static final int THRESHOLD = 256;
+  private static final ProtocolVersion VERSION = ProtocolVersion.MINECRAFT_1_16_4;
+
+  private static MinecraftDecoder createPlayDecoder() {
+    MinecraftDecoder decoder = new MinecraftDecoder(ProtocolUtils.Direction.CLIENTBOUND);
+    decoder.setState(StateRegistry.PLAY);
+    decoder.setProtocolVersion(VERSION);
+    return decoder;
+  }
+
+  private static int decodedPacketId() {
+    return ProtocolUtils.Direction.CLIENTBOUND.getProtocolRegistry(StateRegistry.PLAY, VERSION)
+        .getPacketId(new Chat());
+  }
+
+  private static int relayedPacketId(MinecraftDecoder decoder) {
+    int packetId = 0;
+    while (decoder.decodesPacket(packetId)) {
+      packetId++;
+    }
+    return packetId;
+  }
+
+  private static ByteBuf createPacket(int packetId) {
+    ByteBuf packet = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(packet, packetId);
+    for (int i = 0; packet.readableBytes() < THRESHOLD * 2; i++) {
+      packet.writeByte(i % 7);
+    }
+    return packet;
+  }
+
+  private static ByteBuf deflate(ByteBuf packet) {
+    Deflater deflater = new Deflater();
+    byte[] input = new byte[packet.readableBytes()];
+    packet.getBytes(packet.readerIndex(), input);
+    deflater.setInput(input);
+    deflater.finish();
+    byte[] output = new byte[input.length + 64];
+    int length = deflater.deflate(output);
+    deflater.end();
+    return Unpooled.wrappedBuffer(output, 0, length);
+  }
+
+  /**
+   * Returns the frame as it is passed to {@link MinecraftCompressDecoder}, that is without its
+   * length prefix.
+   */
+  private static ByteBuf compressedFrame(ByteBuf packet, ByteBuf compressed) {
+    ByteBuf frame = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(frame, packet.readableBytes());
+    frame.writeBytes(compressed, compressed.readerIndex(), compressed.readableBytes());
+    return frame;
+  }
+
+  private static EmbeddedChannel createChannel(@Nullable MinecraftDecoder passthroughDecoder) {
+    MinecraftCompressDecoder decoder = new MinecraftCompressDecoder(THRESHOLD,
+        JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION));
+    decoder.setPassthroughDecoder(passthroughDecoder);
+    return new EmbeddedChannel(decoder);
+  }
+
+  @Test
+  void relaysPacketsTheProxyDoesNotDecode() {
+    MinecraftDecoder playDecoder = createPlayDecoder();
+    ByteBuf packet = createPacket(relayedPacketId(playDecoder));
+    ByteBuf compressed = deflate(packet);
+
+    EmbeddedChannel channel = createChannel(playDecoder);
+    channel.writeInbound(compressedFrame(packet, compressed));
+    Object msg = channel.readInbound();
+    try {
+      assertTrue(msg instanceof CompressedFrame, "Packet was inflated");
+      CompressedFrame frame = (CompressedFrame) msg;
+      assertEquals(packet.readableBytes(), frame.getUncompressedSize());
+      assertEquals(compressed, frame.content());
+    } finally {
+      packet.release();
+      compressed.release();
+      ReferenceCountUtil.release(msg);
+      channel.finishAndReleaseAll();
+    }
+  }
+
+  @Test
+  void inflatesPacketsTheProxyDecodes() {
+    assertInflated(createPlayDecoder(), decodedPacketId());
+  }
+
+  @Test
+  void inflatesEverythingWithoutPassthrough() {
+    assertInflated(null, relayedPacketId(createPlayDecoder()));
+  }
+
+  private static void assertInflated(@Nullable MinecraftDecoder passthroughDecoder, int packetId) {
+    ByteBuf packet = createPacket(packetId);
+    ByteBuf compressed = deflate(packet);
+
+    EmbeddedChannel channel = createChannel(passthroughDecoder);
+    channel.writeInbound(compressedFrame(packet, compressed));
+    ByteBuf inflated = channel.readInbound();
+    try {
+      assertEquals(packet, inflated);
+    } finally {
+      packet.release();
+      compressed.release();
+      inflated.release();
+      channel.finishAndReleaseAll();
+    }
+  }
+
+  @Test
+  void encoderWritesRelayedFrameWithNewLength() {
+    ByteBuf packet = createPacket(0);
+    ByteBuf compressed = deflate(packet);
+    ByteBuf expected = Unpooled.buffer();
+    ByteBuf body = compressedFrame(packet, compressed);
+    ProtocolUtils.writeVarInt(expected, body.readableBytes());
+    expected.writeBytes(body);
+    body.release();
+
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftCompressorAndLengthEncoder(
+        THRESHOLD, JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION)));
+    channel.writeOutbound(new CompressedFrame(compressed.retain(), packet.readableBytes()));
+    ByteBuf actual = channel.readOutbound();
+    try {
+      assertEquals(expected, actual);
+      assertEquals(1, compressed.refCnt(), "Relayed frame was not released");
+    } finally {
+      packet.release();
+      compressed.release();
+      expected.release();
+      actual.release();
+      channel.finishAndReleaseAll();
+    }
+  }
+
+  @Test
+  void encoderInflatesFrameBelowItsThreshold() {
+    ByteBuf packet = createPacket(0);
+    ByteBuf compressed = deflate(packet);
+    int packetSize = packet.readableBytes();
+
+    // The receiving connection compresses at a higher threshold than the packet was compressed
+    // with, so it has to be sent uncompressed.
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftCompressorAndLengthEncoder(
+        packetSize + 1, JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION)));
+    channel.writeOutbound(new CompressedFrame(compressed, packetSize));
+    ByteBuf actual = channel.readOutbound();
+    try {
+      assertEquals(packetSize + 1, ProtocolUtils.readVarInt(actual));
+      assertEquals(0, ProtocolUtils.readVarInt(actual));
+      assertEquals(packet, actual);
+    } finally {
+      packet.release();
+      actual.release();
+      channel.finishAndReleaseAll();
+    }
+  }
+}
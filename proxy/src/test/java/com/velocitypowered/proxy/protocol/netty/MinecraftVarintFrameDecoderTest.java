@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.protocol.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.velocitypowered.proxy.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MinecraftVarintFrameDecoderTest {
+
+  @Test
+  void decodesFramesSplitAcrossReads() {
+    Random random = new Random(1);
+    int[] sizes = {1, 0, 127, 128, 300, 16384, 70000};
+    ByteBuf stream = Unpooled.buffer();
+    for (int size : sizes) {
+      byte[] frame = new byte[size];
+      random.nextBytes(frame);
+      ProtocolUtils.writeVarInt(stream, size);
+      stream.writeBytes(frame);
+    }
+
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+    for (int i = 0; i < stream.writerIndex(); i += 7) {
+      channel.writeInbound(stream.retainedSlice(i, Math.min(7, stream.writerIndex() - i)));
+    }
+
+    ByteBuf expected = stream.duplicate();
+    for (int size : sizes) {
+      assertEquals(size, ProtocolUtils.readVarInt(expected));
+      if (size == 0) {
+        continue; // empty frames are skipped
+      }
+      ByteBuf frame = channel.readInbound();
+      assertEquals(expected.readSlice(size), frame);
+      frame.release();
+    }
+    assertNull(channel.readInbound());
+    channel.finishAndReleaseAll();
+    stream.release();
+  }
+
+  @Test
+  void rejectsOversizedLength() {
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+    assertThrows(DecoderException.class, () -> channel.writeInbound(
+        Unpooled.wrappedBuffer(new byte[] {(byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01})));
+    channel.finishAndReleaseAll();
+  }
+}
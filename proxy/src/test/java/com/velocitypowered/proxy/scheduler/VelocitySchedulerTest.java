@@ -18,6 +18,8 @@
 package com.velocitypowered.proxy.scheduler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 import com.velocitypowered.api.scheduler.ScheduledTask;
 import com.velocitypowered.api.scheduler.TaskStatus;
@@ -65,4 +67,59 @@ class VelocitySchedulerTest {
     task.cancel();
   }
 
-}
\ No newline at end of file
+  @Test
+  void pluginPoolsAreBoundedAndIsolated() throws Exception {
+    VelocityScheduler scheduler = new VelocityScheduler(new FakePluginManager(), 2, false);
+    CountDownLatch release = new CountDownLatch(1);
+    boolean terminated;
+    try {
+      CountDownLatch started = new CountDownLatch(2);
+      for (int i = 0; i < 5; i++) {
+        scheduler.buildTask(FakePluginManager.PLUGIN_A, () -> {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }).schedule();
+      }
+      assertTrue(started.await(5, TimeUnit.SECONDS), "Plugin A's tasks did not start");
+
+      // Plugin A's tasks can't hold up plugin B's.
+      CountDownLatch otherPlugin = new CountDownLatch(1);
+      scheduler.buildTask(FakePluginManager.PLUGIN_B, otherPlugin::countDown).schedule();
+      assertTrue(otherPlugin.await(5, TimeUnit.SECONDS), "Plugin B's task did not run");
+
+      // The timer may hand the remaining tasks to the pool after the first two have started.
+      PluginTaskPool pool = pool(scheduler, "a");
+      assertEquals(2, pool.getActiveThreads());
+      awaitQueueDepth(pool, 3);
+    } finally {
+      release.countDown();
+      terminated = scheduler.shutdown();
+    }
+
+    assertTrue(terminated);
+    PluginTaskPool pool = pool(scheduler, "a");
+    assertEquals(5, pool.getRunTime().getCount());
+    assertEquals(5, pool.getStartDelay().getCount());
+  }
+
+  private static void awaitQueueDepth(PluginTaskPool pool, int depth) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (pool.getQueueDepth() != depth) {
+      if (System.nanoTime() - deadline >= 0) {
+        fail("Expected " + depth + " queued tasks, but " + pool.getQueueDepth() + " are queued");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  private static PluginTaskPool pool(VelocityScheduler scheduler, String id) {
+    return scheduler.getPluginTaskPools().stream()
+        .filter(pool -> pool.getPluginId().equals(id))
+        .findFirst()
+        .orElseThrow(AssertionError::new);
+  }
+}
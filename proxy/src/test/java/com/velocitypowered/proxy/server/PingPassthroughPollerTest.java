@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.kyori.adventure.text.Component;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PingPassthroughPollerTest {
+
+  private static final ProtocolVersion VERSION = ProtocolVersion.MINECRAFT_1_16_4;
+
+  private final VelocityRegisteredServer server = new VelocityRegisteredServer(null,
+      new ServerInfo("lobby", InetSocketAddress.createUnresolved("lobby", 25565)));
+  private final List<CompletableFuture<ServerPing>> pings = new ArrayList<>();
+  private final List<ProtocolVersion> pingedVersions = new ArrayList<>();
+  private final AtomicInteger interval = new AtomicInteger(5000);
+  private final AtomicInteger probeInterval = new AtomicInteger(0);
+  private final Collection<RegisteredServer> servers = new ArrayList<>();
+  private ManualExecutor executor;
+  private PingPassthroughPoller poller;
+
+  @BeforeEach
+  void setUp() {
+    executor = new ManualExecutor();
+    poller = new PingPassthroughPoller(interval::get, () -> 0, (target, version) -> {
+      CompletableFuture<ServerPing> ping = new CompletableFuture<>();
+      pings.add(ping);
+      pingedVersions.add(version);
+      return ping;
+    }, probeInterval::get, () -> servers, executor);
+  }
+
+  private static ServerPing response(String description) {
+    return new ServerPing(new ServerPing.Version(VERSION.getProtocol(), "test"), null,
+        Component.text(description), null);
+  }
+
+  @Test
+  void pingsForEveryRequestWithoutInterval() {
+    interval.set(0);
+    poller.getPing(server, VERSION);
+    poller.getPing(server, VERSION);
+    assertEquals(2, pings.size());
+    assertTrue(executor.tasks.isEmpty());
+  }
+
+  @Test
+  void concurrentRequestsShareFirstPing() {
+    CompletableFuture<ServerPing> first = poller.getPing(server, VERSION);
+    CompletableFuture<ServerPing> second = poller.getPing(server, VERSION);
+    assertEquals(1, pings.size());
+    assertSame(first, second);
+    assertFalse(first.isDone());
+
+    ServerPing response = response("first");
+    pings.get(0).complete(response);
+    assertSame(response, first.join());
+    assertSame(response, poller.getPing(server, VERSION).join());
+    assertEquals(1, pings.size());
+    assertEquals(1, executor.tasks.size(), "Next poll was not scheduled");
+  }
+
+  @Test
+  void versionsArePolledSeparately() {
+    poller.getPing(server, VERSION);
+    poller.getPing(server, ProtocolVersion.MINECRAFT_1_12_2);
+    assertEquals(2, pings.size());
+  }
+
+  @Test
+  void pollReplacesResponseOnceItArrives() {
+    ServerPing first = response("first");
+    poller.getPing(server, VERSION);
+    pings.get(0).complete(first);
+
+    executor.runNext();
+    assertEquals(2, pings.size());
+    // Clients are never kept waiting on a poll.
+    assertSame(first, poller.getPing(server, VERSION).join());
+
+    ServerPing second = response("second");
+    pings.get(1).complete(second);
+    assertSame(second, poller.getPing(server, VERSION).join());
+    assertEquals(1, executor.tasks.size());
+  }
+
+  @Test
+  void failedPingIsReportedAndPolledAgain() {
+    CompletableFuture<ServerPing> first = poller.getPing(server, VERSION);
+    pings.get(0).completeExceptionally(new IllegalStateException("down"));
+    assertTrue(first.isCompletedExceptionally());
+
+    executor.runNext();
+    ServerPing response = response("back up");
+    pings.get(1).complete(response);
+    assertSame(response, poller.getPing(server, VERSION).join());
+  }
+
+  @Test
+  void stopsPollingOnceDisabled() {
+    poller.getPing(server, VERSION);
+    pings.get(0).complete(response("first"));
+
+    interval.set(0);
+    executor.runNext();
+    assertEquals(1, pings.size(), "Server was polled after polling was disabled");
+    assertTrue(executor.tasks.isEmpty());
+
+    poller.getPing(server, VERSION);
+    assertEquals(2, pings.size());
+  }
+
+  @Test
+  void stopsPollingOnShutdown() {
+    poller.getPing(server, VERSION);
+    poller.shutdown();
+    pings.get(0).complete(response("first"));
+    assertTrue(executor.tasks.isEmpty());
+  }
+
+  @Test
+  void probesEveryServerOnInterval() {
+    VelocityRegisteredServer other = new VelocityRegisteredServer(null,
+        new ServerInfo("survival", InetSocketAddress.createUnresolved("survival", 25565)));
+    servers.add(server);
+    servers.add(other);
+    probeInterval.set(1000);
+    poller.rescheduleProbes();
+    assertEquals(1, executor.tasks.size());
+
+    executor.runNext();
+    assertEquals(2, pings.size());
+    assertEquals(List.of(ProtocolVersion.UNKNOWN, ProtocolVersion.UNKNOWN), pingedVersions);
+    assertEquals(1, executor.tasks.size(), "Next probe was not scheduled");
+
+    // A server that has not answered the previous probe yet is not probed again.
+    pings.get(0).complete(response("up"));
+    executor.runNext();
+    assertEquals(3, pings.size());
+  }
+
+  @Test
+  void reschedulingProbesReplacesSchedule() {
+    servers.add(server);
+    probeInterval.set(1000);
+    poller.rescheduleProbes();
+    poller.rescheduleProbes();
+    executor.runNext();
+    executor.runNext();
+    assertEquals(1, pings.size(), "Servers were probed by both schedules");
+    assertEquals(1, executor.tasks.size());
+
+    probeInterval.set(0);
+    poller.rescheduleProbes();
+    executor.runNext();
+    assertEquals(1, pings.size(), "Servers were probed after probing was disabled");
+    assertTrue(executor.tasks.isEmpty());
+  }
+
+  /**
+   * Runs scheduled tasks only when asked to, regardless of their delay.
+   */
+  private static final class ManualExecutor extends ScheduledThreadPoolExecutor {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    ManualExecutor() {
+      super(0);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+      if (isShutdown()) {
+        throw new RejectedExecutionException();
+      }
+      tasks.add(command);
+      return null;
+    }
+
+    void runNext() {
+      tasks.remove().run();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.config.VelocityConfiguration;
+import java.net.InetSocketAddress;
+import org.junit.jupiter.api.Test;
+
+class ServerHealthTest {
+
+  private static final int THRESHOLD = 3;
+  private static final long RETRY_DELAY = 1000;
+
+  private static ServerHealth tripped(long now) {
+    ServerHealth health = new ServerHealth();
+    for (int i = 0; i < THRESHOLD; i++) {
+      assertTrue(health.tryAcquire(now, RETRY_DELAY));
+      health.recordFailure(now, THRESHOLD);
+    }
+    return health;
+  }
+
+  @Test
+  void opensAfterConsecutiveFailures() {
+    ServerHealth health = new ServerHealth();
+    health.recordFailure(0, THRESHOLD);
+    health.recordFailure(0, THRESHOLD);
+    health.recordSuccess();
+    health.recordFailure(0, THRESHOLD);
+    health.recordFailure(0, THRESHOLD);
+    assertEquals(ServerHealth.State.CLOSED, health.getState());
+
+    health.recordFailure(0, THRESHOLD);
+    assertEquals(ServerHealth.State.OPEN, health.getState());
+    assertEquals(1, health.getTrips());
+  }
+
+  @Test
+  void failsFastWhileOpen() {
+    ServerHealth health = tripped(0);
+    assertFalse(health.isAvailable(RETRY_DELAY - 1, RETRY_DELAY));
+    assertFalse(health.tryAcquire(RETRY_DELAY - 1, RETRY_DELAY));
+  }
+
+  @Test
+  void letsSingleTrialThroughAfterRetryDelay() {
+    ServerHealth health = tripped(0);
+    assertTrue(health.isAvailable(RETRY_DELAY, RETRY_DELAY));
+    assertTrue(health.tryAcquire(RETRY_DELAY, RETRY_DELAY));
+    assertEquals(ServerHealth.State.HALF_OPEN, health.getState());
+    assertFalse(health.tryAcquire(RETRY_DELAY, RETRY_DELAY));
+
+    health.recordSuccess();
+    assertEquals(ServerHealth.State.CLOSED, health.getState());
+    assertTrue(health.tryAcquire(RETRY_DELAY, RETRY_DELAY));
+  }
+
+  @Test
+  void failedTrialReopens() {
+    ServerHealth health = tripped(0);
+    assertTrue(health.tryAcquire(RETRY_DELAY, RETRY_DELAY));
+    health.recordFailure(RETRY_DELAY, THRESHOLD);
+    assertEquals(ServerHealth.State.OPEN, health.getState());
+    assertEquals(2, health.getTrips());
+    assertFalse(health.tryAcquire(RETRY_DELAY * 2 - 1, RETRY_DELAY));
+    assertTrue(health.tryAcquire(RETRY_DELAY * 2, RETRY_DELAY));
+  }
+
+  @Test
+  void releasedTrialCanBeRetried() {
+    ServerHealth health = tripped(0);
+    assertTrue(health.tryAcquire(RETRY_DELAY, RETRY_DELAY));
+    health.release();
+    assertEquals(ServerHealth.State.HALF_OPEN, health.getState());
+    assertTrue(health.tryAcquire(RETRY_DELAY, RETRY_DELAY));
+  }
+
+  private static VelocityRegisteredServer serverWithBreaker() {
+    VelocityConfiguration configuration = mock(VelocityConfiguration.class);
+    when(configuration.getBackendFailureThreshold()).thenReturn(1);
+    when(configuration.getBackendRetryDelay()).thenReturn(10000);
+    VelocityServer proxy = mock(VelocityServer.class);
+    when(proxy.getConfiguration()).thenReturn(configuration);
+    return new VelocityRegisteredServer(proxy,
+        new ServerInfo("lobby", InetSocketAddress.createUnresolved("lobby", 25565)));
+  }
+
+  @Test
+  void failedLoginDoesNotCountAgainstServer() {
+    VelocityRegisteredServer server = serverWithBreaker();
+    assertTrue(server.tryStartConnection());
+    server.connectionFinished(true, 0);
+    assertEquals(ServerHealth.State.CLOSED, server.getHealth().getState());
+    assertEquals(0, server.getHealth().getTotalFailures());
+    assertTrue(server.isAvailable());
+  }
+
+  @Test
+  void unreachableServerCountsAgainstServer() {
+    VelocityRegisteredServer server = serverWithBreaker();
+    assertTrue(server.tryStartConnection());
+    server.recordHealth(false);
+    server.connectionFinished(true, 0);
+    assertEquals(ServerHealth.State.OPEN, server.getHealth().getState());
+    assertFalse(server.isAvailable());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.common.collect.ImmutableList;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ServerSelectionStrategyTest {
+
+  private static VelocityRegisteredServer server(String name, int load) {
+    VelocityRegisteredServer server = new VelocityRegisteredServer(null,
+        new ServerInfo(name, InetSocketAddress.createUnresolved(name, 25565)));
+    for (int i = 0; i < load; i++) {
+      server.connectionStarted();
+    }
+    return server;
+  }
+
+  @Test
+  void orderedPicksFirstCandidate() {
+    VelocityRegisteredServer a = server("a", 10);
+    VelocityRegisteredServer b = server("b", 0);
+    assertSame(a, ServerSelectionStrategy.ORDERED.select(ImmutableList.of(a, b), name -> 1));
+  }
+
+  @Test
+  void leastPlayersPicksLeastLoadedServer() {
+    VelocityRegisteredServer a = server("a", 3);
+    VelocityRegisteredServer b = server("b", 1);
+    VelocityRegisteredServer c = server("c", 2);
+    assertSame(b, ServerSelectionStrategy.LEAST_PLAYERS.select(ImmutableList.of(a, b, c),
+        name -> 1));
+  }
+
+  @Test
+  void weightedRoundRobinFollowsWeights() {
+    VelocityRegisteredServer a = server("a", 0);
+    VelocityRegisteredServer b = server("b", 0);
+    List<VelocityRegisteredServer> candidates = ImmutableList.of(a, b);
+    Map<VelocityRegisteredServer, Integer> picks = new HashMap<>();
+    for (int i = 0; i < 300; i++) {
+      picks.merge(ServerSelectionStrategy.WEIGHTED_ROUND_ROBIN.select(candidates,
+          name -> name.equals("a") ? 2 : 1), 1, Integer::sum);
+    }
+    assertEquals(200, picks.get(a));
+    assertEquals(100, picks.get(b));
+  }
+
+  @Test
+  void powerOfTwoChoicesNeverPicksMostLoadedOfTwo() {
+    VelocityRegisteredServer idle = server("idle", 0);
+    VelocityRegisteredServer busy = server("busy", 50);
+    for (int i = 0; i < 100; i++) {
+      assertSame(idle, ServerSelectionStrategy.POWER_OF_TWO_CHOICES.select(
+          ImmutableList.of(busy, idle), name -> 1));
+    }
+  }
+
+  @Test
+  void powerOfTwoChoicesAvoidsMostLoadedServer() {
+    VelocityRegisteredServer busy = server("busy", 50);
+    List<VelocityRegisteredServer> candidates = ImmutableList.of(busy, server("a", 1),
+        server("b", 2), server("c", 3));
+    for (int i = 0; i < 100; i++) {
+      assertNotSame(busy, ServerSelectionStrategy.POWER_OF_TWO_CHOICES.select(candidates,
+          name -> 1));
+    }
+  }
+
+  @Test
+  void healthAwareAvoidsFailingAndSlowServers() {
+    VelocityRegisteredServer failing = server("failing", 0);
+    for (int i = 0; i < 20; i++) {
+      failing.connectionStarted();
+      failing.connectionFinished(true, 0);
+    }
+    VelocityRegisteredServer slow = server("slow", 0);
+    slow.recordConnectLatency(TimeUnit.MILLISECONDS.toNanos(200));
+    VelocityRegisteredServer healthy = server("healthy", 1);
+    healthy.recordConnectLatency(TimeUnit.MILLISECONDS.toNanos(5));
+
+    assertSame(healthy, ServerSelectionStrategy.HEALTH_AWARE.select(
+        ImmutableList.of(failing, slow, healthy), name -> 1));
+  }
+
+  @Test
+  void configNamesRoundTrip() {
+    for (ServerSelectionStrategy strategy : ServerSelectionStrategy.values()) {
+      assertSame(strategy, ServerSelectionStrategy.fromConfigName(strategy.getConfigName()));
+    }
+    assertSame(ServerSelectionStrategy.LEAST_PLAYERS,
+        ServerSelectionStrategy.fromConfigName("Least-Players"));
+    assertNull(ServerSelectionStrategy.fromConfigName("random"));
+  }
+}
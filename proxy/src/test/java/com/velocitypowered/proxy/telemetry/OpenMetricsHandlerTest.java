@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class OpenMetricsHandlerTest {
+
+  private static final String EXPOSITION = "# TYPE velocity_test gauge\n"
+      + "velocity_test 1\n"
+      + "# EOF\n";
+
+  private static EmbeddedChannel channel() {
+    return new EmbeddedChannel(new HttpServerCodec(), new HttpObjectAggregator(8192),
+        new OpenMetricsHandler(() -> EXPOSITION));
+  }
+
+  /**
+   * Sends a raw HTTP request, as a scraper would, and returns the raw response.
+   */
+  private static String request(EmbeddedChannel channel, String request) {
+    channel.writeInbound(Unpooled.copiedBuffer(request, StandardCharsets.US_ASCII));
+    StringBuilder response = new StringBuilder();
+    ByteBuf buf;
+    while ((buf = channel.readOutbound()) != null) {
+      response.append(buf.toString(StandardCharsets.UTF_8));
+      buf.release();
+    }
+    return response.toString();
+  }
+
+  @Test
+  void servesMetrics() {
+    EmbeddedChannel channel = channel();
+    String response = request(channel, "GET /metrics HTTP/1.1\r\nHost: proxy\r\n\r\n");
+    assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"), response);
+    assertTrue(response.contains("content-type: " + OpenMetricsWriter.CONTENT_TYPE + "\r\n"),
+        response);
+    assertTrue(response.contains("content-length: " + EXPOSITION.length() + "\r\n"), response);
+    assertTrue(response.endsWith("\r\n\r\n" + EXPOSITION), response);
+    // Scrapers reuse the connection.
+    assertTrue(channel.isOpen());
+
+    String second = request(channel, "GET /metrics?name=velocity_test HTTP/1.1\r\n"
+        + "Host: proxy\r\n\r\n");
+    assertTrue(second.endsWith("\r\n\r\n" + EXPOSITION), second);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void headOmitsBody() {
+    EmbeddedChannel channel = channel();
+    String response = request(channel, "HEAD /metrics HTTP/1.1\r\nHost: proxy\r\n\r\n");
+    assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"), response);
+    assertTrue(response.contains("content-length: " + EXPOSITION.length() + "\r\n"), response);
+    assertTrue(response.endsWith("\r\n\r\n"), response);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void unknownPathIsNotFound() {
+    EmbeddedChannel channel = channel();
+    String response = request(channel, "GET / HTTP/1.1\r\nHost: proxy\r\n\r\n");
+    assertTrue(response.startsWith("HTTP/1.1 404 Not Found\r\n"), response);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void otherMethodsAreNotAllowed() {
+    EmbeddedChannel channel = channel();
+    String response = request(channel,
+        "POST /metrics HTTP/1.1\r\nHost: proxy\r\ncontent-length: 0\r\n\r\n");
+    assertTrue(response.startsWith("HTTP/1.1 405 Method Not Allowed\r\n"), response);
+    assertTrue(response.contains("allow: GET, HEAD\r\n"), response);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void closesConnectionWhenAsked() {
+    EmbeddedChannel channel = channel();
+    String response = request(channel,
+        "GET /metrics HTTP/1.1\r\nHost: proxy\r\nConnection: close\r\n\r\n");
+    assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"), response);
+    assertEquals(-1, response.indexOf("keep-alive"));
+    assertFalse(channel.isOpen());
+  }
+}
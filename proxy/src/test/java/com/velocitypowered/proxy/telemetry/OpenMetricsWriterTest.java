@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.telemetry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.proxy.util.LatencyHistogram;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class OpenMetricsWriterTest {
+
+  @Test
+  void writesCountersAndGauges() {
+    String exposition = new OpenMetricsWriter()
+        .counter("velocity_test_packets", "Packets seen")
+        .counterSample("velocity_test_packets", 42, "direction", "serverbound")
+        .gauge("velocity_test_ratio", "A ratio")
+        .sample("velocity_test_ratio", 0.25)
+        .finish();
+
+    assertEquals("# TYPE velocity_test_packets counter\n"
+        + "# HELP velocity_test_packets Packets seen\n"
+        + "velocity_test_packets_total{direction=\"serverbound\"} 42\n"
+        + "# TYPE velocity_test_ratio gauge\n"
+        + "# HELP velocity_test_ratio A ratio\n"
+        + "velocity_test_ratio 0.25\n"
+        + "# EOF\n", exposition);
+  }
+
+  @Test
+  void escapesLabelValues() {
+    String exposition = new OpenMetricsWriter()
+        .gauge("velocity_test", "Escaping")
+        .sample("velocity_test", 1, "server", "a\"b\\c\nd")
+        .finish();
+
+    assertTrue(exposition.contains("velocity_test{server=\"a\\\"b\\\\c\\nd\"} 1\n"), exposition);
+  }
+
+  @Test
+  void writesHistogramsAsSummariesInSeconds() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+
+    String exposition = new OpenMetricsWriter()
+        .summary("velocity_test_seconds", "Latency")
+        .summarySample("velocity_test_seconds", histogram, "stage", "total")
+        .finish();
+
+    assertTrue(exposition.contains("# TYPE velocity_test_seconds summary\n"), exposition);
+    assertTrue(exposition.contains("velocity_test_seconds{stage=\"total\",quantile=\"0.99\"} "),
+        exposition);
+    assertTrue(exposition.contains("velocity_test_seconds_count{stage=\"total\"} 2\n"),
+        exposition);
+    assertTrue(exposition.contains("velocity_test_seconds_sum{stage=\"total\"} 0.004\n"),
+        exposition);
+  }
+
+  @Test
+  void rejectsWritesAfterFinish() {
+    OpenMetricsWriter writer = new OpenMetricsWriter();
+    writer.finish();
+    assertThrows(IllegalStateException.class, () -> writer.gauge("velocity_test", "Late"));
+  }
+}
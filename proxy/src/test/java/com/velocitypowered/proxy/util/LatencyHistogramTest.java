@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void emptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getPercentileNanos(99));
+  }
+
+  @Test
+  void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 8; i++) {
+      histogram.record(i);
+    }
+    assertEquals(8, histogram.getCount());
+    assertEquals(28, histogram.getTotalNanos());
+    assertEquals(3, histogram.getPercentileNanos(50));
+    assertEquals(7, histogram.getPercentileNanos(100));
+  }
+
+  @Test
+  void percentilesAreWithinError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 100_000; i++) {
+      histogram.record(i * 1_000);
+    }
+    assertWithinError(50_000_000, histogram.getPercentileNanos(50));
+    assertWithinError(99_000_000, histogram.getPercentileNanos(99));
+    assertWithinError(100_000_000, histogram.getPercentileNanos(100));
+  }
+
+  @Test
+  void negativeValuesAreRecordedAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    assertEquals(1, histogram.getCount());
+    assertEquals(0, histogram.getTotalNanos());
+    assertEquals(0, histogram.getPercentileNanos(100));
+  }
+
+  private static void assertWithinError(long expected, long actual) {
+    assertTrue(actual >= expected && actual <= expected + expected / 8,
+        () -> "expected " + expected + " but was " + actual);
+  }
+}
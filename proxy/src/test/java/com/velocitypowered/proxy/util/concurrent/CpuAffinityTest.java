@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class CpuAffinityTest {
+
+  @Test
+  void parsesEmptyList() {
+    assertArrayEquals(new int[0], CpuAffinity.parseCpuList(""));
+    assertArrayEquals(new int[0], CpuAffinity.parseCpuList("  "));
+  }
+
+  @Test
+  void parsesRangesAndSingleCpus() {
+    assertArrayEquals(new int[] {0, 1, 2, 3, 8, 10, 11},
+        CpuAffinity.parseCpuList("0-3,8, 10-11"));
+  }
+
+  @Test
+  void rejectsMalformedLists() {
+    assertThrows(IllegalArgumentException.class, () -> CpuAffinity.parseCpuList("a"));
+    assertThrows(IllegalArgumentException.class, () -> CpuAffinity.parseCpuList("3-1"));
+    assertThrows(IllegalArgumentException.class, () -> CpuAffinity.parseCpuList("-1"));
+    assertThrows(IllegalArgumentException.class, () -> CpuAffinity.parseCpuList("1,,2"));
+  }
+
+  @Test
+  void acceptsCpusAboveTheAvailableCount() {
+    // A proxy started with taskset -c 16-31 has 16 available CPUs, but uses ids 16 to 31.
+    int cpu = Runtime.getRuntime().availableProcessors() + 16;
+    assertArrayEquals(new int[] {cpu}, CpuAffinity.parseCpuList(String.valueOf(cpu)));
+    assertThrows(IllegalArgumentException.class,
+        () -> CpuAffinity.parseCpuList("0-2147483647"));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+class CryptoExecutorTest {
+
+  @Test
+  void runsTasks() throws Exception {
+    CryptoExecutor executor = new CryptoExecutor(1, 4);
+    try {
+      assertEquals(42, executor.submit(() -> 42).get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void rejectsTasksWhenQueueIsFull() throws Exception {
+    CryptoExecutor executor = new CryptoExecutor(1, 1);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      CompletableFuture<Object> blocking = executor.submit(() -> {
+        running.countDown();
+        release.await();
+        return null;
+      });
+      running.await();
+      CompletableFuture<Integer> queued = executor.submit(() -> 1);
+      CompletableFuture<Integer> rejected = executor.submit(() -> 2);
+
+      ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+      assertEquals(1, executor.getRejectedTasks());
+
+      release.countDown();
+      blocking.get();
+      assertEquals(1, queued.get());
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+}
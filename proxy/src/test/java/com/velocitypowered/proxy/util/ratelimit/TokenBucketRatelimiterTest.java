@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.Ticker;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketRatelimiterTest {
+
+  private final AtomicLong time = new AtomicLong();
+  private final Ticker ticker = new Ticker() {
+    @Override
+    public long read() {
+      return time.get();
+    }
+  };
+
+  private TokenBucketRatelimiter create(int burst, boolean aggregateSubnets, int slots) {
+    return new TokenBucketRatelimiter(1000, TimeUnit.MILLISECONDS, burst, aggregateSubnets,
+        slots, slots, ticker);
+  }
+
+  @Test
+  void allowsBurstThenRefills() throws Exception {
+    Ratelimiter ratelimiter = create(3, false, 64);
+    InetAddress address = InetAddress.getByName("192.0.2.1");
+    assertTrue(ratelimiter.attempt(address));
+    assertTrue(ratelimiter.attempt(address));
+    assertTrue(ratelimiter.attempt(address));
+    assertFalse(ratelimiter.attempt(address));
+
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1100));
+    assertTrue(ratelimiter.attempt(address));
+    assertFalse(ratelimiter.attempt(address));
+  }
+
+  @Test
+  void addressesAreIndependent() throws Exception {
+    Ratelimiter ratelimiter = create(1, false, 64);
+    assertTrue(ratelimiter.attempt(InetAddress.getByName("192.0.2.1")));
+    assertFalse(ratelimiter.attempt(InetAddress.getByName("192.0.2.1")));
+    assertTrue(ratelimiter.attempt(InetAddress.getByName("198.51.100.1")));
+  }
+
+  @Test
+  void ipv6AddressesAreLimitedByPrefix() throws Exception {
+    Ratelimiter ratelimiter = create(1, false, 64);
+    assertTrue(ratelimiter.attempt(InetAddress.getByName("2001:db8::1")));
+    assertFalse(ratelimiter.attempt(InetAddress.getByName("2001:db8::2")));
+    assertTrue(ratelimiter.attempt(InetAddress.getByName("2001:db8:0:1::1")));
+  }
+
+  @Test
+  void subnetsAreAggregated() throws Exception {
+    Ratelimiter ratelimiter = create(1, true, 1024);
+    for (int i = 1; i <= 4; i++) {
+      assertTrue(ratelimiter.attempt(InetAddress.getByName("192.0.2." + i)));
+    }
+    assertFalse(ratelimiter.attempt(InetAddress.getByName("192.0.2.5")));
+    assertTrue(ratelimiter.attempt(InetAddress.getByName("198.51.100.1")));
+  }
+
+  @Test
+  void limitedAddressDoesNotUseUpItsSubnet() throws Exception {
+    Ratelimiter ratelimiter = create(1, true, 1024);
+    InetAddress flooder = InetAddress.getByName("192.0.2.1");
+    assertTrue(ratelimiter.attempt(flooder));
+    for (int i = 0; i < 16; i++) {
+      assertFalse(ratelimiter.attempt(flooder));
+    }
+    for (int i = 2; i <= 4; i++) {
+      assertTrue(ratelimiter.attempt(InetAddress.getByName("192.0.2." + i)));
+    }
+  }
+
+  @Test
+  void tableDoesNotGrow() throws Exception {
+    Ratelimiter ratelimiter = create(1, false, 4);
+    // More addresses than slots: every attempt still gets an answer, and the limiter only gets
+    // stricter.
+    int allowed = 0;
+    for (int i = 0; i < 256; i++) {
+      if (ratelimiter.attempt(InetAddress.getByName("10.0." + i + ".1"))) {
+        allowed++;
+      }
+    }
+    assertTrue(allowed >= 4 && allowed < 256);
+  }
+}